@@ -9,6 +9,7 @@ import com.xwl.esplus.core.toolkit.ExceptionUtils;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -22,8 +23,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.xwl.esplus.core.constant.EsGlobalConstants.CLIENT_PREFIX;
@@ -37,7 +41,7 @@ import static com.xwl.esplus.core.constant.EsGlobalConstants.CLIENT_PREFIX;
 @EnableConfigurationProperties(DynamicEsPlusProperties.class)
 @ConditionalOnProperty(prefix = EsGlobalConstants.PROPERTIES_DYNAMIC_PREFIX, name = "primary")
 @AutoConfigureBefore(EsPlusAutoConfiguration.class)
-public class DynamicEsPlusAutoConfiguration implements InitializingBean {
+public class DynamicEsPlusAutoConfiguration implements InitializingBean, DisposableBean {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
@@ -45,6 +49,11 @@ public class DynamicEsPlusAutoConfiguration implements InitializingBean {
 
     private ApplicationContext applicationContext;
 
+    /**
+     * 通过registerSingleton注册的非主客户端，容器不会关闭，需自行关闭（同时关闭其节点嗅探器）
+     */
+    private final List<RestHighLevelClient> secondaryClients = new CopyOnWriteArrayList<>();
+
 
     public DynamicEsPlusAutoConfiguration(DynamicEsPlusProperties dynamicEsPlusProperties, ApplicationContext applicationContext) {
         this.dynamicEsPlusProperties = dynamicEsPlusProperties;
@@ -74,9 +83,11 @@ public class DynamicEsPlusAutoConfiguration implements InitializingBean {
         ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
         datasource.entrySet().forEach(entry -> {
             EsPlusAutoConfiguration esPlusAutoConfiguration = new EsPlusAutoConfiguration(entry.getValue());
-            RestHighLevelClient restHighLevelClient = esPlusAutoConfiguration.restHighLevelClient();
+            RestHighLevelClient restHighLevelClient = esPlusAutoConfiguration.buildRestHighLevelClient(entry.getKey());
             if (entry.getKey().equals(dynamicEsPlusProperties.getPrimary())) {
                 atomicReference.set(restHighLevelClient);
+            } else {
+                secondaryClients.add(restHighLevelClient);
             }
             beanFactory.registerSingleton(CLIENT_PREFIX.concat(entry.getKey()), restHighLevelClient);
             DynamicRoutingClient.addClient(entry.getKey(), restHighLevelClient);
@@ -87,6 +98,19 @@ public class DynamicEsPlusAutoConfiguration implements InitializingBean {
         return atomicReference.get();
     }
 
+    @Override
+    public void destroy() {
+        // 主客户端作为bean由容器关闭
+        secondaryClients.forEach(client -> {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("close elasticsearch client failed", e);
+            }
+        });
+        secondaryClients.clear();
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public DynamicClientAnnotationAdvisor dynamicClientAnnotationAdvisor() {
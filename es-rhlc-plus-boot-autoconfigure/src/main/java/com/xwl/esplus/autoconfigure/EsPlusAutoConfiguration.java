@@ -1,16 +1,30 @@
 package com.xwl.esplus.autoconfigure;
 
 import com.xwl.esplus.core.cache.GlobalConfigCache;
+import com.xwl.esplus.core.constant.EsGlobalConstants;
+import com.xwl.esplus.core.enums.EsNodeSelectorEnum;
+import com.xwl.esplus.core.http.EsCompressionMetrics;
+import com.xwl.esplus.core.http.GzipHttpAsyncClient;
+import com.xwl.esplus.core.http.EsRoleAwareNodeSelector;
+import com.xwl.esplus.core.http.GzipHttpAsyncClientBuilder;
 import com.xwl.esplus.core.toolkit.ExceptionUtils;
 import com.xwl.esplus.core.toolkit.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.message.BasicHeader;
+import org.elasticsearch.client.NodeSelector;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.elasticsearch.client.sniff.NodesSniffer;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -58,6 +72,16 @@ public class EsPlusAutoConfiguration implements InitializingBean {
     @Bean
     @ConditionalOnMissingBean(RestHighLevelClient.class)
     public RestHighLevelClient restHighLevelClient() {
+        return buildRestHighLevelClient(EsGlobalConstants.DEFAULT_CLIENT);
+    }
+
+    /**
+     * 构建RestHighLevelClient
+     *
+     * @param clientName 客户端名称，用于区分统计指标
+     * @return org.elasticsearch.client.RestHighLevelClient
+     */
+    RestHighLevelClient buildRestHighLevelClient(String clientName) {
         // 拆分地址
         List<HttpHost> hostLists = new ArrayList<>();
         String address = esPlusProperties.getAddress();
@@ -95,14 +119,70 @@ public class EsPlusAutoConfiguration implements InitializingBean {
             requestConfigBuilder.setConnectionRequestTimeout(esPlusProperties.getConnectionRequestTimeout());
             return requestConfigBuilder;
         });
+        // gzip压缩：请求服务端压缩响应
+        if (esPlusProperties.isEnableCompression()) {
+            builder.setDefaultHeaders(new Header[]{new BasicHeader(HttpHeaders.ACCEPT_ENCODING, GzipHttpAsyncClient.GZIP)});
+        }
         // 异步连接数配置
         builder.setHttpClientConfigCallback(httpClientBuilder -> {
             // 设置账号密码
             httpClientBuilder.setMaxConnTotal(esPlusProperties.getMaxConnTotal());
             httpClientBuilder.setMaxConnPerRoute(esPlusProperties.getMaxConnPerRoute());
             httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+            if (esPlusProperties.isEnableCompression()) {
+                return new GzipHttpAsyncClientBuilder(httpClientBuilder, esPlusProperties.getCompressionThreshold(),
+                        EsCompressionMetrics.get(clientName));
+            }
             return httpClientBuilder;
         });
-        return new RestHighLevelClient(builder);
+        // 节点选择策略
+        NodeSelector nodeSelector = getNodeSelector(esPlusProperties.getNodeSelector());
+        if (nodeSelector != null) {
+            builder.setNodeSelector(nodeSelector);
+        }
+        // 请求失败时嗅探节点
+        SniffOnFailureListener sniffOnFailureListener = null;
+        if (esPlusProperties.isEnableSniffer() && esPlusProperties.isSniffOnFailure()) {
+            sniffOnFailureListener = new SniffOnFailureListener();
+            builder.setFailureListener(sniffOnFailureListener);
+        }
+        RestClient restClient = builder.build();
+        // 定期嗅探节点，嗅探器随客户端一起关闭
+        Sniffer sniffer = null;
+        if (esPlusProperties.isEnableSniffer()) {
+            ElasticsearchNodesSniffer.Scheme scheme = "https".equalsIgnoreCase(schema)
+                    ? ElasticsearchNodesSniffer.Scheme.HTTPS : ElasticsearchNodesSniffer.Scheme.HTTP;
+            NodesSniffer nodesSniffer = new ElasticsearchNodesSniffer(restClient,
+                    ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT, scheme);
+            sniffer = Sniffer.builder(restClient)
+                    .setNodesSniffer(nodesSniffer)
+                    .setSniffIntervalMillis(esPlusProperties.getSniffIntervalMillis())
+                    .setSniffAfterFailureDelayMillis(esPlusProperties.getSniffAfterFailureDelayMillis())
+                    .build();
+            if (sniffOnFailureListener != null) {
+                sniffOnFailureListener.setSniffer(sniffer);
+            }
+        }
+        return new EsPlusRestHighLevelClient(restClient, sniffer);
+    }
+
+    /**
+     * 获取节点选择器
+     *
+     * @param nodeSelectorEnum 节点选择策略
+     * @return 节点选择器，ANY时返回null使用RestClient默认选择器
+     */
+    private NodeSelector getNodeSelector(EsNodeSelectorEnum nodeSelectorEnum) {
+        if (nodeSelectorEnum == null) {
+            return null;
+        }
+        switch (nodeSelectorEnum) {
+            case SKIP_DEDICATED_MASTERS:
+                return NodeSelector.SKIP_DEDICATED_MASTERS;
+            case ROLE_AWARE:
+                return new EsRoleAwareNodeSelector();
+            default:
+                return null;
+        }
     }
 }
@@ -3,6 +3,7 @@ package com.xwl.esplus.autoconfigure;
 import com.xwl.esplus.core.cache.GlobalConfigCache;
 import com.xwl.esplus.core.config.GlobalConfig;
 import com.xwl.esplus.core.constant.EsGlobalConstants;
+import com.xwl.esplus.core.enums.EsNodeSelectorEnum;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
@@ -60,6 +61,46 @@ public class EsPlusProperties {
      */
     private int maxConnPerRoute = 100;
 
+    /**
+     * 是否开启gzip压缩，默认false
+     * 开启后请求体超过阈值时gzip压缩发送，并携带Accept-Encoding: gzip请求服务端压缩响应
+     */
+    private boolean enableCompression = false;
+
+    /**
+     * 请求体压缩阈值（单位：byte），默认1024，小于该值的请求体不压缩
+     */
+    private int compressionThreshold = 1024;
+
+    /**
+     * 是否开启节点嗅探，默认false
+     * 开启后定期从集群获取节点列表（_nodes/http），集群扩缩容无需重启应用
+     */
+    private boolean enableSniffer = false;
+
+    /**
+     * 节点嗅探间隔（单位：ms），默认300000
+     */
+    private int sniffIntervalMillis = 300000;
+
+    /**
+     * 请求失败时是否立即嗅探节点，默认true
+     */
+    private boolean sniffOnFailure = true;
+
+    /**
+     * 请求失败嗅探后，下一次嗅探的延迟时间（单位：ms），默认60000
+     */
+    private int sniffAfterFailureDelayMillis = 60000;
+
+    /**
+     * 请求节点选择策略，默认ANY
+     * ANY：任意节点，
+     * SKIP_DEDICATED_MASTERS：跳过专用主节点，
+     * ROLE_AWARE：写请求优先ingest节点，读请求优先仅协调节点（需开启节点嗅探获取节点角色）
+     */
+    private EsNodeSelectorEnum nodeSelector = EsNodeSelectorEnum.ANY;
+
     /**
      * 全局配置（嵌套配置）
      */
@@ -138,6 +179,62 @@ public class EsPlusProperties {
         this.maxConnPerRoute = maxConnPerRoute;
     }
 
+    public boolean isEnableCompression() {
+        return enableCompression;
+    }
+
+    public void setEnableCompression(boolean enableCompression) {
+        this.enableCompression = enableCompression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isEnableSniffer() {
+        return enableSniffer;
+    }
+
+    public void setEnableSniffer(boolean enableSniffer) {
+        this.enableSniffer = enableSniffer;
+    }
+
+    public int getSniffIntervalMillis() {
+        return sniffIntervalMillis;
+    }
+
+    public void setSniffIntervalMillis(int sniffIntervalMillis) {
+        this.sniffIntervalMillis = sniffIntervalMillis;
+    }
+
+    public boolean isSniffOnFailure() {
+        return sniffOnFailure;
+    }
+
+    public void setSniffOnFailure(boolean sniffOnFailure) {
+        this.sniffOnFailure = sniffOnFailure;
+    }
+
+    public int getSniffAfterFailureDelayMillis() {
+        return sniffAfterFailureDelayMillis;
+    }
+
+    public void setSniffAfterFailureDelayMillis(int sniffAfterFailureDelayMillis) {
+        this.sniffAfterFailureDelayMillis = sniffAfterFailureDelayMillis;
+    }
+
+    public EsNodeSelectorEnum getNodeSelector() {
+        return nodeSelector;
+    }
+
+    public void setNodeSelector(EsNodeSelectorEnum nodeSelector) {
+        this.nodeSelector = nodeSelector;
+    }
+
     public GlobalConfig getGlobalConfig() {
         return globalConfig;
     }
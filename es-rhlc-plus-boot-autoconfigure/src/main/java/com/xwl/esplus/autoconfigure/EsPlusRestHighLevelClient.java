@@ -0,0 +1,30 @@
+package com.xwl.esplus.autoconfigure;
+
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.sniff.Sniffer;
+
+import java.util.Collections;
+
+/**
+ * 持有节点嗅探器的RestHighLevelClient，关闭客户端时先关闭嗅探器再关闭底层RestClient，
+ * 避免嗅探器在客户端关闭后继续使用已关闭的RestClient
+ *
+ * @author xwl
+ * @since 2026/10/18 11:05
+ */
+class EsPlusRestHighLevelClient extends RestHighLevelClient {
+
+    /**
+     * @param restClient 底层客户端
+     * @param sniffer    节点嗅探器，未开启嗅探时为null
+     */
+    EsPlusRestHighLevelClient(RestClient restClient, Sniffer sniffer) {
+        super(restClient, client -> {
+            if (sniffer != null) {
+                sniffer.close();
+            }
+            client.close();
+        }, Collections.emptyList());
+    }
+}
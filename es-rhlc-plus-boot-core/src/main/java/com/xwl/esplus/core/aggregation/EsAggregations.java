@@ -0,0 +1,189 @@
+package com.xwl.esplus.core.aggregation;
+
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.metrics.Stats;
+import org.elasticsearch.search.aggregations.metrics.TopHits;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 聚合结果，按wrapper中聚合的返回名称（returnName）获取，同一层级的聚合共用一个实例
+ * <p>
+ * 直接读取es响应中的聚合，只有被访问到的聚合才会转换为桶列表、统计结果或实体，且每个聚合只转换一次；
+ * 非线程安全，每次aggregate返回新的实例，调用方之间不共享实体对象
+ *
+ * @param <T> 实体类型
+ * @author xwl
+ * @since 2026/10/18 23:10
+ */
+public class EsAggregations<T> {
+    /**
+     * es响应中的聚合，没有聚合时为null
+     */
+    private final Aggregations aggregations;
+
+    /**
+     * 搜索命中 -> 实体，用于topHits
+     */
+    private final Function<SearchHit, T> hitParser;
+
+    /**
+     * 返回名称 -> 已转换的结果（桶列表、统计结果、实体列表）
+     */
+    private final Map<String, Object> materialized = new HashMap<>();
+
+    public EsAggregations(Aggregations aggregations, Function<SearchHit, T> hitParser) {
+        this.aggregations = aggregations;
+        this.hitParser = hitParser;
+    }
+
+    /**
+     * 是否包含指定名称的聚合
+     *
+     * @param name 返回名称
+     * @return 是否包含
+     */
+    public boolean contains(String name) {
+        return Objects.nonNull(aggregations) && Objects.nonNull(aggregations.get(name));
+    }
+
+    /**
+     * 当前层级所有聚合的返回名称
+     *
+     * @return 返回名称
+     */
+    public Set<String> getNames() {
+        return Objects.isNull(aggregations) ? Collections.emptySet() : aggregations.asMap().keySet();
+    }
+
+    /**
+     * 单值指标聚合（avg、min、max、sum、cardinality）的值，没有文档参与统计时avg为NaN，min、max为正负无穷
+     *
+     * @param name 返回名称
+     * @return 值
+     */
+    public double getValue(String name) {
+        return get(name, NumericMetricsAggregation.SingleValue.class).value();
+    }
+
+    /**
+     * 单值指标聚合的值转为long，适用于cardinality及整数字段的min、max、sum
+     *
+     * @param name 返回名称
+     * @return 值
+     */
+    public long getLongValue(String name) {
+        return (long) getValue(name);
+    }
+
+    /**
+     * stats聚合的结果
+     *
+     * @param name 返回名称
+     * @return 统计结果
+     */
+    public EsStats getStats(String name) {
+        EsStats stats = (EsStats) materialized.get(name);
+        if (Objects.isNull(stats)) {
+            stats = new EsStats(get(name, Stats.class));
+            materialized.put(name, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 桶聚合（groupBy、termsAggregation、dateHistogram）的桶列表，顺序与es返回一致
+     *
+     * @param name 返回名称
+     * @return 桶列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<EsBucket<T>> getBuckets(String name) {
+        List<EsBucket<T>> buckets = (List<EsBucket<T>>) materialized.get(name);
+        if (Objects.isNull(buckets)) {
+            List<? extends MultiBucketsAggregation.Bucket> rawBuckets = get(name, MultiBucketsAggregation.class).getBuckets();
+            buckets = new ArrayList<>(rawBuckets.size());
+            for (MultiBucketsAggregation.Bucket bucket : rawBuckets) {
+                buckets.add(new EsBucket<>(bucket, hitParser));
+            }
+            buckets = Collections.unmodifiableList(buckets);
+            materialized.put(name, buckets);
+        }
+        return buckets;
+    }
+
+    /**
+     * 按key获取桶，日期桶的key为格式化后的字符串
+     *
+     * @param name 返回名称
+     * @param key  桶的key
+     * @return 桶，不存在时返回null
+     */
+    public EsBucket<T> getBucket(String name, String key) {
+        for (EsBucket<T> bucket : getBuckets(name)) {
+            if (Objects.equals(bucket.getKeyAsString(), key)) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * topHits聚合命中的文档，解析为实体
+     *
+     * @param name 返回名称
+     * @return 实体列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getTopHits(String name) {
+        List<T> list = (List<T>) materialized.get(name);
+        if (Objects.isNull(list)) {
+            SearchHit[] hits = get(name, TopHits.class).getHits().getHits();
+            list = new ArrayList<>(hits.length);
+            for (SearchHit hit : hits) {
+                list.add(hitParser.apply(hit));
+            }
+            list = Collections.unmodifiableList(list);
+            materialized.put(name, list);
+        }
+        return list;
+    }
+
+    /**
+     * 获取原始聚合，用于未封装的聚合类型
+     *
+     * @param name 返回名称
+     * @param type 聚合类型
+     * @param <A>  聚合类型
+     * @return 原始聚合
+     */
+    public <A extends Aggregation> A get(String name, Class<A> type) {
+        Aggregation aggregation = Objects.isNull(aggregations) ? null : aggregations.get(name);
+        if (Objects.isNull(aggregation)) {
+            throw ExceptionUtils.epe("aggregation not found: %s", name);
+        }
+        if (!type.isInstance(aggregation)) {
+            throw ExceptionUtils.epe("aggregation %s is %s, not %s", name, aggregation.getType(), type.getSimpleName());
+        }
+        return type.cast(aggregation);
+    }
+
+    @Override
+    public String toString() {
+        return "EsAggregations{" +
+                "names=" + getNames() +
+                '}';
+    }
+}
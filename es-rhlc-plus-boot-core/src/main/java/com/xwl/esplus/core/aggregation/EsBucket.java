@@ -0,0 +1,150 @@
+package com.xwl.esplus.core.aggregation;
+
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 桶聚合中的一个桶，子聚合在首次访问时才转换
+ *
+ * @param <T> 实体类型
+ * @author xwl
+ * @since 2026/10/18 23:10
+ */
+public class EsBucket<T> {
+    /**
+     * es响应中的桶
+     */
+    private final MultiBucketsAggregation.Bucket bucket;
+
+    /**
+     * 搜索命中 -> 实体，用于子聚合中的topHits
+     */
+    private final Function<SearchHit, T> hitParser;
+
+    /**
+     * 子聚合
+     */
+    private EsAggregations<T> subAggregations;
+
+    EsBucket(MultiBucketsAggregation.Bucket bucket, Function<SearchHit, T> hitParser) {
+        this.bucket = bucket;
+        this.hitParser = hitParser;
+    }
+
+    /**
+     * 桶的key：terms为String、Long或Double，dateHistogram为ZonedDateTime，composite为分组字段名 -> 值
+     *
+     * @return key
+     */
+    public Object getKey() {
+        return bucket.getKey();
+    }
+
+    /**
+     * composite桶中指定分组字段的值
+     *
+     * @param source 分组字段名称（实体字段名）
+     * @return 值，该桶此字段无值时为null
+     */
+    public Object getKey(String source) {
+        Object key = bucket.getKey();
+        if (!(key instanceof Map)) {
+            throw ExceptionUtils.epe("bucket key is not composite: %s", key);
+        }
+        return ((Map<?, ?>) key).get(source);
+    }
+
+    /**
+     * 桶的key（字符串），dateHistogram为按format格式化后的日期
+     *
+     * @return key
+     */
+    public String getKeyAsString() {
+        return bucket.getKeyAsString();
+    }
+
+    /**
+     * 桶内文档数
+     *
+     * @return 文档数
+     */
+    public long getDocCount() {
+        return bucket.getDocCount();
+    }
+
+    /**
+     * 子聚合
+     *
+     * @return 子聚合
+     */
+    public EsAggregations<T> getAggregations() {
+        if (Objects.isNull(subAggregations)) {
+            subAggregations = new EsAggregations<>(bucket.getAggregations(), hitParser);
+        }
+        return subAggregations;
+    }
+
+    /**
+     * 子聚合中单值指标聚合的值
+     *
+     * @param name 子聚合返回名称
+     * @return 值
+     */
+    public double getValue(String name) {
+        return getAggregations().getValue(name);
+    }
+
+    /**
+     * 子聚合中单值指标聚合的值转为long
+     *
+     * @param name 子聚合返回名称
+     * @return 值
+     */
+    public long getLongValue(String name) {
+        return getAggregations().getLongValue(name);
+    }
+
+    /**
+     * 子聚合中stats聚合的结果
+     *
+     * @param name 子聚合返回名称
+     * @return 统计结果
+     */
+    public EsStats getStats(String name) {
+        return getAggregations().getStats(name);
+    }
+
+    /**
+     * 子聚合中桶聚合的桶列表
+     *
+     * @param name 子聚合返回名称
+     * @return 桶列表
+     */
+    public List<EsBucket<T>> getBuckets(String name) {
+        return getAggregations().getBuckets(name);
+    }
+
+    /**
+     * 子聚合中topHits聚合命中的文档
+     *
+     * @param name 子聚合返回名称
+     * @return 实体列表
+     */
+    public List<T> getTopHits(String name) {
+        return getAggregations().getTopHits(name);
+    }
+
+    @Override
+    public String toString() {
+        return "EsBucket{" +
+                "key=" + getKeyAsString() +
+                ", docCount=" + getDocCount() +
+                '}';
+    }
+}
@@ -0,0 +1,166 @@
+package com.xwl.esplus.core.aggregation;
+
+import com.xwl.esplus.core.enums.EsRequestTypeEnum;
+import com.xwl.esplus.core.http.EsRequestTypeContextHolder;
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * 基于composite聚合的惰性桶迭代器：按after_key逐页获取桶，消费当前页的同时异步预取下一页，
+ * 客户端与es两侧同时只保留一到两页桶，适用于高基数字段的全量分组
+ * <p>
+ * 非线程安全
+ *
+ * @param <T> 实体类型
+ * @author xwl
+ * @since 2026/10/18 23:40
+ */
+public class EsCompositeIterator<T> implements Iterator<EsBucket<T>> {
+    private final RestHighLevelClient restHighLevelClient;
+
+    /**
+     * 搜索请求，其中包含compositeBuilder
+     */
+    private final SearchRequest searchRequest;
+
+    /**
+     * composite聚合，每页请求前设置after_key
+     */
+    private final CompositeAggregationBuilder compositeBuilder;
+
+    /**
+     * 搜索命中 -> 实体，用于子聚合中的topHits
+     */
+    private final Function<SearchHit, T> hitParser;
+
+    /**
+     * 当前页
+     */
+    private List<? extends CompositeAggregation.Bucket> current = Collections.emptyList();
+
+    /**
+     * 当前页的读取位置
+     */
+    private int index;
+
+    /**
+     * 预取中的下一页
+     */
+    private CompletableFuture<SearchResponse> prefetch;
+
+    /**
+     * 已获取的页数
+     */
+    private int pageCount;
+
+    public EsCompositeIterator(RestHighLevelClient restHighLevelClient, SearchRequest searchRequest,
+                               CompositeAggregationBuilder compositeBuilder, Function<SearchHit, T> hitParser) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.searchRequest = searchRequest;
+        this.compositeBuilder = compositeBuilder;
+        this.hitParser = hitParser;
+        SearchResponse response;
+        try {
+            response = restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("composite aggregation exception", e);
+        }
+        accept(response);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= current.size()) {
+            if (prefetch == null) {
+                return false;
+            }
+            SearchResponse response;
+            try {
+                response = prefetch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw ExceptionUtils.epe("composite aggregation interrupted", e);
+            } catch (ExecutionException e) {
+                throw ExceptionUtils.epe("composite aggregation exception", e.getCause());
+            } finally {
+                prefetch = null;
+            }
+            accept(response);
+        }
+        return true;
+    }
+
+    @Override
+    public EsBucket<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return new EsBucket<>(current.get(index++), hitParser);
+    }
+
+    /**
+     * 已获取的页数
+     *
+     * @return 页数
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * 处理一页桶，未到最后一页时预取下一页
+     *
+     * @param response 搜索响应
+     */
+    private void accept(SearchResponse response) {
+        pageCount++;
+        Aggregations aggregations = response.getAggregations();
+        CompositeAggregation composite = Objects.isNull(aggregations) ? null : aggregations.get(compositeBuilder.getName());
+        if (Objects.isNull(composite)) {
+            current = Collections.emptyList();
+            index = 0;
+            return;
+        }
+        current = composite.getBuckets();
+        index = 0;
+        Map<String, Object> afterKey = composite.afterKey();
+        if (Objects.isNull(afterKey) || current.size() < compositeBuilder.size()) {
+            // 最后一页
+            return;
+        }
+        prefetch(afterKey);
+    }
+
+    /**
+     * 异步预取after_key之后的一页
+     *
+     * @param afterKey 当前页最后一个桶的key
+     */
+    private void prefetch(Map<String, Object> afterKey) {
+        compositeBuilder.aggregateAfter(afterKey);
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        // 预取可能发生在mapper方法返回之后，需重新标记为读请求
+        EsRequestTypeContextHolder.wrap(EsRequestTypeEnum.READ, () -> restHighLevelClient.searchAsync(searchRequest,
+                RequestOptions.DEFAULT, ActionListener.wrap(future::complete, future::completeExceptionally))).run();
+        prefetch = future;
+    }
+}
@@ -0,0 +1,60 @@
+package com.xwl.esplus.core.aggregation;
+
+import org.elasticsearch.search.aggregations.metrics.Stats;
+
+/**
+ * stats聚合结果，没有文档参与统计时count为0，avg为NaN，min、max为正负无穷，sum为0
+ *
+ * @author xwl
+ * @since 2026/10/18 23:10
+ */
+public class EsStats {
+    private final long count;
+
+    private final double min;
+
+    private final double max;
+
+    private final double avg;
+
+    private final double sum;
+
+    EsStats(Stats stats) {
+        this.count = stats.getCount();
+        this.min = stats.getMin();
+        this.max = stats.getMax();
+        this.avg = stats.getAvg();
+        this.sum = stats.getSum();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAvg() {
+        return avg;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "EsStats{" +
+                "count=" + count +
+                ", min=" + min +
+                ", max=" + max +
+                ", avg=" + avg +
+                ", sum=" + sum +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.xwl.esplus.core.annotation;
 
+import com.xwl.esplus.core.enums.EsPartitionEnum;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -27,4 +29,46 @@ public @interface EsDocument {
      * @return 默认为true
      */
     boolean keepGlobalIndexPrefix() default true;
+
+    /**
+     * 是否开启近端缓存，缓存getById、listByIds查询到的文档，写操作完成后自动失效
+     *
+     * @return 默认为false，全局配置开启时所有实体均开启
+     */
+    boolean nearCache() default false;
+
+    /**
+     * 近端缓存最大文档数
+     *
+     * @return 默认为-1，使用全局配置
+     */
+    int nearCacheMaxSize() default -1;
+
+    /**
+     * 近端缓存文档存活时间（单位：s）
+     *
+     * @return 默认为-1，使用全局配置
+     */
+    long nearCacheTtlSeconds() default -1;
+
+    /**
+     * 按时间分区策略，开启后文档写入“索引名-分区后缀”的分区索引，查询时根据分区字段上的条件裁剪分区
+     *
+     * @return 默认为NONE，不分区
+     */
+    EsPartitionEnum partition() default EsPartitionEnum.NONE;
+
+    /**
+     * 分区字段（实体字段名），支持LocalDate、LocalDateTime、Date、毫秒时间戳及yyyy-MM-dd开头的字符串等类型
+     *
+     * @return 默认为空，开启分区时必须指定
+     */
+    String partitionField() default "";
+
+    /**
+     * Date、Instant、时间戳等转为分区日期时使用的时区，如：Asia/Shanghai
+     *
+     * @return 默认为空，使用系统时区
+     */
+    String partitionTimeZone() default "";
 }
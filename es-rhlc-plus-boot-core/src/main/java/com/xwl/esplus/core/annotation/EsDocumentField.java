@@ -58,4 +58,14 @@ public @interface EsDocumentField {
      * @return 默认策略
      */
     EsFieldStrategyEnum strategy() default EsFieldStrategyEnum.DEFAULT;
+
+    /**
+     * 是否启用n-gram模糊查询，默认false
+     * 启用后createIndex会为该字段添加n-gram（ngram）、edge-n-gram（prefix）及反转的edge-n-gram（suffix）子字段和对应的分词器，
+     * 索引mapping中存在子字段时，like、likeLeft、likeRight会改写为对子字段的match_phrase、term查询，避免前导通配符扫描词典；
+     * 适用于keyword字段，已有索引需要重建索引后生效
+     *
+     * @return 是否启用n-gram模糊查询
+     */
+    boolean ngram() default false;
 }
@@ -18,4 +18,11 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Target({TYPE, METHOD, FIELD, PARAMETER})
 public @interface EsMapper {
     // Interface Mapper
+
+    /**
+     * 是否开启请求合并：相同的search、count、getById请求同时进行时只发送一次到es
+     *
+     * @return 默认为false，全局配置开启时所有mapper均开启
+     */
+    boolean singleFlight() default false;
 }
@@ -0,0 +1,19 @@
+package com.xwl.esplus.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 文档路由字段注解，字段值作为写入、删除及按id查询的routing，查询条件中该字段的eq、in自动作为查询的routing
+ * <p>
+ * 同一实体只能有一个路由字段，路由字段的值写入后不应修改
+ *
+ * @author xwl
+ * @since 2026/10/18 23:12
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface EsRouting {
+}
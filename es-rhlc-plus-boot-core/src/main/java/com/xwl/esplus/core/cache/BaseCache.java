@@ -1,5 +1,6 @@
 package com.xwl.esplus.core.cache;
 
+import com.xwl.esplus.core.annotation.EsMapper;
 import com.xwl.esplus.core.constant.EsConstants;
 import com.xwl.esplus.core.mapper.EsBaseMapperImpl;
 import com.xwl.esplus.core.toolkit.ExceptionUtils;
@@ -10,6 +11,7 @@ import org.elasticsearch.client.RestHighLevelClient;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -47,6 +49,9 @@ public class BaseCache {
         // 获取接口泛型的实际类型
         Class<?> entityClass = GenericTypeUtils.getInterfaceGeneric(mapperInterface, 0);
         esBaseMapper.setEntityClass(entityClass);
+        // 初始化请求合并
+        EsMapper esMapper = mapperInterface.getAnnotation(EsMapper.class);
+        esBaseMapper.setSingleFlight(EsSingleFlight.create(mapperInterface, Objects.nonNull(esMapper) && esMapper.singleFlight()));
         //esBaseMapper.setGlobalConfig(GlobalConfigCache.getGlobalConfig());
         ES_BASE_MAPPER_INSTANCE.put(mapperInterface, esBaseMapper);
 
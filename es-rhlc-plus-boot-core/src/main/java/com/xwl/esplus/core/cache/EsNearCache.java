@@ -0,0 +1,273 @@
+package com.xwl.esplus.core.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文档近端缓存，缓存getById、listByIds查询到的文档原始json，按实体类区分
+ * <p>
+ * 缓存key由客户端标识和文档id组成，动态数据源切换客户端后不会读到其它集群的文档
+ * <p>
+ * 容量超过上限时淘汰最久未访问的文档，超过存活时间的文档在下次访问时失效；
+ * 所有写操作完成后按id失效，并递增版本号，使写操作前发起、写操作后才返回的读取结果不会回填缓存
+ *
+ * @author xwl
+ * @since 2026/10/18 16:40
+ */
+public class EsNearCache {
+    /**
+     * 实体类 -> 近端缓存
+     */
+    private static final Map<Class<?>, EsNearCache> CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * 最大缓存文档数
+     */
+    private final int maxSize;
+
+    /**
+     * 文档存活时间（单位：ms）
+     */
+    private final long ttlMillis;
+
+    /**
+     * 缓存key -> 缓存项，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * 版本号，每次失效时递增
+     */
+    private long generation;
+
+    /**
+     * 命中次数
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * 未命中次数
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 因容量上限被淘汰的文档数
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * 因超过存活时间失效的文档数
+     */
+    private final AtomicLong expirationCount = new AtomicLong();
+
+    /**
+     * 因写操作失效的次数
+     */
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private EsNearCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > EsNearCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 创建并注册指定实体类的近端缓存
+     *
+     * @param entityClass es索引对应的实体类
+     * @param maxSize     最大缓存文档数
+     * @param ttlSeconds  文档存活时间（单位：s）
+     * @return 近端缓存
+     */
+    public static EsNearCache create(Class<?> entityClass, int maxSize, long ttlSeconds) {
+        EsNearCache nearCache = new EsNearCache(maxSize, ttlSeconds * 1000L);
+        CACHES.put(entityClass, nearCache);
+        return nearCache;
+    }
+
+    /**
+     * 获取指定实体类的近端缓存
+     *
+     * @param entityClass es索引对应的实体类
+     * @return 近端缓存，未开启时返回null
+     */
+    public static EsNearCache get(Class<?> entityClass) {
+        return CACHES.get(entityClass);
+    }
+
+    /**
+     * 获取所有实体类的近端缓存
+     *
+     * @return 实体类 -> 近端缓存
+     */
+    public static Map<Class<?>, EsNearCache> getAll() {
+        return Collections.unmodifiableMap(CACHES);
+    }
+
+    /**
+     * 获取当前版本号，读取es前调用，回填缓存时传入
+     *
+     * @return 版本号
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * 获取缓存的文档
+     *
+     * @param key 缓存key（客户端标识:文档id）
+     * @return 文档原始json，未命中或已过期时返回null
+     */
+    public synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.expireAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            expirationCount.incrementAndGet();
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.source;
+    }
+
+    /**
+     * 回填缓存，读取期间发生过失效时忽略
+     *
+     * @param key        缓存key（客户端标识:文档id）
+     * @param source     文档原始json
+     * @param generation 读取es前获取的版本号
+     */
+    public synchronized void put(String key, String source, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        entries.put(key, new Entry(source, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 按key失效
+     *
+     * @param keys 缓存key（客户端标识:文档id）
+     */
+    public synchronized void invalidate(Collection<String> keys) {
+        generation++;
+        invalidationCount.incrementAndGet();
+        keys.forEach(entries::remove);
+    }
+
+    /**
+     * 失效全部文档
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidationCount.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * 当前缓存文档数（包含已过期但尚未访问的文档）
+     *
+     * @return 文档数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 重置统计指标
+     */
+    public void resetMetrics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+        expirationCount.set(0);
+        invalidationCount.set(0);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * 命中率，无数据时返回0
+     *
+     * @return 命中率
+     */
+    public double getHitRatio() {
+        long hit = hitCount.get();
+        long total = hit + missCount.get();
+        return total == 0 ? 0D : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "EsNearCache{" +
+                "maxSize=" + maxSize +
+                ", ttlMillis=" + ttlMillis +
+                ", size=" + size() +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", expirationCount=" + expirationCount +
+                ", invalidationCount=" + invalidationCount +
+                '}';
+    }
+
+    /**
+     * 缓存项
+     */
+    private static class Entry {
+        private final String source;
+
+        private final long expireAt;
+
+        Entry(String source, long expireAt) {
+            this.source = source;
+            this.expireAt = expireAt;
+        }
+    }
+}
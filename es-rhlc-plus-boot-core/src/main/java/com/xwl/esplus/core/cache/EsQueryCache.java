@@ -0,0 +1,362 @@
+package com.xwl.esplus.core.cache;
+
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询结果缓存，key为客户端、索引名称、查询类型及查询DSL的哈希，所有实体共用，容量按估算的字节数限制
+ * <p>
+ * 索引发生写操作后失效该索引的全部缓存，并递增该索引的版本号，使写操作前发起、写操作后才返回的查询结果不会回填缓存；
+ * 写操作尚未refresh时，可指定一段时间内不回填该索引的缓存，避免缓存写入前的查询结果；
+ * 缓存的是es响应，每次命中都重新解析为新的实体，调用方之间不共享实体对象
+ *
+ * @author xwl
+ * @since 2026/10/18 17:20
+ */
+public class EsQueryCache {
+    /**
+     * 单个缓存项的固定开销估算（单位：byte）
+     */
+    private static final long ENTRY_WEIGHT = 1024L;
+
+    /**
+     * 单条搜索命中除_source外的开销估算（单位：byte）
+     */
+    private static final long HIT_WEIGHT = 256L;
+
+    /**
+     * 单个聚合的开销估算（单位：byte）
+     */
+    private static final long AGGREGATION_WEIGHT = 4096L;
+
+    private static volatile EsQueryCache instance;
+
+    /**
+     * 最大缓存字节数（估算值）
+     */
+    private final long maxBytes;
+
+    /**
+     * 缓存key -> 缓存项，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+
+    /**
+     * 索引名称 -> 版本号，每次失效时递增
+     */
+    private final Map<String, Long> generations = new HashMap<>();
+
+    /**
+     * 索引名称 -> 不回填缓存的截止时间（单位：ms）
+     */
+    private final Map<String, Long> quietUntil = new HashMap<>();
+
+    /**
+     * 当前缓存字节数（估算值）
+     */
+    private long weightedSize;
+
+    /**
+     * 命中次数
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * 未命中次数
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 因容量上限被淘汰的缓存项数
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * 因超过存活时间失效的缓存项数
+     */
+    private final AtomicLong expirationCount = new AtomicLong();
+
+    /**
+     * 因写操作失效的次数
+     */
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private EsQueryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取查询结果缓存，首次获取时按全局配置创建
+     *
+     * @return 查询结果缓存
+     */
+    public static EsQueryCache getInstance() {
+        if (instance == null) {
+            synchronized (EsQueryCache.class) {
+                if (instance == null) {
+                    instance = new EsQueryCache(GlobalConfigCache.getGlobalConfig().getDocumentConfig().getQueryCacheMaxBytes());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 构建缓存key，同时用于请求合并
+     *
+     * @param client    客户端标识
+     * @param indexName 索引名称
+     * @param type      请求类型
+     * @param dsl       查询DSL
+     * @return 缓存key
+     */
+    public static String buildKey(String client, String indexName, String type, String dsl) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(dsl.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(client.length() + indexName.length() + type.length() + 67);
+            key.append(client).append('|').append(indexName).append('|').append(type).append('|');
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw ExceptionUtils.epe("build query cache key exception", e);
+        }
+    }
+
+    /**
+     * 估算搜索响应占用的字节数
+     *
+     * @param response 搜索响应
+     * @return 字节数（估算值）
+     */
+    public static long estimateWeight(SearchResponse response) {
+        long weight = ENTRY_WEIGHT;
+        for (SearchHit hit : response.getHits().getHits()) {
+            weight += HIT_WEIGHT;
+            if (hit.getSourceRef() != null) {
+                weight += hit.getSourceRef().length();
+            }
+        }
+        if (response.getAggregations() != null) {
+            weight += AGGREGATION_WEIGHT * response.getAggregations().asList().size();
+        }
+        return weight;
+    }
+
+    /**
+     * 估算count结果占用的字节数
+     *
+     * @return 字节数（估算值）
+     */
+    public static long estimateCountWeight() {
+        return ENTRY_WEIGHT;
+    }
+
+    /**
+     * 获取索引当前版本号，请求es前调用，回填缓存时传入
+     *
+     * @param indexName 索引名称
+     * @return 版本号
+     */
+    public synchronized long generation(String indexName) {
+        return generations.getOrDefault(indexName, 0L);
+    }
+
+    /**
+     * 获取缓存的查询结果
+     *
+     * @param key 缓存key
+     * @return 查询结果，未命中或已过期时返回null
+     */
+    public synchronized Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.expireAt <= System.currentTimeMillis()) {
+            remove(key);
+            expirationCount.incrementAndGet();
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * 回填缓存，请求期间索引发生过写操作、写操作尚未refresh或单个结果超过容量上限时忽略
+     *
+     * @param indexName  索引名称
+     * @param key        缓存key
+     * @param value      查询结果
+     * @param weight     查询结果占用的字节数（估算值）
+     * @param ttlMillis  存活时间（单位：ms）
+     * @param generation 请求es前获取的版本号
+     */
+    public synchronized void put(String indexName, String key, Object value, long weight, long ttlMillis, long generation) {
+        if (generation != generation(indexName) || weight > maxBytes || ttlMillis <= 0
+                || quietUntil.getOrDefault(indexName, 0L) > System.currentTimeMillis()) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry(indexName, value, weight, System.currentTimeMillis() + ttlMillis));
+        weightedSize += weight;
+        // 淘汰最久未访问的缓存项
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (weightedSize > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            weightedSize -= eldest.weight;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 失效指定索引的全部缓存
+     *
+     * @param indexName 索引名称
+     */
+    public synchronized void invalidate(String indexName) {
+        invalidate(indexName, 0L);
+    }
+
+    /**
+     * 失效指定索引的全部缓存，并在指定时长内不回填该索引的缓存
+     *
+     * @param indexName   索引名称
+     * @param quietMillis 不回填缓存的时长（单位：ms），写操作在下次refresh后才可见时传入refresh间隔
+     */
+    public synchronized void invalidate(String indexName, long quietMillis) {
+        if (quietMillis > 0) {
+            quietUntil.merge(indexName, System.currentTimeMillis() + quietMillis, Math::max);
+        }
+        generations.merge(indexName, 1L, Long::sum);
+        invalidationCount.incrementAndGet();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.indexName.equals(indexName)) {
+                iterator.remove();
+                weightedSize -= entry.weight;
+            }
+        }
+    }
+
+    /**
+     * 当前缓存项数（包含已过期但尚未访问的缓存项）
+     *
+     * @return 缓存项数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当前缓存字节数（估算值）
+     *
+     * @return 字节数
+     */
+    public synchronized long getWeightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * 重置统计指标
+     */
+    public void resetMetrics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+        expirationCount.set(0);
+        invalidationCount.set(0);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * 命中率，无数据时返回0
+     *
+     * @return 命中率
+     */
+    public double getHitRatio() {
+        long hit = hitCount.get();
+        long total = hit + missCount.get();
+        return total == 0 ? 0D : (double) hit / total;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weightedSize -= entry.weight;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EsQueryCache{" +
+                "maxBytes=" + maxBytes +
+                ", size=" + size() +
+                ", weightedSize=" + getWeightedSize() +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", expirationCount=" + expirationCount +
+                ", invalidationCount=" + invalidationCount +
+                '}';
+    }
+
+    /**
+     * 缓存项
+     */
+    private static class Entry {
+        private final String indexName;
+
+        private final Object value;
+
+        private final long weight;
+
+        private final long expireAt;
+
+        Entry(String indexName, Object value, long weight, long expireAt) {
+            this.indexName = indexName;
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+    }
+}
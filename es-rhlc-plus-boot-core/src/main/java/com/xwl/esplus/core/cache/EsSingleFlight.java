@@ -0,0 +1,182 @@
+package com.xwl.esplus.core.cache;
+
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求合并（single-flight），按mapper区分：相同的请求同时进行时只有一个请求发送到es，其余请求等待并共享其响应
+ * <p>
+ * 共享的是es响应，调用方各自解析为新的实体，不共享实体对象
+ *
+ * @author xwl
+ * @since 2026/10/18 17:55
+ */
+public class EsSingleFlight {
+    /**
+     * mapper接口 -> 请求合并
+     */
+    private static final Map<Class<?>, EsSingleFlight> SINGLE_FLIGHTS = new ConcurrentHashMap<>();
+
+    /**
+     * 是否为该mapper开启（全局配置开启时所有mapper均开启）
+     */
+    private final boolean enabled;
+
+    /**
+     * 请求key -> 进行中的请求
+     */
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 实际发送到es的请求数
+     */
+    private final AtomicLong executedCount = new AtomicLong();
+
+    /**
+     * 被合并（共享其它请求响应）的请求数
+     */
+    private final AtomicLong collapsedCount = new AtomicLong();
+
+    private EsSingleFlight(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 创建并注册指定mapper的请求合并
+     *
+     * @param mapperInterface mapper接口
+     * @param enabled         是否为该mapper开启
+     * @return 请求合并
+     */
+    public static EsSingleFlight create(Class<?> mapperInterface, boolean enabled) {
+        EsSingleFlight singleFlight = new EsSingleFlight(enabled);
+        SINGLE_FLIGHTS.put(mapperInterface, singleFlight);
+        return singleFlight;
+    }
+
+    /**
+     * 获取指定mapper的请求合并
+     *
+     * @param mapperInterface mapper接口
+     * @return 请求合并
+     */
+    public static EsSingleFlight get(Class<?> mapperInterface) {
+        return SINGLE_FLIGHTS.get(mapperInterface);
+    }
+
+    /**
+     * 获取所有mapper的请求合并
+     *
+     * @return mapper接口 -> 请求合并
+     */
+    public static Map<Class<?>, EsSingleFlight> getAll() {
+        return Collections.unmodifiableMap(SINGLE_FLIGHTS);
+    }
+
+    /**
+     * 执行请求，已有相同请求进行中时等待并共享其响应
+     *
+     * @param key  请求key，包含客户端、索引及请求内容
+     * @param call 请求
+     * @param <R>  响应类型
+     * @return 响应
+     * @throws IOException 请求异常
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R execute(String key, Call<R> call) throws IOException {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            collapsedCount.incrementAndGet();
+            try {
+                return (R) existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw ExceptionUtils.epe("single flight interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw ExceptionUtils.epe("single flight exception", cause);
+            }
+        }
+        executedCount.incrementAndGet();
+        try {
+            R result = call.call();
+            // 先移除再完成，之后到达的相同请求重新发送到es
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 当前进行中的请求数
+     *
+     * @return 请求数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public long getCollapsedCount() {
+        return collapsedCount.get();
+    }
+
+    /**
+     * 重置统计指标
+     */
+    public void resetMetrics() {
+        executedCount.set(0);
+        collapsedCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "EsSingleFlight{" +
+                "enabled=" + enabled +
+                ", inFlightCount=" + getInFlightCount() +
+                ", executedCount=" + executedCount +
+                ", collapsedCount=" + collapsedCount +
+                '}';
+    }
+
+    /**
+     * 可抛出IOException的请求
+     *
+     * @param <R> 响应类型
+     */
+    @FunctionalInterface
+    public interface Call<R> {
+        /**
+         * 执行请求
+         *
+         * @return 响应
+         * @throws IOException 请求异常
+         */
+        R call() throws IOException;
+    }
+}
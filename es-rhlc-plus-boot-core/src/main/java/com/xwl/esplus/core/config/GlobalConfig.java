@@ -1,6 +1,7 @@
 package com.xwl.esplus.core.config;
 
 import com.xwl.esplus.core.constant.EsGlobalConstants;
+import com.xwl.esplus.core.enums.EsCountModeEnum;
 import com.xwl.esplus.core.enums.EsFieldStrategyEnum;
 import com.xwl.esplus.core.enums.EsKeyTypeEnum;
 import com.xwl.esplus.core.enums.EsRefreshPolicy;
@@ -50,6 +51,78 @@ public class GlobalConfig {
          * enableTrackTotalHits default true,是否开启查询全部数据 默认开启
          */
         private boolean enableTrackTotalHits = true;
+        /**
+         * 分页查询时精确统计总数的上限，默认0精确统计；大于0时总数超过上限只返回"至少N条"，避免大结果集统计总数的开销
+         */
+        private int pageTrackTotalHitsUpTo = 0;
+        /**
+         * listMaps、pageMaps返回的map是否保留es字段名，默认false转换为实体字段名
+         */
+        private boolean mapsKeepColumnName = false;
+        /**
+         * 是否为所有实体开启近端缓存，默认false，可通过@EsDocument(nearCache = true)为单个实体开启
+         */
+        private boolean enableNearCache = false;
+        /**
+         * 近端缓存最大文档数，默认1000
+         */
+        private int nearCacheMaxSize = 1000;
+        /**
+         * 近端缓存文档存活时间（单位：s），默认60
+         */
+        private long nearCacheTtlSeconds = 60;
+        /**
+         * 是否开启查询结果缓存，默认false，可通过wrapper的queryCache(true)为单次查询开启
+         */
+        private boolean enableQueryCache = false;
+        /**
+         * 查询结果缓存最大字节数（估算值），默认64MB
+         */
+        private long queryCacheMaxBytes = 64 * 1024 * 1024L;
+        /**
+         * 查询结果缓存存活时间（单位：s），默认60，可通过wrapper的queryCacheTtl设置单次查询的存活时间
+         */
+        private long queryCacheTtlSeconds = 60;
+        /**
+         * 刷新策略为NONE时，写操作后该索引不缓存查询结果的时长（单位：ms），应不小于索引的refresh_interval，默认1000
+         */
+        private long queryCacheWriteQuietMillis = 1000;
+        /**
+         * 是否为所有mapper开启请求合并，默认false，可通过@EsMapper(singleFlight = true)为单个mapper开启
+         */
+        private boolean enableSingleFlight = false;
+        /**
+         * 是否开启getById批量加载：时间窗口内各线程的getById合并为一次_mget，默认false
+         */
+        private boolean enableGetByIdBatching = false;
+        /**
+         * getById批量加载的收集窗口（单位：ms），默认2
+         */
+        private long getByIdBatchWindowMillis = 2;
+        /**
+         * getById批量加载的批次上限，达到上限时立即发送，默认100
+         */
+        private int getByIdBatchMaxSize = 100;
+        /**
+         * count统计方式，默认EXACT精确统计
+         */
+        private EsCountModeEnum countMode = EsCountModeEnum.EXACT;
+        /**
+         * 无查询条件的count结果（_cat/count）缓存时间（单位：ms），默认5000
+         */
+        private long countCacheTtlMillis = 5000;
+        /**
+         * 近似count的统计上限，默认10000
+         */
+        private int countTrackTotalHitsUpTo = 10000;
+        /**
+         * 只有聚合的查询（search/aggregate未指定size、from、查询字段、高亮及排序）是否自动设置size=0并使用分片请求缓存，默认true
+         */
+        private boolean enableAggregationOnlyOptimization = true;
+        /**
+         * 是否启用查询优化器（展开嵌套bool、不算分时must转filter、合并同字段term及范围），默认false
+         */
+        private boolean enableQueryOptimizer = false;
         /**
          * must convert to filter must by default, must 条件转filter 默认不转换
          */
@@ -58,6 +131,14 @@ public class GlobalConfig {
          * data refresh policy 数据刷新策略,默认为NONE
          */
         private EsRefreshPolicy refreshPolicy = EsRefreshPolicy.NONE;
+        /**
+         * 刷新策略为IMMEDIATE时是否合并刷新：写请求不刷新，每个索引每个间隔内最多refresh一次，写操作在覆盖它的refresh完成后返回，默认false
+         */
+        private boolean enableRefreshCoalescing = false;
+        /**
+         * 合并刷新的间隔（单位：ms），默认200
+         */
+        private long refreshCoalescingIntervalMillis = 200;
 
         public DocumentConfig() {
         }
@@ -115,6 +196,150 @@ public class GlobalConfig {
             this.enableTrackTotalHits = enableTrackTotalHits;
         }
 
+        public int getPageTrackTotalHitsUpTo() {
+            return pageTrackTotalHitsUpTo;
+        }
+
+        public void setPageTrackTotalHitsUpTo(int pageTrackTotalHitsUpTo) {
+            this.pageTrackTotalHitsUpTo = pageTrackTotalHitsUpTo;
+        }
+
+        public boolean isMapsKeepColumnName() {
+            return mapsKeepColumnName;
+        }
+
+        public void setMapsKeepColumnName(boolean mapsKeepColumnName) {
+            this.mapsKeepColumnName = mapsKeepColumnName;
+        }
+
+        public boolean isEnableNearCache() {
+            return enableNearCache;
+        }
+
+        public void setEnableNearCache(boolean enableNearCache) {
+            this.enableNearCache = enableNearCache;
+        }
+
+        public int getNearCacheMaxSize() {
+            return nearCacheMaxSize;
+        }
+
+        public void setNearCacheMaxSize(int nearCacheMaxSize) {
+            this.nearCacheMaxSize = nearCacheMaxSize;
+        }
+
+        public long getNearCacheTtlSeconds() {
+            return nearCacheTtlSeconds;
+        }
+
+        public void setNearCacheTtlSeconds(long nearCacheTtlSeconds) {
+            this.nearCacheTtlSeconds = nearCacheTtlSeconds;
+        }
+
+        public boolean isEnableQueryCache() {
+            return enableQueryCache;
+        }
+
+        public void setEnableQueryCache(boolean enableQueryCache) {
+            this.enableQueryCache = enableQueryCache;
+        }
+
+        public long getQueryCacheMaxBytes() {
+            return queryCacheMaxBytes;
+        }
+
+        public void setQueryCacheMaxBytes(long queryCacheMaxBytes) {
+            this.queryCacheMaxBytes = queryCacheMaxBytes;
+        }
+
+        public long getQueryCacheTtlSeconds() {
+            return queryCacheTtlSeconds;
+        }
+
+        public void setQueryCacheTtlSeconds(long queryCacheTtlSeconds) {
+            this.queryCacheTtlSeconds = queryCacheTtlSeconds;
+        }
+
+        public long getQueryCacheWriteQuietMillis() {
+            return queryCacheWriteQuietMillis;
+        }
+
+        public void setQueryCacheWriteQuietMillis(long queryCacheWriteQuietMillis) {
+            this.queryCacheWriteQuietMillis = queryCacheWriteQuietMillis;
+        }
+
+        public boolean isEnableSingleFlight() {
+            return enableSingleFlight;
+        }
+
+        public void setEnableSingleFlight(boolean enableSingleFlight) {
+            this.enableSingleFlight = enableSingleFlight;
+        }
+
+        public boolean isEnableGetByIdBatching() {
+            return enableGetByIdBatching;
+        }
+
+        public void setEnableGetByIdBatching(boolean enableGetByIdBatching) {
+            this.enableGetByIdBatching = enableGetByIdBatching;
+        }
+
+        public long getGetByIdBatchWindowMillis() {
+            return getByIdBatchWindowMillis;
+        }
+
+        public void setGetByIdBatchWindowMillis(long getByIdBatchWindowMillis) {
+            this.getByIdBatchWindowMillis = getByIdBatchWindowMillis;
+        }
+
+        public int getGetByIdBatchMaxSize() {
+            return getByIdBatchMaxSize;
+        }
+
+        public void setGetByIdBatchMaxSize(int getByIdBatchMaxSize) {
+            this.getByIdBatchMaxSize = getByIdBatchMaxSize;
+        }
+
+        public EsCountModeEnum getCountMode() {
+            return countMode;
+        }
+
+        public void setCountMode(EsCountModeEnum countMode) {
+            this.countMode = countMode;
+        }
+
+        public long getCountCacheTtlMillis() {
+            return countCacheTtlMillis;
+        }
+
+        public void setCountCacheTtlMillis(long countCacheTtlMillis) {
+            this.countCacheTtlMillis = countCacheTtlMillis;
+        }
+
+        public int getCountTrackTotalHitsUpTo() {
+            return countTrackTotalHitsUpTo;
+        }
+
+        public void setCountTrackTotalHitsUpTo(int countTrackTotalHitsUpTo) {
+            this.countTrackTotalHitsUpTo = countTrackTotalHitsUpTo;
+        }
+
+        public boolean isEnableAggregationOnlyOptimization() {
+            return enableAggregationOnlyOptimization;
+        }
+
+        public void setEnableAggregationOnlyOptimization(boolean enableAggregationOnlyOptimization) {
+            this.enableAggregationOnlyOptimization = enableAggregationOnlyOptimization;
+        }
+
+        public boolean isEnableQueryOptimizer() {
+            return enableQueryOptimizer;
+        }
+
+        public void setEnableQueryOptimizer(boolean enableQueryOptimizer) {
+            this.enableQueryOptimizer = enableQueryOptimizer;
+        }
+
         public boolean isEnableMust2Filter() {
             return enableMust2Filter;
         }
@@ -130,6 +355,22 @@ public class GlobalConfig {
         public void setRefreshPolicy(EsRefreshPolicy refreshPolicy) {
             this.refreshPolicy = refreshPolicy;
         }
+
+        public boolean isEnableRefreshCoalescing() {
+            return enableRefreshCoalescing;
+        }
+
+        public void setEnableRefreshCoalescing(boolean enableRefreshCoalescing) {
+            this.enableRefreshCoalescing = enableRefreshCoalescing;
+        }
+
+        public long getRefreshCoalescingIntervalMillis() {
+            return refreshCoalescingIntervalMillis;
+        }
+
+        public void setRefreshCoalescingIntervalMillis(long refreshCoalescingIntervalMillis) {
+            this.refreshCoalescingIntervalMillis = refreshCoalescingIntervalMillis;
+        }
     }
 
     public GlobalConfig() {
@@ -15,6 +15,10 @@ public class EsConstants {
      * 数字1
      */
     public static final Integer ONE = 1;
+    /**
+     * 数字2
+     */
+    public static final Integer TWO = 2;
     /**
      * 数字10
      */
@@ -35,6 +39,46 @@ public class EsConstants {
      * 默认的每页显示条目数
      */
     public static final Integer PAGE_SIZE = 10;
+    /**
+     * _mget每批id数量
+     */
+    public static final Integer MGET_BATCH_SIZE = 1000;
+    /**
+     * 默认的scroll每批条数
+     */
+    public static final Integer SCROLL_SIZE = 1000;
+    /**
+     * 默认的scroll上下文保持时间
+     */
+    public static final String SCROLL_KEEP_ALIVE = "1m";
+    /**
+     * 按索引顺序排序，scroll遍历时效率最高
+     */
+    public static final String DOC_SORT = "_doc";
+    /**
+     * composite聚合名称
+     */
+    public static final String COMPOSITE_NAME = "composite";
+    /**
+     * composite聚合默认每页桶数
+     */
+    public static final Integer COMPOSITE_SIZE = 1000;
+    /**
+     * 请求类型：search，用于构建查询结果缓存及请求合并的key
+     */
+    public static final String REQUEST_SEARCH = "search";
+    /**
+     * 请求类型：count
+     */
+    public static final String REQUEST_COUNT = "count";
+    /**
+     * 请求类型：get
+     */
+    public static final String REQUEST_GET = "get";
+    /**
+     * 请求类型：_cat/count
+     */
+    public static final String REQUEST_CAT_COUNT = "cat_count";
     /**
      * 默认字段boost权重
      */
@@ -83,6 +127,10 @@ public class EsConstants {
      * 自定义分词器
      */
     public static final String ANALYSIS = "index.analysis";
+    /**
+     * 索引mapping
+     */
+    public static final String MAPPINGS = "mappings";
     /**
      * 索引特性/对象
      */
@@ -120,10 +168,62 @@ public class EsConstants {
      * 搜索时的查询分词器
      */
     public static final String SEARCH_ANALYZER = "search_analyzer";
+    /**
+     * 路由元数据字段
+     */
+    public static final String ROUTING = "_routing";
+    /**
+     * 是否必须
+     */
+    public static final String REQUIRED = "required";
     /**
      * 通配符
      */
     public static final String WILDCARD_SIGN = "*";
+    /**
+     * 单字符通配符
+     */
+    public static final String WILDCARD_SINGLE_SIGN = "?";
+    /**
+     * n-gram子字段名称，用于like（包含）
+     */
+    public static final String NGRAM_SUB_FIELD = "ngram";
+    /**
+     * edge-n-gram子字段名称，用于likeRight（前缀）
+     */
+    public static final String PREFIX_SUB_FIELD = "prefix";
+    /**
+     * 反转后的edge-n-gram子字段名称，用于likeLeft（后缀）
+     */
+    public static final String SUFFIX_SUB_FIELD = "suffix";
+    /**
+     * n-gram分词器
+     */
+    public static final String NGRAM_ANALYZER = "es_plus_ngram";
+    /**
+     * n-gram tokenizer
+     */
+    public static final String NGRAM_TOKENIZER = "es_plus_ngram_tokenizer";
+    /**
+     * 前缀（edge-n-gram）分词器
+     */
+    public static final String PREFIX_ANALYZER = "es_plus_prefix";
+    /**
+     * 后缀（反转后的edge-n-gram）分词器
+     */
+    public static final String SUFFIX_ANALYZER = "es_plus_suffix";
+    /**
+     * edge-n-gram token filter
+     */
+    public static final String EDGE_NGRAM_FILTER = "es_plus_edge_ngram";
+    /**
+     * n-gram的长度，like的值不小于该长度时才能使用n-gram子字段
+     */
+    public static final int NGRAM_SIZE = 3;
+    /**
+     * edge-n-gram的最大长度，likeLeft、likeRight的值不超过该长度时才能使用前缀、后缀子字段
+     */
+    public static final int EDGE_NGRAM_MAX_SIZE = 20;
     /**
      * es默认schema
      */
@@ -22,6 +22,11 @@ public class EsGlobalConstants {
      */
     public static final String CLIENT_PREFIX = "restHighLevelClient_";
 
+    /**
+     * 非动态模式下的默认客户端名称
+     */
+    public static final String DEFAULT_CLIENT = "default";
+
     /**
      * 全局日期格式化
      */
@@ -0,0 +1,22 @@
+package com.xwl.esplus.core.enums;
+
+/**
+ * count统计方式
+ *
+ * @author xwl
+ * @since 2026/10/18 19:10
+ */
+public enum EsCountModeEnum {
+    /**
+     * 精确统计，每次执行count请求
+     */
+    EXACT,
+    /**
+     * 无查询条件时读取_cat/count并短时间缓存（写操作后失效），有查询条件时精确统计
+     */
+    CACHED,
+    /**
+     * 无查询条件时同CACHED，有查询条件时通过track_total_hits统计到上限为止，超过上限返回"至少N条"
+     */
+    APPROXIMATE;
+}
@@ -0,0 +1,22 @@
+package com.xwl.esplus.core.enums;
+
+/**
+ * 请求节点选择策略
+ *
+ * @author xwl
+ * @since 2026/10/18 11:05
+ */
+public enum EsNodeSelectorEnum {
+    /**
+     * 任意节点
+     */
+    ANY,
+    /**
+     * 跳过专用主节点（只有master角色的节点）
+     */
+    SKIP_DEDICATED_MASTERS,
+    /**
+     * 按请求类型选择节点角色：写请求优先ingest节点，读请求优先仅协调节点，均跳过专用主节点
+     */
+    ROLE_AWARE;
+}
@@ -0,0 +1,86 @@
+package com.xwl.esplus.core.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+
+/**
+ * 按时间分区的索引策略，分区索引名为：索引名-分区后缀
+ *
+ * @author xwl
+ * @since 2026/10/18 23:09
+ */
+public enum EsPartitionEnum {
+    /**
+     * 不分区
+     */
+    NONE,
+    /**
+     * 按天分区，后缀如：2026.10.19
+     */
+    DAY,
+    /**
+     * 按ISO周（周一开始）分区，后缀如：2026.w42
+     */
+    WEEK,
+    /**
+     * 按月分区，后缀如：2026.10
+     */
+    MONTH;
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM");
+
+    /**
+     * 日期所在分区的第一天
+     *
+     * @param date 日期
+     * @return 分区的第一天
+     */
+    public LocalDate floor(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(DayOfWeek.MONDAY);
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * 下一个分区的第一天
+     *
+     * @param floor 分区的第一天
+     * @return 下一个分区的第一天
+     */
+    public LocalDate next(LocalDate floor) {
+        switch (this) {
+            case WEEK:
+                return floor.plusWeeks(1);
+            case MONTH:
+                return floor.plusMonths(1);
+            default:
+                return floor.plusDays(1);
+        }
+    }
+
+    /**
+     * 日期所在分区的后缀
+     *
+     * @param date 日期
+     * @return 分区后缀
+     */
+    public String suffix(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return String.format("%d.w%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH:
+                return date.format(MONTH_FORMATTER);
+            default:
+                return date.format(DAY_FORMATTER);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.xwl.esplus.core.enums;
+
+/**
+ * 请求类型，用于按节点角色选择请求节点
+ *
+ * @author xwl
+ * @since 2026/10/18 11:05
+ */
+public enum EsRequestTypeEnum {
+    /**
+     * 读请求：search、count、get等
+     */
+    READ,
+    /**
+     * 写请求：index、update、delete、bulk等
+     */
+    WRITE;
+}
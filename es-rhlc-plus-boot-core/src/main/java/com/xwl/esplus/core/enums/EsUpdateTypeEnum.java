@@ -0,0 +1,34 @@
+package com.xwl.esplus.core.enums;
+
+/**
+ * 更新方式，除SET外均通过painless脚本在服务端原子执行
+ *
+ * @author xwl
+ * @since 2026/10/18 23:21
+ */
+public enum EsUpdateTypeEnum {
+    /**
+     * 设置为指定值
+     */
+    SET,
+    /**
+     * 数值增加，字段为空时视为0
+     */
+    INCR,
+    /**
+     * 数值减少，字段为空时视为0
+     */
+    DECR,
+    /**
+     * 向数组追加元素，字段为空时创建数组，字段为单值时转为数组
+     */
+    APPEND,
+    /**
+     * 从数组中删除等于指定值的所有元素
+     */
+    REMOVE,
+    /**
+     * 字段为空或指定值大于字段值时设置为指定值
+     */
+    SET_IF_GREATER;
+}
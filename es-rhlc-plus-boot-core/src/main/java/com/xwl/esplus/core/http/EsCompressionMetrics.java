@@ -0,0 +1,163 @@
+package com.xwl.esplus.core.http;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * gzip压缩统计指标，按客户端名称区分，用于权衡压缩带来的CPU开销与节省的带宽
+ *
+ * @author xwl
+ * @since 2026/10/18 10:12
+ */
+public class EsCompressionMetrics {
+    /**
+     * 客户端名称 -> 统计指标
+     */
+    private static final Map<String, EsCompressionMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /**
+     * 已压缩的请求数
+     */
+    private final AtomicLong compressedRequestCount = new AtomicLong();
+
+    /**
+     * 因低于阈值而未压缩的请求数
+     */
+    private final AtomicLong skippedRequestCount = new AtomicLong();
+
+    /**
+     * 已压缩请求的原始字节数
+     */
+    private final AtomicLong requestRawBytes = new AtomicLong();
+
+    /**
+     * 已压缩请求压缩后的字节数
+     */
+    private final AtomicLong requestCompressedBytes = new AtomicLong();
+
+    /**
+     * 服务端返回的gzip响应数
+     */
+    private final AtomicLong compressedResponseCount = new AtomicLong();
+
+    /**
+     * gzip响应解压后的字节数
+     */
+    private final AtomicLong responseRawBytes = new AtomicLong();
+
+    /**
+     * gzip响应在网络上传输的字节数
+     */
+    private final AtomicLong responseCompressedBytes = new AtomicLong();
+
+    /**
+     * 获取（不存在则创建）指定客户端的统计指标
+     *
+     * @param clientName 客户端名称
+     * @return 统计指标
+     */
+    public static EsCompressionMetrics get(String clientName) {
+        return METRICS.computeIfAbsent(clientName, k -> new EsCompressionMetrics());
+    }
+
+    /**
+     * 获取所有客户端的统计指标
+     *
+     * @return 客户端名称 -> 统计指标
+     */
+    public static Map<String, EsCompressionMetrics> getAll() {
+        return Collections.unmodifiableMap(METRICS);
+    }
+
+    void recordRequest(long rawBytes, long compressedBytes) {
+        compressedRequestCount.incrementAndGet();
+        requestRawBytes.addAndGet(rawBytes);
+        requestCompressedBytes.addAndGet(compressedBytes);
+    }
+
+    void recordSkippedRequest() {
+        skippedRequestCount.incrementAndGet();
+    }
+
+    void recordResponse(long rawBytes, long compressedBytes) {
+        compressedResponseCount.incrementAndGet();
+        responseRawBytes.addAndGet(rawBytes);
+        responseCompressedBytes.addAndGet(compressedBytes);
+    }
+
+    /**
+     * 重置统计指标
+     */
+    public void reset() {
+        compressedRequestCount.set(0);
+        skippedRequestCount.set(0);
+        requestRawBytes.set(0);
+        requestCompressedBytes.set(0);
+        compressedResponseCount.set(0);
+        responseRawBytes.set(0);
+        responseCompressedBytes.set(0);
+    }
+
+    public long getCompressedRequestCount() {
+        return compressedRequestCount.get();
+    }
+
+    public long getSkippedRequestCount() {
+        return skippedRequestCount.get();
+    }
+
+    public long getRequestRawBytes() {
+        return requestRawBytes.get();
+    }
+
+    public long getRequestCompressedBytes() {
+        return requestCompressedBytes.get();
+    }
+
+    public long getCompressedResponseCount() {
+        return compressedResponseCount.get();
+    }
+
+    public long getResponseRawBytes() {
+        return responseRawBytes.get();
+    }
+
+    public long getResponseCompressedBytes() {
+        return responseCompressedBytes.get();
+    }
+
+    /**
+     * 请求压缩率（压缩后字节数/原始字节数），无数据时返回1
+     *
+     * @return 压缩率
+     */
+    public double getRequestCompressionRatio() {
+        long raw = requestRawBytes.get();
+        return raw == 0 ? 1D : (double) requestCompressedBytes.get() / raw;
+    }
+
+    /**
+     * 响应压缩率（压缩后字节数/原始字节数），无数据时返回1
+     *
+     * @return 压缩率
+     */
+    public double getResponseCompressionRatio() {
+        long raw = responseRawBytes.get();
+        return raw == 0 ? 1D : (double) responseCompressedBytes.get() / raw;
+    }
+
+    @Override
+    public String toString() {
+        return "EsCompressionMetrics{" +
+                "compressedRequestCount=" + compressedRequestCount +
+                ", skippedRequestCount=" + skippedRequestCount +
+                ", requestRawBytes=" + requestRawBytes +
+                ", requestCompressedBytes=" + requestCompressedBytes +
+                ", compressedResponseCount=" + compressedResponseCount +
+                ", responseRawBytes=" + responseRawBytes +
+                ", responseCompressedBytes=" + responseCompressedBytes +
+                '}';
+    }
+}
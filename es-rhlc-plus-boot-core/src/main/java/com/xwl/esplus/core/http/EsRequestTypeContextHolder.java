@@ -0,0 +1,129 @@
+package com.xwl.esplus.core.http;
+
+import com.xwl.esplus.core.enums.EsRequestTypeEnum;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 当前线程的请求类型，供节点选择器使用
+ * <p>
+ * RestClient同步请求在调用线程中选择节点，因此可以通过ThreadLocal传递请求类型
+ *
+ * @author xwl
+ * @since 2026/10/18 11:05
+ */
+public class EsRequestTypeContextHolder {
+
+    private static final ThreadLocal<EsRequestTypeEnum> REQUEST_TYPE_HOLDER = new ThreadLocal<>();
+
+    /**
+     * 名称不符合读写前缀约定的读方法
+     */
+    private static final Set<String> READ_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "aggregate", "compositeIterator", "compositeStream", "pageAfter", "scrollIterator", "scrollStream", "parallelScan")));
+
+    /**
+     * 名称不符合读写前缀约定的写方法
+     */
+    private static final Set<String> WRITE_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "bulkLoad", "restoreBulkLoad", "reindex")));
+
+    private EsRequestTypeContextHolder() {
+    }
+
+    /**
+     * 获取当前线程的请求类型
+     *
+     * @return 请求类型，未设置时返回null
+     */
+    public static EsRequestTypeEnum get() {
+        return REQUEST_TYPE_HOLDER.get();
+    }
+
+    /**
+     * 设置当前线程的请求类型
+     * <p>
+     * 调用后确保最终调用clear清除
+     * </p>
+     *
+     * @param requestType 请求类型
+     */
+    public static void set(EsRequestTypeEnum requestType) {
+        REQUEST_TYPE_HOLDER.set(requestType);
+    }
+
+    /**
+     * 清除当前线程的请求类型
+     */
+    public static void clear() {
+        REQUEST_TYPE_HOLDER.remove();
+    }
+
+    /**
+     * 包装任务，使其在其他线程（如定时器、线程池）执行时沿用当前线程的请求类型，执行完毕后恢复该线程原有的请求类型
+     *
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static Runnable wrap(Runnable task) {
+        return wrap(get(), task);
+    }
+
+    /**
+     * 包装任务，使其执行时使用指定的请求类型，执行完毕后恢复执行线程原有的请求类型
+     * <p>
+     * 用于迭代器等在mapper方法返回后才发出请求的场景
+     *
+     * @param requestType 请求类型
+     * @param task        任务
+     * @return 包装后的任务
+     */
+    public static Runnable wrap(EsRequestTypeEnum requestType, Runnable task) {
+        return () -> {
+            EsRequestTypeEnum previous = get();
+            if (requestType == null) {
+                clear();
+            } else {
+                set(requestType);
+            }
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    clear();
+                } else {
+                    set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * 根据mapper方法名推断请求类型，不符合前缀约定的方法按READ_METHODS、WRITE_METHODS显式归类
+     *
+     * @param methodName 方法名
+     * @return 请求类型，索引管理等方法返回null
+     */
+    public static EsRequestTypeEnum resolve(String methodName) {
+        if (READ_METHODS.contains(methodName)) {
+            return EsRequestTypeEnum.READ;
+        }
+        if (WRITE_METHODS.contains(methodName)) {
+            return EsRequestTypeEnum.WRITE;
+        }
+        if (methodName.endsWith("Index")) {
+            return null;
+        }
+        if (methodName.startsWith("save") || methodName.startsWith("update") || methodName.startsWith("remove")) {
+            return EsRequestTypeEnum.WRITE;
+        }
+        if (methodName.startsWith("search") || methodName.startsWith("count") || methodName.startsWith("get")
+                || methodName.startsWith("list") || methodName.startsWith("page")) {
+            return EsRequestTypeEnum.READ;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.xwl.esplus.core.http;
+
+import com.xwl.esplus.core.enums.EsRequestTypeEnum;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+
+import java.util.Iterator;
+
+/**
+ * 按节点角色选择请求节点：写请求优先ingest节点，读请求优先仅协调节点（非master、data、ingest）
+ * <p>
+ * 节点角色来自节点嗅探，静态配置的节点没有角色信息，此时不做筛选；没有符合条件的节点时回退到所有非专用主节点
+ *
+ * @author xwl
+ * @since 2026/10/18 11:05
+ */
+public class EsRoleAwareNodeSelector implements NodeSelector {
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        NodeSelector.SKIP_DEDICATED_MASTERS.select(nodes);
+        EsRequestTypeEnum requestType = EsRequestTypeContextHolder.get();
+        if (requestType == null) {
+            return;
+        }
+        boolean hasPreferred = false;
+        for (Node node : nodes) {
+            if (isPreferred(node, requestType)) {
+                hasPreferred = true;
+                break;
+            }
+        }
+        if (!hasPreferred) {
+            return;
+        }
+        Iterator<Node> iterator = nodes.iterator();
+        while (iterator.hasNext()) {
+            if (!isPreferred(iterator.next(), requestType)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isPreferred(Node node, EsRequestTypeEnum requestType) {
+        Node.Roles roles = node.getRoles();
+        if (roles == null) {
+            return false;
+        }
+        if (EsRequestTypeEnum.WRITE.equals(requestType)) {
+            return roles.isIngest();
+        }
+        return !roles.isMasterEligible() && !roles.isData() && !roles.isIngest();
+    }
+
+    @Override
+    public String toString() {
+        return "ROLE_AWARE";
+    }
+}
@@ -0,0 +1,234 @@
+package com.xwl.esplus.core.http;
+
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 支持gzip压缩的异步http客户端，包装RestClient底层使用的客户端：
+ * 请求体超过阈值时gzip压缩后发送，服务端返回gzip响应时解压后再交给RestClient解析
+ * <p>
+ * RestClient 7.6 不支持请求压缩，且请求体在进入httpclient拦截器前已固定，因此只能在此处替换请求
+ *
+ * @author xwl
+ * @since 2026/10/18 10:12
+ */
+public class GzipHttpAsyncClient extends CloseableHttpAsyncClient {
+    /**
+     * gzip编码
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * 被包装的客户端
+     */
+    private final CloseableHttpAsyncClient delegate;
+
+    /**
+     * 请求体压缩阈值（单位：byte）
+     */
+    private final int threshold;
+
+    /**
+     * 统计指标
+     */
+    private final EsCompressionMetrics metrics;
+
+    public GzipHttpAsyncClient(CloseableHttpAsyncClient delegate, int threshold, EsCompressionMetrics metrics) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return delegate.isRunning();
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<T> responseConsumer,
+                                 HttpContext context, FutureCallback<T> callback) {
+        return delegate.execute(compressRequest(requestProducer), new GzipResponseConsumer<>(responseConsumer, metrics),
+                context, callback);
+    }
+
+    /**
+     * 请求体超过阈值时，替换为gzip压缩后的请求
+     *
+     * @param requestProducer 原始请求
+     * @return 压缩后的请求，无需压缩时返回原始请求
+     */
+    private HttpAsyncRequestProducer compressRequest(HttpAsyncRequestProducer requestProducer) {
+        try {
+            HttpRequest request = requestProducer.generateRequest();
+            if (!(request instanceof HttpEntityEnclosingRequest)) {
+                return requestProducer;
+            }
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity == null || entity.getContentEncoding() != null) {
+                return requestProducer;
+            }
+            long length = entity.getContentLength();
+            if (length < 0 || length < threshold || !entity.isRepeatable()) {
+                metrics.recordSkippedRequest();
+                return requestProducer;
+            }
+            byte[] raw = EntityUtils.toByteArray(entity);
+            byte[] compressed = gzip(raw);
+            NByteArrayEntity compressedEntity = new NByteArrayEntity(compressed, ContentType.get(entity));
+            compressedEntity.setContentEncoding(GZIP);
+            BasicHttpEntityEnclosingRequest compressedRequest = new BasicHttpEntityEnclosingRequest(request.getRequestLine());
+            compressedRequest.setHeaders(request.getAllHeaders());
+            compressedRequest.setEntity(compressedEntity);
+            metrics.recordRequest(raw.length, compressed.length);
+            requestProducer.close();
+            return new BasicAsyncRequestProducer(requestProducer.getTarget(), compressedRequest);
+        } catch (IOException | HttpException e) {
+            // 压缩失败时按原始请求发送
+            return requestProducer;
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 响应消费者包装，服务端返回gzip响应时解压
+     *
+     * @param <T> 响应类型
+     */
+    private static class GzipResponseConsumer<T> implements HttpAsyncResponseConsumer<T> {
+        private final HttpAsyncResponseConsumer<T> delegate;
+
+        private final EsCompressionMetrics metrics;
+
+        private volatile boolean decompressed;
+
+        GzipResponseConsumer(HttpAsyncResponseConsumer<T> delegate, EsCompressionMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void responseReceived(HttpResponse response) throws IOException, HttpException {
+            delegate.responseReceived(response);
+        }
+
+        @Override
+        public void consumeContent(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+            delegate.consumeContent(decoder, ioctrl);
+        }
+
+        @Override
+        public void responseCompleted(HttpContext context) {
+            delegate.responseCompleted(context);
+        }
+
+        @Override
+        public void failed(Exception ex) {
+            delegate.failed(ex);
+        }
+
+        @Override
+        public Exception getException() {
+            return delegate.getException();
+        }
+
+        @Override
+        public T getResult() {
+            T result = delegate.getResult();
+            if (!decompressed && result instanceof HttpResponse) {
+                decompressed = true;
+                decompress((HttpResponse) result);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isDone() {
+            return delegate.isDone();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean cancel() {
+            return delegate.cancel();
+        }
+
+        private void decompress(HttpResponse response) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return;
+            }
+            Header encoding = entity.getContentEncoding();
+            if (encoding == null) {
+                encoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+            }
+            if (encoding == null || !GZIP.equalsIgnoreCase(encoding.getValue())) {
+                return;
+            }
+            try {
+                byte[] compressed = EntityUtils.toByteArray(entity);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, n);
+                    }
+                }
+                byte[] raw = out.toByteArray();
+                response.setEntity(new NByteArrayEntity(raw, ContentType.get(entity)));
+                response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+                response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+                metrics.recordResponse(raw.length, compressed.length);
+            } catch (IOException e) {
+                throw ExceptionUtils.epe("failed to decompress gzip response", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.xwl.esplus.core.http;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+
+/**
+ * 构建支持gzip压缩的异步http客户端，在RestClientBuilder的HttpClientConfigCallback中返回，
+ * 由RestClientBuilder调用build()时包装原有客户端
+ *
+ * @author xwl
+ * @since 2026/10/18 10:12
+ */
+public class GzipHttpAsyncClientBuilder extends HttpAsyncClientBuilder {
+    /**
+     * 已完成配置的原始构建器
+     */
+    private final HttpAsyncClientBuilder delegate;
+
+    /**
+     * 请求体压缩阈值（单位：byte）
+     */
+    private final int threshold;
+
+    /**
+     * 统计指标
+     */
+    private final EsCompressionMetrics metrics;
+
+    public GzipHttpAsyncClientBuilder(HttpAsyncClientBuilder delegate, int threshold, EsCompressionMetrics metrics) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CloseableHttpAsyncClient build() {
+        return new GzipHttpAsyncClient(delegate.build(), threshold, metrics);
+    }
+}
@@ -0,0 +1,335 @@
+package com.xwl.esplus.core.index;
+
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.GetMappingsRequest;
+import org.elasticsearch.client.indices.GetMappingsResponse;
+import org.elasticsearch.client.indices.PutMappingRequest;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量导入会话：打开时关闭索引的自动refresh、副本并使用异步translog，关闭时恢复原设置并refresh
+ * <p>
+ * 原设置保存在索引mapping的_meta中，进程在会话期间异常退出（如kill -9）时设置不会自动恢复，需调用restore按_meta中的原设置恢复，
+ * 之后再打开的会话也以_meta中的原设置为准；
+ * 同一进程内对同一索引的多个会话共享放宽的设置，最后一个会话关闭时恢复
+ * <pre>
+ * try (BulkLoadSession session = mapper.bulkLoad()) {
+ *     mapper.saveBatch(list);
+ * }
+ * </pre>
+ *
+ * @author xwl
+ * @since 2026/10/18 23:14
+ */
+public class BulkLoadSession implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(BulkLoadSession.class);
+
+    /**
+     * _meta中保存原设置的key
+     */
+    public static final String META_KEY = "es_plus_bulk_load";
+
+    private static final String META = "_meta";
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+    private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+    private static final String TRANSLOG_DURABILITY = "index.translog.durability";
+    private static final String[] SETTING_NAMES = {REFRESH_INTERVAL, NUMBER_OF_REPLICAS, TRANSLOG_DURABILITY};
+
+    /**
+     * 本进程内打开的会话数，key: 索引名称或打开会话时指定的名称（别名、通配符）；
+     * 修改时持有LOCK，每次写请求都会读取，读取不加锁
+     */
+    private static final Map<String, Integer> OPEN_SESSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * 打开、关闭、恢复会话的锁，持有期间会请求es
+     */
+    private static final Object LOCK = new Object();
+
+    private final RestHighLevelClient restHighLevelClient;
+
+    /**
+     * 打开会话时指定的名称
+     */
+    private final String target;
+
+    /**
+     * 实际放宽设置的索引
+     */
+    private final List<String> indices;
+
+    /**
+     * 进程正常退出时恢复设置
+     */
+    private final Thread shutdownHook;
+
+    private boolean closed;
+
+    private BulkLoadSession(RestHighLevelClient restHighLevelClient, String target, List<String> indices) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.target = target;
+        this.indices = indices;
+        this.shutdownHook = new Thread(this::close, "es-plus-bulk-load-restore");
+    }
+
+    /**
+     * 打开批量导入会话
+     *
+     * @param restHighLevelClient es客户端
+     * @param target              索引名称、别名或通配符
+     * @return 批量导入会话
+     */
+    public static BulkLoadSession open(RestHighLevelClient restHighLevelClient, String target) {
+        synchronized (LOCK) {
+            Map<String, Map<String, String>> currentSettings;
+            try {
+                currentSettings = getSettings(restHighLevelClient, target);
+            } catch (IOException e) {
+                throw ExceptionUtils.epe("open bulk load session exception, indexName: %s", e, target);
+            }
+            List<String> indices = new ArrayList<>(currentSettings.keySet());
+            // 已增加会话计数的索引，后续索引放宽失败时回滚
+            List<String> opened = new ArrayList<>(indices.size());
+            String relaxing = null;
+            try {
+                for (String index : indices) {
+                    if (!OPEN_SESSIONS.containsKey(index)) {
+                        relaxing = index;
+                        relax(restHighLevelClient, index, currentSettings.get(index));
+                        relaxing = null;
+                    }
+                    OPEN_SESSIONS.merge(index, 1, Integer::sum);
+                    opened.add(index);
+                }
+                BulkLoadSession session = new BulkLoadSession(restHighLevelClient, target, indices);
+                Runtime.getRuntime().addShutdownHook(session.shutdownHook);
+                if (!indices.contains(target)) {
+                    OPEN_SESSIONS.merge(target, 1, Integer::sum);
+                }
+                log.info("bulk load session opened, indices: {}", indices);
+                return session;
+            } catch (IOException | RuntimeException e) {
+                rollback(restHighLevelClient, opened, relaxing, e);
+                throw ExceptionUtils.epe("open bulk load session exception, indexName: %s", e, target);
+            }
+        }
+    }
+
+    /**
+     * 打开会话失败时回滚：减少已打开索引的会话计数，本会话放宽的索引（包括放宽到一半失败的索引）按_meta中的原设置恢复，
+     * 恢复失败的异常附加到打开失败的异常上，原设置仍保留在_meta中可调用restore恢复
+     *
+     * @param opened   已增加会话计数的索引
+     * @param relaxing 放宽失败的索引，可为null
+     * @param cause    打开失败的异常
+     */
+    private static void rollback(RestHighLevelClient client, List<String> opened, String relaxing, Exception cause) {
+        List<String> toRestore = new ArrayList<>(opened.size() + 1);
+        if (Objects.nonNull(relaxing)) {
+            toRestore.add(relaxing);
+        }
+        for (int i = opened.size() - 1; i >= 0; i--) {
+            if (release(opened.get(i))) {
+                toRestore.add(opened.get(i));
+            }
+        }
+        for (String index : toRestore) {
+            try {
+                restoreIndex(client, index);
+            } catch (Exception e) {
+                log.error("restore bulk load settings failed, index: {}", index, e);
+                cause.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * 恢复异常退出的会话遗留的设置，本进程内仍有会话打开的索引不处理
+     *
+     * @param restHighLevelClient es客户端
+     * @param target              索引名称、别名或通配符
+     * @return 恢复的索引数
+     */
+    public static int restore(RestHighLevelClient restHighLevelClient, String target) {
+        synchronized (LOCK) {
+            int restored = 0;
+            try {
+                for (String index : getSettings(restHighLevelClient, target).keySet()) {
+                    if (!OPEN_SESSIONS.containsKey(index) && restoreIndex(restHighLevelClient, index)) {
+                        restored++;
+                    }
+                }
+            } catch (IOException e) {
+                throw ExceptionUtils.epe("restore bulk load settings exception, indexName: %s", e, target);
+            }
+            return restored;
+        }
+    }
+
+    /**
+     * 本进程内是否有该索引的批量导入会话，会话期间写请求不应等待refresh
+     *
+     * @param indexName 索引名称或打开会话时指定的名称
+     * @return 是否有会话
+     */
+    public static boolean isLoading(String indexName) {
+        return OPEN_SESSIONS.containsKey(indexName);
+    }
+
+    public List<String> getIndices() {
+        return Collections.unmodifiableList(indices);
+    }
+
+    /**
+     * 关闭会话，最后一个会话关闭时恢复原设置并refresh，重复调用无影响
+     */
+    @Override
+    public void close() {
+        synchronized (LOCK) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!Thread.currentThread().equals(shutdownHook)) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // 进程正在退出，钩子已在执行
+                }
+            }
+            if (!indices.contains(target)) {
+                release(target);
+            }
+            List<String> failed = new ArrayList<>();
+            for (String index : indices) {
+                if (release(index)) {
+                    try {
+                        restoreIndex(restHighLevelClient, index);
+                    } catch (Exception e) {
+                        log.error("restore bulk load settings failed, index: {}", index, e);
+                        failed.add(index);
+                    }
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw ExceptionUtils.epe("restore bulk load settings failed, indices: %s, original settings are kept in mapping _meta.%s",
+                        failed, META_KEY);
+            }
+            log.info("bulk load session closed, indices: {}", indices);
+        }
+    }
+
+    /**
+     * 减少会话计数
+     *
+     * @return 是否为最后一个会话
+     */
+    private static boolean release(String key) {
+        Integer count = OPEN_SESSIONS.get(key);
+        if (Objects.isNull(count) || count <= 1) {
+            OPEN_SESSIONS.remove(key);
+            return true;
+        }
+        OPEN_SESSIONS.put(key, count - 1);
+        return false;
+    }
+
+    /**
+     * 保存原设置到_meta并放宽设置，_meta中已有原设置（上次会话异常退出）时保留该原设置
+     */
+    private static void relax(RestHighLevelClient client, String index, Map<String, String> currentSettings) throws IOException {
+        Map<String, Object> meta = getMeta(client, index);
+        if (!meta.containsKey(META_KEY)) {
+            meta.put(META_KEY, currentSettings);
+            putMeta(client, index, meta);
+        }
+        Settings settings = Settings.builder()
+                .put(REFRESH_INTERVAL, "-1")
+                .put(NUMBER_OF_REPLICAS, 0)
+                .put(TRANSLOG_DURABILITY, "async")
+                .build();
+        client.indices().putSettings(new UpdateSettingsRequest(index).settings(settings), RequestOptions.DEFAULT);
+    }
+
+    /**
+     * 按_meta中的原设置恢复，恢复后删除_meta中的原设置并refresh
+     *
+     * @return _meta中是否有原设置
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean restoreIndex(RestHighLevelClient client, String index) throws IOException {
+        Map<String, Object> meta = getMeta(client, index);
+        Object originals = meta.remove(META_KEY);
+        if (!(originals instanceof Map)) {
+            return false;
+        }
+        Settings.Builder settings = Settings.builder();
+        ((Map<String, Object>) originals).forEach((name, value) -> {
+            if (Objects.nonNull(value)) {
+                settings.put(name, value.toString());
+            } else {
+                settings.putNull(name);
+            }
+        });
+        client.indices().putSettings(new UpdateSettingsRequest(index).settings(settings), RequestOptions.DEFAULT);
+        putMeta(client, index, meta);
+        client.indices().refresh(new RefreshRequest(index), RequestOptions.DEFAULT);
+        log.info("bulk load settings restored, index: {}, settings: {}", index, originals);
+        return true;
+    }
+
+    /**
+     * 获取索引当前的相关设置，未显式设置的为null，恢复时重置为未设置（使用默认值）而不是写入默认值
+     *
+     * @return 索引名称 -> 设置
+     */
+    private static Map<String, Map<String, String>> getSettings(RestHighLevelClient client, String target) throws IOException {
+        GetSettingsRequest request = new GetSettingsRequest().indices(target).names(SETTING_NAMES);
+        GetSettingsResponse response = client.indices().getSettings(request, RequestOptions.DEFAULT);
+        Map<String, Map<String, String>> result = new LinkedHashMap<>();
+        Iterator<String> iterator = response.getIndexToSettings().keysIt();
+        while (iterator.hasNext()) {
+            String index = iterator.next();
+            Map<String, String> settings = new LinkedHashMap<>();
+            for (String name : SETTING_NAMES) {
+                settings.put(name, response.getSetting(index, name));
+            }
+            result.put(index, settings);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getMeta(RestHighLevelClient client, String index) throws IOException {
+        GetMappingsResponse response = client.indices().getMapping(new GetMappingsRequest().indices(index), RequestOptions.DEFAULT);
+        MappingMetaData mapping = response.mappings().get(index);
+        Object meta = Objects.isNull(mapping) ? null : mapping.sourceAsMap().get(META);
+        return meta instanceof Map ? new HashMap<>((Map<String, Object>) meta) : new HashMap<>();
+    }
+
+    private static void putMeta(RestHighLevelClient client, String index, Map<String, Object> meta) throws IOException {
+        PutMappingRequest request = new PutMappingRequest(index).source(Collections.singletonMap(META, meta));
+        client.indices().putMapping(request, RequestOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,487 @@
+package com.xwl.esplus.core.index;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.xwl.esplus.core.constant.EsConstants;
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import com.xwl.esplus.core.toolkit.StringUtils;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 零停机重建索引：别名指向的索引通过分片并行的_reindex复制到新版本索引（别名_v版本号），
+ * 追平复制期间写入的增量后，原子地将别名切换到新版本索引
+ * <p>
+ * 复制使用version_type=external保留源文档版本，追平时只有版本更新的文档会覆盖目标文档；
+ * 全量复制后先在不阻塞写入的情况下追平一次，再为源索引设置写入阻塞（index.blocks.write）追平最后的增量，
+ * 并删除新版本索引中已从源索引删除的文档，这期间及切换时的写请求会被拒绝（需调用方重试），保证切换后不丢失写入，
+ * 失败或切换后保留源索引时解除阻塞；指定增量字段时阻塞时间只与最后的增量有关，否则需重新扫描全部文档
+ *
+ * @author xwl
+ * @since 2026/10/18 23:16
+ */
+public class EsReindexer {
+    private static final Logger log = LoggerFactory.getLogger(EsReindexer.class);
+
+    /**
+     * 别名与版本号的连接符
+     */
+    public static final String VERSION_SEPARATOR = "_v";
+
+    /**
+     * 禁止写入的索引设置
+     */
+    private static final String BLOCKS_WRITE = "index.blocks.write";
+
+    /**
+     * 查询任务进度的间隔，单位毫秒
+     */
+    private static final long POLL_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 按增量字段追平时向前多取的时间，容忍客户端与服务端的时钟偏差，单位毫秒
+     */
+    private static final long DELTA_MARGIN_MILLIS = 60_000L;
+
+    /**
+     * 每个滚动批次的文档数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 扫描新版本索引id时scroll的保持时间
+     */
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private final RestHighLevelClient restHighLevelClient;
+
+    /**
+     * 实体对应的别名（@EsDocument中的索引名）
+     */
+    private final String alias;
+
+    /**
+     * 进度回调
+     */
+    private final Consumer<ReindexProgress> listener;
+
+    /**
+     * 开始重建的时间
+     */
+    private final long startMillis = System.currentTimeMillis();
+
+    public EsReindexer(RestHighLevelClient restHighLevelClient, String alias, Consumer<ReindexProgress> listener) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.alias = alias;
+        this.listener = Objects.isNull(listener) ? progress -> log.info("reindex progress: {}", progress) : listener;
+    }
+
+    /**
+     * 别名当前指向的索引，尚未使用别名时为与别名同名的索引
+     *
+     * @return 源索引名称，索引不存在时返回null
+     */
+    public String getSourceIndex() {
+        try {
+            GetAliasesResponse response = restHighLevelClient.indices().getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+            Set<String> indices = response.getAliases().keySet();
+            if (indices.size() > 1) {
+                throw ExceptionUtils.epe("alias points to more than one index, alias: %s, indices: %s", alias, indices);
+            }
+            if (indices.size() == 1) {
+                return indices.iterator().next();
+            }
+            boolean exists = restHighLevelClient.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT);
+            return exists ? alias : null;
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("get alias exception, alias: %s", e, alias);
+        }
+    }
+
+    /**
+     * 下一个版本的索引名称：已有版本索引中最大的版本号加1，没有版本索引时为别名_v1
+     *
+     * @return 新版本索引名称
+     */
+    public String nextIndexName() {
+        GetIndexRequest request = new GetIndexRequest(alias + VERSION_SEPARATOR + "*")
+                .indicesOptions(IndicesOptions.fromOptions(true, true, true, true));
+        try {
+            String[] indices = restHighLevelClient.indices().get(request, RequestOptions.DEFAULT).getIndices();
+            return nextIndexName(alias, Arrays.asList(indices));
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("get versioned indices exception, alias: %s", e, alias);
+        }
+    }
+
+    /**
+     * 下一个版本的索引名称：已有版本索引中最大的版本号加1，没有版本索引时为别名_v1
+     *
+     * @param alias   别名
+     * @param indices 已有的索引名称，不符合别名_v版本号格式的忽略
+     * @return 新版本索引名称
+     */
+    public static String nextIndexName(String alias, Collection<String> indices) {
+        Pattern pattern = Pattern.compile("^" + Pattern.quote(alias + VERSION_SEPARATOR) + "(\\d+)$");
+        int version = 0;
+        for (String index : indices) {
+            Matcher matcher = pattern.matcher(index);
+            if (matcher.matches()) {
+                version = Math.max(version, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return alias + VERSION_SEPARATOR + (version + 1);
+    }
+
+    /**
+     * 通知新版本索引已创建
+     *
+     * @param source 源索引
+     * @param target 新版本索引
+     */
+    public void created(String source, String target) {
+        log.info("reindex target [{}] created, source: {}", target, source);
+        notify(new ReindexProgress(ReindexProgress.Phase.CREATE, source, target, 0, 0, 0, 0, 0, elapsed()));
+    }
+
+    /**
+     * 全量复制并在不阻塞写入的情况下追平一次增量，之后禁止源索引写入，追平最后的增量并同步删除；
+     * 调用方须在失败时调用unblockWrites解除阻塞
+     *
+     * @param source     源索引
+     * @param target     新版本索引
+     * @param deltaField 增量字段（es字段名，记录文档的最后写入时间），强烈建议指定；
+     *                   为空时每次追平都重新扫描全部文档，只写入版本更新的文档，禁止写入的时间与文档总数成正比
+     */
+    public void copy(String source, String target, String deltaField) {
+        if (StringUtils.isBlank(deltaField)) {
+            log.warn("reindex without delta field, writes to [{}] will be blocked while all documents are scanned again", source);
+        }
+        long copyStart = System.currentTimeMillis();
+        reindex(ReindexProgress.Phase.COPY, source, target, null);
+        // 全量复制耗时较长，先不阻塞写入追平其间的增量，缩短之后禁止写入的时间
+        long catchUpStart = System.currentTimeMillis();
+        reindex(ReindexProgress.Phase.CATCH_UP, source, target, buildDeltaQuery(deltaField, copyStart));
+        // 之后写入源索引的文档无法再同步，禁止写入直至切换；_reindex只能读取到已refresh的文档
+        updateBlocksWrite(source, true);
+        refresh(source);
+        reindex(ReindexProgress.Phase.FINAL_CATCH_UP, source, target, buildDeltaQuery(deltaField, catchUpStart));
+        refresh(target);
+        propagateDeletes(source, target);
+    }
+
+    /**
+     * 解除源索引的写入阻塞，失败时只记录日志，不影响调用方的异常处理
+     *
+     * @param source 源索引
+     */
+    public void unblockWrites(String source) {
+        try {
+            updateBlocksWrite(source, false);
+        } catch (Exception e) {
+            log.error("unblock writes failed, please remove {} manually, index: {}", BLOCKS_WRITE, source, e);
+        }
+    }
+
+    /**
+     * 原子地将别名从源索引切换到新版本索引；源索引与别名同名时删除源索引，否则保留源索引以便回滚
+     *
+     * @param source 源索引
+     * @param target 新版本索引
+     */
+    public void swap(String source, String target) {
+        notify(new ReindexProgress(ReindexProgress.Phase.SWAP, source, target, 0, 0, 0, 0, 0, elapsed()));
+        IndicesAliasesRequest request = buildSwapRequest(alias, source, target);
+        try {
+            boolean acknowledged = restHighLevelClient.indices().updateAliases(request, RequestOptions.DEFAULT).isAcknowledged();
+            if (!acknowledged) {
+                throw ExceptionUtils.epe("swap alias not acknowledged, alias: %s, source: %s, target: %s", alias, source, target);
+            }
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("swap alias exception, alias: %s, source: %s, target: %s", e, alias, source, target);
+        }
+        log.info("alias [{}] swapped from [{}] to [{}]", alias, source, target);
+        notify(new ReindexProgress(ReindexProgress.Phase.DONE, source, target, 0, 0, 0, 0, 0, elapsed()));
+    }
+
+    /**
+     * 构建切换别名的请求
+     *
+     * @param alias  别名
+     * @param source 源索引
+     * @param target 新版本索引
+     * @return 切换别名的请求，源索引与别名同名时删除源索引，否则从源索引移除别名
+     */
+    public static IndicesAliasesRequest buildSwapRequest(String alias, String source, String target) {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        if (Objects.equals(alias, source)) {
+            // 别名不能与索引同名，删除索引与添加别名在同一请求中原子完成
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.removeIndex().index(source));
+        } else {
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(source).alias(alias));
+        }
+        request.addAliasAction(IndicesAliasesRequest.AliasActions.add().index(target).alias(alias));
+        return request;
+    }
+
+    /**
+     * 增量查询：增量字段不早于指定时间（向前多取DELTA_MARGIN_MILLIS）的文档
+     *
+     * @return 查询，增量字段为空时返回null（全部文档）
+     */
+    private static Map<String, Object> buildDeltaQuery(String deltaField, long sinceMillis) {
+        if (StringUtils.isBlank(deltaField)) {
+            return null;
+        }
+        Map<String, Object> range = new HashMap<>(2);
+        range.put("gte", sinceMillis - DELTA_MARGIN_MILLIS);
+        range.put("format", "epoch_millis");
+        return Collections.singletonMap("range", Collections.singletonMap(deltaField, range));
+    }
+
+    /**
+     * 删除新版本索引中已从源索引删除的文档：源索引已禁止写入，追平后新版本索引包含源索引的全部文档，
+     * 文档数相同时没有需要删除的文档；否则按批扫描新版本索引的id，删除源索引中不存在的文档，删除数达到文档数之差时结束
+     */
+    private void propagateDeletes(String source, String target) {
+        long surplus = count(target) - count(source);
+        if (surplus <= 0) {
+            notify(new ReindexProgress(ReindexProgress.Phase.DELETE, source, target, 0, 0, 0, 0, 0, elapsed()));
+            return;
+        }
+        long deleted = 0;
+        String scrollId = null;
+        try {
+            SearchRequest request = new SearchRequest(target).scroll(SCROLL_KEEP_ALIVE)
+                    .source(new SearchSourceBuilder().fetchSource(false).size(BATCH_SIZE).sort(FieldSortBuilder.DOC_FIELD_NAME));
+            SearchResponse response = restHighLevelClient.search(request, RequestOptions.DEFAULT);
+            scrollId = response.getScrollId();
+            while (response.getHits().getHits().length > 0 && deleted < surplus) {
+                deleted += deleteMissing(source, target, response.getHits().getHits());
+                notify(new ReindexProgress(ReindexProgress.Phase.DELETE, source, target, surplus, 0, 0, 0, deleted, elapsed()));
+                response = restHighLevelClient.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("propagate deletes exception, source: %s, target: %s", e, source, target);
+        } finally {
+            clearScroll(scrollId);
+        }
+        log.info("{} documents deleted from source during reindex are removed from [{}]", deleted, target);
+    }
+
+    /**
+     * 删除一批新版本索引文档中源索引已不存在的文档
+     *
+     * @return 删除的文档数
+     */
+    private int deleteMissing(String source, String target, SearchHit[] hits) throws IOException {
+        String[] ids = Arrays.stream(hits).map(SearchHit::getId).toArray(String[]::new);
+        SearchRequest request = new SearchRequest(source)
+                .source(new SearchSourceBuilder().query(QueryBuilders.idsQuery().addIds(ids)).fetchSource(false).size(ids.length));
+        Set<String> existing = Arrays.stream(restHighLevelClient.search(request, RequestOptions.DEFAULT).getHits().getHits())
+                .map(SearchHit::getId)
+                .collect(Collectors.toSet());
+        BulkRequest bulkRequest = new BulkRequest();
+        for (SearchHit hit : hits) {
+            if (!existing.contains(hit.getId())) {
+                DeleteRequest deleteRequest = new DeleteRequest(target, hit.getId());
+                Optional.ofNullable(hit.field(EsConstants.ROUTING)).ifPresent(field -> deleteRequest.routing(String.valueOf((Object) field.getValue())));
+                bulkRequest.add(deleteRequest);
+            }
+        }
+        if (bulkRequest.numberOfActions() == 0) {
+            return 0;
+        }
+        BulkResponse bulkResponse = restHighLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT);
+        if (bulkResponse.hasFailures()) {
+            throw ExceptionUtils.epe("propagate deletes failed, target: %s, failures: %s", target, bulkResponse.buildFailureMessage());
+        }
+        return bulkRequest.numberOfActions();
+    }
+
+    private long count(String index) {
+        try {
+            return restHighLevelClient.count(new CountRequest(index), RequestOptions.DEFAULT).getCount();
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("count exception, index: %s", e, index);
+        }
+    }
+
+    private void refresh(String... indices) {
+        try {
+            restHighLevelClient.indices().refresh(new RefreshRequest(indices), RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("refresh exception, indices: %s", e, Arrays.toString(indices));
+        }
+    }
+
+    private void clearScroll(String scrollId) {
+        if (StringUtils.isBlank(scrollId)) {
+            return;
+        }
+        ClearScrollRequest request = new ClearScrollRequest();
+        request.addScrollId(scrollId);
+        try {
+            restHighLevelClient.clearScroll(request, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            log.warn("clear scroll failed, scrollId: {}", scrollId, e);
+        }
+    }
+
+    /**
+     * 设置或解除索引的写入阻塞，解除时重置为未设置
+     */
+    private void updateBlocksWrite(String index, boolean blocked) {
+        Settings settings = blocked ? Settings.builder().put(BLOCKS_WRITE, true).build()
+                : Settings.builder().putNull(BLOCKS_WRITE).build();
+        try {
+            restHighLevelClient.indices().putSettings(new UpdateSettingsRequest(index).settings(settings), RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("update %s exception, index: %s", e, BLOCKS_WRITE, index);
+        }
+        log.info("{} of index [{}] set to {}", BLOCKS_WRITE, index, blocked);
+    }
+
+    /**
+     * 提交分片并行的_reindex任务并等待完成
+     */
+    private void reindex(ReindexProgress.Phase phase, String source, String target, Map<String, Object> query) {
+        Map<String, Object> sourceBody = new LinkedHashMap<>();
+        sourceBody.put("index", source);
+        sourceBody.put("size", BATCH_SIZE);
+        if (Objects.nonNull(query)) {
+            sourceBody.put("query", query);
+        }
+        Map<String, Object> destBody = new LinkedHashMap<>();
+        destBody.put("index", target);
+        destBody.put("version_type", "external");
+        Map<String, Object> body = new LinkedHashMap<>();
+        // 目标索引中已有相同或更新版本的文档时跳过
+        body.put("conflicts", "proceed");
+        body.put("source", sourceBody);
+        body.put("dest", destBody);
+
+        Request request = new Request(HttpPost.METHOD_NAME, "/_reindex");
+        request.addParameter("slices", "auto");
+        request.addParameter("wait_for_completion", "false");
+        request.setJsonEntity(JSON.toJSONString(body));
+        String taskId;
+        try {
+            taskId = perform(request).getString("task");
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("submit reindex exception, source: %s, target: %s", e, source, target);
+        }
+        log.info("reindex {} submitted, source: {}, target: {}, task: {}", phase, source, target, taskId);
+        waitForTask(phase, source, target, taskId);
+    }
+
+    /**
+     * 轮询任务进度直至完成，线程被中断时取消任务
+     */
+    private void waitForTask(ReindexProgress.Phase phase, String source, String target, String taskId) {
+        try {
+            while (true) {
+                JSONObject task = perform(new Request(HttpGet.METHOD_NAME, "/_tasks/" + taskId));
+                boolean completed = task.getBooleanValue("completed");
+                JSONObject response = task.getJSONObject("response");
+                JSONObject status = completed && Objects.nonNull(response)
+                        ? response : task.getJSONObject("task").getJSONObject("status");
+                notify(new ReindexProgress(phase, source, target, status.getLongValue("total"), status.getLongValue("created"),
+                        status.getLongValue("updated"), status.getLongValue("version_conflicts"), status.getLongValue("deleted"), elapsed()));
+                if (completed) {
+                    checkFailures(task, taskId);
+                    return;
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(taskId);
+            throw ExceptionUtils.epe("reindex interrupted, task: %s", e, taskId);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("get reindex task exception, task: %s", e, taskId);
+        }
+    }
+
+    private void checkFailures(JSONObject task, String taskId) {
+        JSONObject error = task.getJSONObject("error");
+        if (Objects.nonNull(error)) {
+            throw ExceptionUtils.epe("reindex failed, task: %s, error: %s", taskId, error);
+        }
+        JSONObject response = task.getJSONObject("response");
+        JSONArray failures = Objects.isNull(response) ? null : response.getJSONArray("failures");
+        if (Objects.nonNull(failures) && !failures.isEmpty()) {
+            throw ExceptionUtils.epe("reindex failed, task: %s, failures: %d, first failure: %s", taskId, failures.size(), failures.get(0));
+        }
+    }
+
+    private void cancel(String taskId) {
+        try {
+            perform(new Request(HttpPost.METHOD_NAME, "/_tasks/" + taskId + "/_cancel"));
+        } catch (Exception e) {
+            log.warn("cancel reindex task failed, task: {}", taskId, e);
+        }
+    }
+
+    private JSONObject perform(Request request) throws IOException {
+        Response response = restHighLevelClient.getLowLevelClient().performRequest(request);
+        return JSON.parseObject(EntityUtils.toString(response.getEntity()));
+    }
+
+    private void notify(ReindexProgress progress) {
+        try {
+            listener.accept(progress);
+        } catch (Exception e) {
+            log.warn("reindex progress listener failed", e);
+        }
+    }
+
+    private long elapsed() {
+        return System.currentTimeMillis() - startMillis;
+    }
+}
@@ -0,0 +1,156 @@
+package com.xwl.esplus.core.index;
+
+/**
+ * 重建索引进度
+ *
+ * @author xwl
+ * @since 2026/10/18 23:16
+ */
+public class ReindexProgress {
+    /**
+     * 重建索引阶段
+     */
+    public enum Phase {
+        /**
+         * 创建新版本索引
+         */
+        CREATE,
+        /**
+         * 全量复制
+         */
+        COPY,
+        /**
+         * 追平复制期间写入的增量，不阻塞写入
+         */
+        CATCH_UP,
+        /**
+         * 禁止源索引写入后，追平上一次追平期间写入的增量
+         */
+        FINAL_CATCH_UP,
+        /**
+         * 删除复制期间已从源索引删除的文档
+         */
+        DELETE,
+        /**
+         * 切换别名
+         */
+        SWAP,
+        /**
+         * 完成
+         */
+        DONE
+    }
+
+    /**
+     * 当前阶段
+     */
+    private final Phase phase;
+    /**
+     * 源索引
+     */
+    private final String source;
+    /**
+     * 新版本索引
+     */
+    private final String target;
+    /**
+     * 当前阶段需要处理的文档数
+     */
+    private final long total;
+    /**
+     * 新建的文档数
+     */
+    private final long created;
+    /**
+     * 更新的文档数
+     */
+    private final long updated;
+    /**
+     * 版本冲突（目标索引中已是相同或更新版本）的文档数
+     */
+    private final long versionConflicts;
+    /**
+     * 删除的文档数
+     */
+    private final long deleted;
+    /**
+     * 开始重建至今的耗时，单位毫秒
+     */
+    private final long elapsedMillis;
+
+    public ReindexProgress(Phase phase, String source, String target, long total, long created, long updated,
+                           long versionConflicts, long deleted, long elapsedMillis) {
+        this.phase = phase;
+        this.source = source;
+        this.target = target;
+        this.total = total;
+        this.created = created;
+        this.updated = updated;
+        this.versionConflicts = versionConflicts;
+        this.deleted = deleted;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 当前阶段已处理的文档数
+     *
+     * @return 已处理的文档数
+     */
+    public long getProcessed() {
+        return created + updated + versionConflicts + deleted;
+    }
+
+    /**
+     * 当前阶段的完成百分比
+     *
+     * @return 0-100
+     */
+    public double getPercent() {
+        if (total <= 0) {
+            return phase == Phase.CREATE || phase == Phase.SWAP || phase == Phase.DONE ? 100 : 0;
+        }
+        return Math.min(100, getProcessed() * 100.0 / total);
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getVersionConflicts() {
+        return versionConflicts;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s -> %s: %d/%d (%.1f%%), created: %d, updated: %d, version conflicts: %d, deleted: %d, elapsed: %dms",
+                phase, source, target, getProcessed(), total, getPercent(), created, updated, versionConflicts, deleted, elapsedMillis);
+    }
+}
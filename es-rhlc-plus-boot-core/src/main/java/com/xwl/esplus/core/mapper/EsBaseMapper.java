@@ -1,6 +1,15 @@
 package com.xwl.esplus.core.mapper;
 
+import com.xwl.esplus.core.aggregation.EsAggregations;
+import com.xwl.esplus.core.aggregation.EsBucket;
+import com.xwl.esplus.core.aggregation.EsCompositeIterator;
+import com.xwl.esplus.core.index.BulkLoadSession;
+import com.xwl.esplus.core.index.ReindexProgress;
+import com.xwl.esplus.core.page.CountInfo;
+import com.xwl.esplus.core.page.CursorPage;
+import com.xwl.esplus.core.page.EsScrollIterator;
 import com.xwl.esplus.core.page.PageInfo;
+import com.xwl.esplus.core.wrapper.condition.SFunction;
 import com.xwl.esplus.core.wrapper.index.EsLambdaIndexWrapper;
 import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
 import com.xwl.esplus.core.wrapper.update.EsLambdaUpdateWrapper;
@@ -8,6 +17,7 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 
@@ -15,6 +25,9 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 核心，继承该接口后，即可获得常用的CRUD功能
@@ -58,6 +71,45 @@ public interface EsBaseMapper<T> {
      */
     Boolean deleteIndex(String indexName);
 
+    /**
+     * 零停机重建索引：按wrapper中的mapping、settings创建新版本索引（索引名_v版本号），分片并行复制数据、
+     * 追平复制期间写入的增量并删除期间已删除的文档后，原子地将@EsDocument中的索引名（别名）切换到新版本索引；
+     * 最后一次追平、删除及切换期间源索引禁止写入（index.blocks.write），写请求会被拒绝，需由调用方重试；
+     * 未指定增量字段时每次追平都重新扫描全部文档，建议使用{@link #reindex(EsLambdaIndexWrapper, SFunction, Consumer)}指定增量字段；
+     * 首次重建时与别名同名的原索引会在切换时删除，之后的旧版本索引保留以便回滚
+     *
+     * @param wrapper 新版本索引的mapping、settings，其中的indexName、alias将被忽略
+     * @return 新版本索引名称
+     */
+    String reindex(EsLambdaIndexWrapper<T> wrapper);
+
+    /**
+     * 零停机重建索引，见{@link #reindex(EsLambdaIndexWrapper)}
+     *
+     * @param wrapper     新版本索引的mapping、settings，其中的indexName、alias将被忽略
+     * @param deltaColumn 记录文档最后写入时间的字段，追平时只复制上一阶段开始后写入的文档，强烈建议指定；
+     *                    为空时重新扫描全部文档，禁止写入的时间与文档总数成正比
+     * @param listener    进度回调，为空时输出日志
+     * @return 新版本索引名称
+     */
+    String reindex(EsLambdaIndexWrapper<T> wrapper, SFunction<T, ?> deltaColumn, Consumer<ReindexProgress> listener);
+
+    /**
+     * 打开批量导入会话：关闭索引的自动refresh、副本并使用异步translog，关闭会话时恢复原设置并refresh
+     * 原设置保存在索引mapping的_meta中，会话期间写操作不等待refresh，推荐使用try-with-resources；
+     * 进程在会话期间异常退出（如kill -9）时不会自动恢复，需在确认没有其它进程正在导入后调用restoreBulkLoad()，如在应用启动时调用
+     *
+     * @return 批量导入会话
+     */
+    BulkLoadSession bulkLoad();
+
+    /**
+     * 恢复异常退出的批量导入会话遗留的索引设置，只跳过本进程内仍打开的会话，其它进程正在导入的索引也会被恢复
+     *
+     * @return 恢复的索引数
+     */
+    Integer restoreBulkLoad();
+
     /**
      * 插入文档
      *
@@ -75,7 +127,7 @@ public interface EsBaseMapper<T> {
     Integer saveBatch(Collection<T> entityList);
 
     /**
-     * 根据条件更新文档
+     * 根据条件更新文档，entity为空时按wrapper中的更新内容更新，包含set以外的更新方式时通过脚本原子执行
      *
      * @param entity  es索引对应的实体类
      * @param wrapper 更新条件
@@ -83,6 +135,15 @@ public interface EsBaseMapper<T> {
      */
     Integer update(T entity, EsLambdaUpdateWrapper<T> wrapper);
 
+    /**
+     * 根据id按wrapper中的set、incr、decr、append、remove、setIfGreater更新文档，包含set以外的更新方式时通过脚本原子执行
+     *
+     * @param id      文档id
+     * @param wrapper 更新内容，其中的查询条件将被忽略
+     * @return 成功条数，文档不存在或没有字段变化时为0
+     */
+    Integer updateById(Serializable id, EsLambdaUpdateWrapper<T> wrapper);
+
     /**
      * 根据id更新文档
      *
@@ -149,6 +210,15 @@ public interface EsBaseMapper<T> {
      */
     Integer removeById(Serializable id);
 
+    /**
+     * 根据id及routing删除文档，见@EsRouting；未分区时直接删除，不需要先查询定位文档，可删除尚未refresh的文档
+     *
+     * @param id      文档主键
+     * @param routing routing，为空时同removeById(id)
+     * @return 成功条数
+     */
+    Integer removeById(Serializable id, String routing);
+
     /**
      * 根据id批量删除文档
      *
@@ -157,6 +227,15 @@ public interface EsBaseMapper<T> {
      */
     Integer removeByIds(Collection<? extends Serializable> idList);
 
+    /**
+     * 根据id及routing批量删除文档，见@EsRouting；未分区时直接删除，不需要先查询定位文档，可删除尚未refresh的文档
+     *
+     * @param idList  文档主键列表
+     * @param routing routing，为空时同removeByIds(idList)
+     * @return 成功条数
+     */
+    Integer removeByIds(Collection<? extends Serializable> idList, String routing);
+
     // TODO 新增、更新、删除后立马刷新、查询时参数可以是一段脚本代码
 
     /**
@@ -180,6 +259,8 @@ public interface EsBaseMapper<T> {
 
     /**
      * 条件查询返回SearchResponse
+     * <p>
+     * 使用查询结果缓存时返回的SearchResponse会被多个调用方共享，应视为只读
      *
      * @param wrapper 条件
      * @return SearchResponse
@@ -195,6 +276,35 @@ public interface EsBaseMapper<T> {
      */
     SearchResponse search(EsLambdaQueryWrapper<T> wrapper, boolean trackTotalHits);
 
+    /**
+     * 聚合查询，按wrapper中聚合的返回名称获取结果，指标值为double/long，topHits解析为实体；wrapper未指定size时不返回文档
+     *
+     * @param wrapper 条件
+     * @return 聚合结果
+     */
+    EsAggregations<T> aggregate(EsLambdaQueryWrapper<T> wrapper);
+
+    /**
+     * 基于composite聚合的全量分组：按after_key逐页获取桶，适用于高基数字段，内存占用与每页桶数有关而与总桶数无关；
+     * wrapper中的聚合作为每个桶的子聚合，桶的key通过EsBucket.getKey(分组字段名)获取
+     *
+     * @param wrapper  条件
+     * @param pageSize 每页桶数，为空时默认1000
+     * @param columns  分组字段，至少一个
+     * @return 桶迭代器
+     */
+    EsCompositeIterator<T> compositeIterator(EsLambdaQueryWrapper<T> wrapper, Integer pageSize, SFunction<T, ?>... columns);
+
+    /**
+     * 基于composite聚合的全量分组，返回惰性流，说明同compositeIterator
+     *
+     * @param wrapper  条件
+     * @param pageSize 每页桶数，为空时默认1000
+     * @param columns  分组字段，至少一个
+     * @return 桶流
+     */
+    Stream<EsBucket<T>> compositeStream(EsLambdaQueryWrapper<T> wrapper, Integer pageSize, SFunction<T, ?>... columns);
+
     /**
      * 获取SearchSourceBuilder
      *
@@ -219,13 +329,22 @@ public interface EsBaseMapper<T> {
     Long count();
 
     /**
-     * 获取总数
+     * 获取总数，按wrapper或全局配置的count-mode统计，近似统计超过上限时返回下限
      *
      * @param wrapper 条件
      * @return 总数
      */
     Long count(EsLambdaQueryWrapper<T> wrapper);
 
+    /**
+     * 获取总数及是否精确，按wrapper或全局配置的count-mode统计：
+     * EXACT精确统计；CACHED无查询条件时读取缓存的_cat/count；APPROXIMATE有查询条件时统计到上限为止（如：10000+）
+     *
+     * @param wrapper 条件
+     * @return 总数
+     */
+    CountInfo countInfo(EsLambdaQueryWrapper<T> wrapper);
+
     /**
      * 查询一条记录
      *
@@ -235,7 +354,7 @@ public interface EsBaseMapper<T> {
     T getOne(EsLambdaQueryWrapper<T> wrapper);
 
     /**
-     * 根据ID查询
+     * 根据ID查询（主键为_id时使用实时GET，可获取尚未refresh的文档）
      *
      * @param id 主键
      * @return 指定的返回对象
@@ -243,7 +362,16 @@ public interface EsBaseMapper<T> {
     T getById(Serializable id);
 
     /**
-     * 查询（根据ID集合批量查询）
+     * 根据ID及routing查询，见@EsRouting；未设置路由字段时getById(id)需要查询所有分片定位文档，指定routing时只请求routing所在的分片
+     *
+     * @param id      主键
+     * @param routing routing，为空时同getById(id)
+     * @return 指定的返回对象
+     */
+    T getById(Serializable id, String routing);
+
+    /**
+     * 查询（根据ID集合批量查询，主键为_id时使用分批并行_mget，结果按传入顺序返回）
      *
      * @param idList 主键列表
      * @return 指定的返回对象列表
@@ -319,4 +447,61 @@ public interface EsBaseMapper<T> {
      * @return 分页对象（Map<String, Object>）
      */
     PageInfo<Map<String, Object>> pageMaps(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize);
+
+    /**
+     * 游标分页查询（search_after），适用于深度分页，不受index.max_result_window限制
+     * 自动追加主键排序作为唯一排序依据，wrapper中的from将被忽略
+     *
+     * @param wrapper 条件
+     * @param cursor  游标，查询第一页时传null，之后传上一页返回的nextCursor
+     * @param size    每页条数
+     * @return 游标分页对象
+     */
+    CursorPage<T> pageAfter(EsLambdaQueryWrapper<T> wrapper, String cursor, Integer size);
+
+    /**
+     * scroll遍历：返回惰性迭代器，消费当前批次时异步预取下一批，适用于全量遍历索引
+     * 使用完毕后必须调用close（推荐try-with-resources），以清除scroll上下文
+     *
+     * @param wrapper   条件，其中的from将被忽略
+     * @param batchSize 每批条数，为空时默认1000
+     * @param keepAlive scroll上下文保持时间，为空时默认1m
+     * @return scroll迭代器
+     */
+    EsScrollIterator<T> scrollIterator(EsLambdaQueryWrapper<T> wrapper, Integer batchSize, TimeValue keepAlive);
+
+    /**
+     * scroll遍历：返回惰性流，消费当前批次时异步预取下一批，适用于全量遍历索引
+     * 使用完毕后必须关闭流（推荐try-with-resources），以清除scroll上下文
+     *
+     * @param wrapper   条件，其中的from将被忽略
+     * @param batchSize 每批条数，为空时默认1000
+     * @param keepAlive scroll上下文保持时间，为空时默认1m
+     * @return 实体流
+     */
+    Stream<T> scrollStream(EsLambdaQueryWrapper<T> wrapper, Integer batchSize, TimeValue keepAlive);
+
+    /**
+     * 并行分片scroll遍历（sliced scroll）：每个分片在独立线程中遍历并解析，按批回调consumer
+     * 使用每个分片一个线程的临时线程池，遍历结束后关闭
+     *
+     * @param wrapper  条件，其中的from将被忽略
+     * @param slices   分片数，建议不超过索引主分片数
+     * @param consumer 批次消费者，会被多个线程并发调用，必须线程安全
+     * @return 遍历的文档总数
+     */
+    long parallelScan(EsLambdaQueryWrapper<T> wrapper, int slices, Consumer<List<T>> consumer);
+
+    /**
+     * 并行分片scroll遍历（sliced scroll）：每个分片在独立线程中遍历并解析，按批回调consumer
+     * 任一分片失败时取消其余分片，所有分片的scroll上下文在结束、取消或异常时均会清除
+     *
+     * @param wrapper   条件，其中的from将被忽略
+     * @param slices    分片数，建议不超过索引主分片数
+     * @param batchSize 每批条数，为空时默认1000
+     * @param executor  执行分片遍历的线程池
+     * @param consumer  批次消费者，会被多个线程并发调用，必须线程安全
+     * @return 遍历的文档总数
+     */
+    long parallelScan(EsLambdaQueryWrapper<T> wrapper, int slices, Integer batchSize, Executor executor, Consumer<List<T>> consumer);
 }
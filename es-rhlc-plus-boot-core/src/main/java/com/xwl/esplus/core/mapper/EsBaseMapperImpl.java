@@ -1,77 +1,134 @@
 package com.xwl.esplus.core.mapper;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
-import com.alibaba.fastjson.TypeReference;
 import com.alibaba.fastjson.parser.deserializer.ExtraProcessor;
 import com.alibaba.fastjson.serializer.SerializeFilter;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.alibaba.fastjson.serializer.SimplePropertyPreFilter;
+import com.xwl.esplus.core.aggregation.EsAggregations;
+import com.xwl.esplus.core.aggregation.EsBucket;
+import com.xwl.esplus.core.aggregation.EsCompositeIterator;
 import com.xwl.esplus.core.cache.BaseCache;
+import com.xwl.esplus.core.cache.EsNearCache;
+import com.xwl.esplus.core.cache.EsQueryCache;
+import com.xwl.esplus.core.cache.EsSingleFlight;
 import com.xwl.esplus.core.cache.GlobalConfigCache;
 import com.xwl.esplus.core.config.GlobalConfig;
 import com.xwl.esplus.core.constant.EsConstants;
+import com.xwl.esplus.core.enums.EsCountModeEnum;
 import com.xwl.esplus.core.enums.EsFieldStrategyEnum;
 import com.xwl.esplus.core.enums.EsFieldTypeEnum;
 import com.xwl.esplus.core.enums.EsKeyTypeEnum;
+import com.xwl.esplus.core.enums.EsRefreshPolicy;
+import com.xwl.esplus.core.http.EsRequestTypeContextHolder;
+import com.xwl.esplus.core.index.BulkLoadSession;
+import com.xwl.esplus.core.index.EsReindexer;
+import com.xwl.esplus.core.index.ReindexProgress;
 import com.xwl.esplus.core.metadata.DocumentFieldInfo;
 import com.xwl.esplus.core.metadata.DocumentInfo;
+import com.xwl.esplus.core.page.CountInfo;
+import com.xwl.esplus.core.page.CursorPage;
+import com.xwl.esplus.core.page.EsScrollIterator;
 import com.xwl.esplus.core.page.PageInfo;
+import com.xwl.esplus.core.partition.EsIndexPartitioner;
+import com.xwl.esplus.core.param.EsBaseParam;
 import com.xwl.esplus.core.param.EsIndexParam;
 import com.xwl.esplus.core.param.EsIndexSettingParam;
 import com.xwl.esplus.core.param.EsUpdateParam;
 import com.xwl.esplus.core.toolkit.*;
+import com.xwl.esplus.core.wrapper.condition.SFunction;
 import com.xwl.esplus.core.wrapper.index.EsLambdaIndexWrapper;
 import com.xwl.esplus.core.wrapper.processor.EsWrapperProcessor;
 import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
 import com.xwl.esplus.core.wrapper.update.EsLambdaUpdateWrapper;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.admin.indices.alias.Alias;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.core.CountRequest;
 import org.elasticsearch.client.core.CountResponse;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.PutIndexTemplateRequest;
 import org.elasticsearch.client.indices.PutMappingRequest;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.Script;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.xwl.esplus.core.constant.EsConstants.EMPTY_STR;
-import static com.xwl.esplus.core.wrapper.processor.EsWrapperProcessor.buildBoolQueryBuilder;
-import static com.xwl.esplus.core.wrapper.processor.EsWrapperProcessor.buildSearchSourceBuilder;
+import static com.xwl.esplus.core.wrapper.processor.EsWrapperProcessor.optimizeQuery;
 
 /**
  * 核心，EsBaseMapper接口实现，获得常用的CRUD功能，（需要和EsWrapper类在同一包下，因为EsWrapper类中的属性是protected）
@@ -98,6 +155,36 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
      */
     private RestHighLevelClient restHighLevelClient;
 
+    /**
+     * 请求合并
+     */
+    private EsSingleFlight singleFlight;
+
+    /**
+     * getById批量加载器，按客户端区分（动态数据源切换时客户端不同）
+     */
+    private final Map<RestHighLevelClient, EsBatchLoader<MultiGetItemResponse>> getByIdLoaders = new ConcurrentHashMap<>();
+
+    /**
+     * 合并刷新调度器，按客户端区分，同一客户端的所有mapper共享，保证每个索引的refresh频率不超过配置的间隔
+     */
+    private static final Map<RestHighLevelClient, EsRefreshCoalescer> REFRESH_COALESCERS = new ConcurrentHashMap<>();
+
+    /**
+     * n-gram子字段检查失败后的重试间隔（单位：ms）
+     */
+    private static final long NGRAM_CHECK_RETRY_MILLIS = 30000L;
+
+    /**
+     * 客户端 -> 读索引（别名或分区）mapping中已有n-gram子字段的字段，检查成功后才记录；切换数据源时按客户端分别检查
+     */
+    private final Map<RestHighLevelClient, Set<String>> ngramReadyColumns = new ConcurrentHashMap<>();
+
+    /**
+     * 客户端 -> n-gram子字段最近一次检查失败的时间
+     */
+    private final Map<RestHighLevelClient, Long> ngramCheckFailedAt = new ConcurrentHashMap<>();
+
     public void setEntityClass(Class<T> entityClass) {
         this.entityClass = entityClass;
     }
@@ -110,6 +197,28 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         this.restHighLevelClient = restHighLevelClient;
     }
 
+    public void setSingleFlight(EsSingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * 获取getById批量加载器，用于查看批量加载统计指标
+     *
+     * @return 批量加载器
+     */
+    public Collection<EsBatchLoader<MultiGetItemResponse>> getByIdLoaders() {
+        return Collections.unmodifiableCollection(getByIdLoaders.values());
+    }
+
+    /**
+     * 获取合并刷新调度器，用于查看合并刷新统计指标
+     *
+     * @return 合并刷新调度器
+     */
+    public static Collection<EsRefreshCoalescer> refreshCoalescers() {
+        return Collections.unmodifiableCollection(REFRESH_COALESCERS.values());
+    }
+
     @Override
     public void setRestHighLevelClient() {
         String peek = DynamicClientContextHolder.peek();
@@ -140,41 +249,63 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
                     createIndexRequest.alias(alias);
                 });
 
-        // settings
-        Settings.Builder settings = Settings.builder();
-        EsIndexSettingParam settingParam = wrapper.getSetting();
-        if (Objects.nonNull(settingParam)) {
-            // 分片数
-            Optional.ofNullable(settingParam.getNumberOfShards())
-                    .ifPresent(shards -> settings.put(EsConstants.NUMBER_OF_SHARDS, shards));
-            // 副本数
-            Optional.ofNullable(settingParam.getNumberOfReplicas())
-                    .ifPresent(replicas -> settings.put(EsConstants.NUMBER_OF_REPLICAS, replicas));
-            // 自定义分词器（包含分词器、分词过滤器等）
-            Optional.ofNullable(settingParam.getAnalysis())
-                    .ifPresent(analysis -> settings.loadFromSource(JSONObject.toJSONString(analysis), XContentType.JSON));
-            createIndexRequest.settings(settings);
-        }
-
         // mappings
-        Map<String, Object> mapping;
+        Map<String, Object> mapping = null;
+        // 是否添加了n-gram子字段，添加时需要同时添加对应的分词器
+        boolean ngram = false;
         if (Objects.isNull(wrapper.getMapping())) {
             List<EsIndexParam> indexParamList = wrapper.getEsIndexParamList();
             if (CollectionUtils.isNotEmpty(indexParamList)) {
                 // 根据参数构建索引mapping
                 mapping = buildMapping(indexParamList);
+                ngram = NgramUtils.addSubFields(mapping, DocumentInfoUtils.getDocumentInfo(entityClass).getNgramColumnSet());
+                // 设置了路由字段时要求写入必须指定routing，避免文档写入错误的分片
+                if (Objects.nonNull(getRoutingField())) {
+                    mapping.put(EsConstants.ROUTING, Collections.singletonMap(EsConstants.REQUIRED, true));
+                }
                 createIndexRequest.mapping(mapping);
             }
         } else {
-            // 手动指定mapping，优先级高
-            mapping = wrapper.getMapping();
+            // 手动指定mapping，优先级高；复制后再添加n-gram子字段，不修改调用方的mapping
+            mapping = JSON.parseObject(JSON.toJSONString(wrapper.getMapping()));
+            ngram = NgramUtils.addSubFields(mapping, DocumentInfoUtils.getDocumentInfo(entityClass).getNgramColumnSet());
             createIndexRequest.mapping(mapping);
         }
 
+        // settings
+        Settings.Builder settings = Settings.builder();
+        EsIndexSettingParam settingParam = wrapper.getSetting();
+        if (Objects.nonNull(settingParam) || ngram) {
+            Optional.ofNullable(settingParam).ifPresent(param -> {
+                // 分片数
+                Optional.ofNullable(param.getNumberOfShards())
+                        .ifPresent(shards -> settings.put(EsConstants.NUMBER_OF_SHARDS, shards));
+                // 副本数
+                Optional.ofNullable(param.getNumberOfReplicas())
+                        .ifPresent(replicas -> settings.put(EsConstants.NUMBER_OF_REPLICAS, replicas));
+            });
+            // 自定义分词器（包含分词器、分词过滤器等）
+            Map<String, Object> analysis = Objects.isNull(settingParam) ? null : settingParam.getAnalysis();
+            if (ngram) {
+                analysis = NgramUtils.buildAnalysis(analysis);
+            }
+            Optional.ofNullable(analysis)
+                    .ifPresent(param -> settings.loadFromSource(JSONObject.toJSONString(param), XContentType.JSON));
+            createIndexRequest.settings(settings);
+        }
+
         try {
+            // 分区索引按写入自动创建，只需创建匹配全部分区的索引模板
+            EsIndexPartitioner partitioner = getPartitioner();
+            if (Objects.nonNull(partitioner) && Objects.equals(wrapper.getIndexName(), partitioner.getIndexName())) {
+                boolean acknowledged = putPartitionTemplate(partitioner, mapping, settings, wrapper.getAlias());
+                resetNgramCheck();
+                return acknowledged;
+            }
             CreateIndexResponse response = restHighLevelClient.indices().create(createIndexRequest, RequestOptions.DEFAULT);
             boolean acknowledged = response.isAcknowledged();
             log.info("create index [{}] result: {}", wrapper.getIndexName(), acknowledged);
+            resetNgramCheck();
             return acknowledged;
         } catch (IOException e) {
             throw ExceptionUtils.epe("create index exception, indexName: %s", e, wrapper.getIndexName());
@@ -189,29 +320,186 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         }
 
         PutMappingRequest putMappingRequest = new PutMappingRequest(wrapper.getIndexName());
+        Map<String, Object> mapping;
         if (Objects.isNull(wrapper.getMapping())) {
             if (CollectionUtils.isEmpty(wrapper.getEsIndexParamList())) {
                 // 空参数列表，不更新
                 return false;
             }
             // 根据参数构建索引mapping
-            Map<String, Object> mapping = buildMapping(wrapper.getEsIndexParamList());
-            putMappingRequest.source(mapping);
+            mapping = buildMapping(wrapper.getEsIndexParamList());
         } else {
-            // 手动指定mapping，优先级高
-            putMappingRequest.source(wrapper.getMapping());
+            // 手动指定mapping，优先级高；复制后再添加n-gram子字段，不修改调用方的mapping
+            mapping = JSON.parseObject(JSON.toJSONString(wrapper.getMapping()));
+        }
+        // 分词器只能在关闭索引后添加，索引已有n-gram分词器时才添加子字段，否则需重建索引
+        Set<String> ngramColumns = DocumentInfoUtils.getDocumentInfo(entityClass).getNgramColumnSet();
+        if (CollectionUtils.isNotEmpty(ngramColumns)) {
+            if (NgramUtils.containsAnalyzers(getAnalyzers(wrapper.getIndexName()))) {
+                NgramUtils.addSubFields(mapping, ngramColumns);
+            } else {
+                log.warn("index [{}] has no n-gram analyzers, reindex is required to enable n-gram like queries", wrapper.getIndexName());
+            }
         }
+        putMappingRequest.source(mapping);
 
         try {
             AcknowledgedResponse response = restHighLevelClient.indices().putMapping(putMappingRequest, RequestOptions.DEFAULT);
             boolean acknowledged = response.isAcknowledged();
             log.info("update index [{}] result: {}", wrapper.getIndexName(), acknowledged);
+            resetNgramCheck();
             return acknowledged;
         } catch (IOException e) {
             throw ExceptionUtils.epe("update index exception, indexName: %s", e, wrapper.getIndexName());
         }
     }
 
+    /**
+     * 获取索引已有的分词器名称，indexName为别名时取所有索引共有的分词器
+     *
+     * @param indexName 索引名称
+     * @return 分词器名称
+     */
+    private Set<String> getAnalyzers(String indexName) {
+        GetSettingsRequest request = new GetSettingsRequest().indices(indexName);
+        try {
+            GetSettingsResponse response = restHighLevelClient.indices().getSettings(request, RequestOptions.DEFAULT);
+            Set<String> analyzers = null;
+            Iterator<Settings> iterator = response.getIndexToSettings().valuesIt();
+            while (iterator.hasNext()) {
+                Set<String> names = iterator.next().getGroups(EsConstants.ANALYSIS + ".analyzer").keySet();
+                if (Objects.isNull(analyzers)) {
+                    analyzers = new HashSet<>(names);
+                } else {
+                    analyzers.retainAll(names);
+                }
+            }
+            return Optional.ofNullable(analyzers).orElse(Collections.emptySet());
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("get index settings exception, indexName: %s", e, indexName);
+        }
+    }
+
+    /**
+     * 创建、更新索引或切换别名后，清除当前客户端的n-gram子字段检查结果，下次查询时重新检查读索引的mapping；
+     * 新建的索引（如重建索引的新版本、分区模板）不是读索引时，like查询仍按读索引实际的mapping决定是否改写
+     */
+    private void resetNgramCheck() {
+        ngramReadyColumns.remove(restHighLevelClient);
+        ngramCheckFailedAt.remove(restHighLevelClient);
+    }
+
+    /**
+     * 获取当前客户端读索引mapping中已有n-gram子字段的字段，每个客户端检查成功后不再检查；检查失败时like查询不改写，间隔一段时间后重试
+     *
+     * @return 字段（es字段名称）
+     */
+    private Set<String> getNgramReadyColumns() {
+        RestHighLevelClient client = restHighLevelClient;
+        Set<String> readyColumns = ngramReadyColumns.get(client);
+        if (Objects.nonNull(readyColumns)) {
+            return readyColumns;
+        }
+        Long failedAt = ngramCheckFailedAt.get(client);
+        if (Objects.nonNull(failedAt) && System.currentTimeMillis() - failedAt < NGRAM_CHECK_RETRY_MILLIS) {
+            return Collections.emptySet();
+        }
+        readyColumns = checkNgramSubFields(client);
+        if (Objects.isNull(readyColumns)) {
+            ngramCheckFailedAt.put(client, System.currentTimeMillis());
+            return Collections.emptySet();
+        }
+        ngramCheckFailedAt.remove(client);
+        ngramReadyColumns.put(client, readyColumns);
+        return readyColumns;
+    }
+
+    /**
+     * 检查读索引（别名指向的索引或全部分区）mapping中已有n-gram子字段的字段
+     *
+     * @param client es客户端
+     * @return 字段（es字段名称），请求失败或没有匹配的索引时返回null
+     */
+    private Set<String> checkNgramSubFields(RestHighLevelClient client) {
+        Set<String> ngramColumns = DocumentInfoUtils.getDocumentInfo(entityClass).getNgramColumnSet();
+        if (CollectionUtils.isEmpty(ngramColumns)) {
+            return Collections.emptySet();
+        }
+        String readIndexName = Optional.ofNullable(getPartitioner()).map(EsIndexPartitioner::getPattern).orElse(getIndexName());
+        JSONObject indices;
+        try {
+            Request request = new Request(HttpGet.METHOD_NAME, "/" + readIndexName + "/_mapping");
+            Response response = client.getLowLevelClient().performRequest(request);
+            indices = JSON.parseObject(EntityUtils.toString(response.getEntity()));
+        } catch (IOException e) {
+            log.warn("check n-gram sub fields of index [{}] failed, like queries use wildcard", readIndexName, e);
+            return null;
+        }
+        if (Objects.isNull(indices) || indices.isEmpty()) {
+            return null;
+        }
+        // 别名指向多个索引或分区索引时，须所有索引都有子字段
+        Set<String> readyColumns = null;
+        for (String index : indices.keySet()) {
+            Set<String> columns = NgramUtils.getSubFieldColumns(
+                    indices.getJSONObject(index).getJSONObject(EsConstants.MAPPINGS), ngramColumns);
+            if (Objects.isNull(readyColumns)) {
+                readyColumns = columns;
+            } else {
+                readyColumns.retainAll(columns);
+            }
+        }
+        return readyColumns;
+    }
+
+    /**
+     * 构建查询参数，构建前确认n-gram子字段是否存在
+     *
+     * @param wrapper     查询条件
+     * @param entityClass es索引对应的实体类
+     * @return SearchSourceBuilder
+     */
+    private SearchSourceBuilder buildSearchSourceBuilder(EsLambdaQueryWrapper<T> wrapper, Class<T> entityClass) {
+        return NgramUtils.withReadyColumns(getNgramReadyColumns(), () -> EsWrapperProcessor.buildSearchSourceBuilder(wrapper, entityClass));
+    }
+
+    /**
+     * 构建查询参数，构建前确认n-gram子字段是否存在
+     *
+     * @param wrapper     查询条件
+     * @param entityClass es索引对应的实体类
+     * @param withoutHits 是否不返回文档（size=0）
+     * @return SearchSourceBuilder
+     */
+    private SearchSourceBuilder buildSearchSourceBuilder(EsLambdaQueryWrapper<T> wrapper, Class<T> entityClass, boolean withoutHits) {
+        return NgramUtils.withReadyColumns(getNgramReadyColumns(),
+                () -> EsWrapperProcessor.buildSearchSourceBuilder(wrapper, entityClass, withoutHits));
+    }
+
+    /**
+     * 构建bool查询，构建前确认n-gram子字段是否存在
+     *
+     * @param wrapper     查询条件
+     * @param entityClass es索引对应的实体类
+     * @return BoolQueryBuilder
+     */
+    private BoolQueryBuilder buildBoolQueryBuilder(EsLambdaQueryWrapper<T> wrapper, Class<T> entityClass) {
+        return NgramUtils.withReadyColumns(getNgramReadyColumns(), () -> EsWrapperProcessor.buildBoolQueryBuilder(wrapper, entityClass));
+    }
+
+    /**
+     * 构建bool查询，构建前确认n-gram子字段是否存在
+     *
+     * @param baseParamList     基础参数列表
+     * @param enableMust2Filter 是否开启must条件转filter
+     * @param entityClass       es索引对应的实体类
+     * @return BoolQueryBuilder
+     */
+    private BoolQueryBuilder buildBoolQueryBuilder(List<EsBaseParam> baseParamList, Boolean enableMust2Filter, Class<T> entityClass) {
+        return NgramUtils.withReadyColumns(getNgramReadyColumns(),
+                () -> EsWrapperProcessor.buildBoolQueryBuilder(baseParamList, enableMust2Filter, entityClass));
+    }
+
     @Override
     public Boolean deleteIndex(String indexName) {
         if (StringUtils.isBlank(indexName)) {
@@ -225,7 +513,72 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
             return response.isAcknowledged();
         } catch (IOException e) {
             throw ExceptionUtils.epe("delete index exception, indexName: %s", e, indexName);
+        } finally {
+            invalidateCache(indexName);
+        }
+    }
+
+    @Override
+    public String reindex(EsLambdaIndexWrapper<T> wrapper) {
+        return reindex(wrapper, null, null);
+    }
+
+    @Override
+    public String reindex(EsLambdaIndexWrapper<T> wrapper, SFunction<T, ?> deltaColumn, Consumer<ReindexProgress> listener) {
+        if (Objects.nonNull(getPartitioner())) {
+            throw ExceptionUtils.epe("reindex is not supported for partitioned index, indexName: %s", getIndexName());
+        }
+        String alias = getIndexName();
+        EsReindexer reindexer = new EsReindexer(restHighLevelClient, alias, listener);
+        String source = reindexer.getSourceIndex();
+        if (Objects.isNull(source)) {
+            throw ExceptionUtils.epe("index not exists, indexName: %s", alias);
+        }
+        String target = reindexer.nextIndexName();
+        // 复制一份wrapper指定新版本索引名称，不修改调用方的wrapper
+        EsLambdaIndexWrapper<T> targetWrapper = new EsLambdaIndexWrapper<T>(wrapper.getEntity()).indexName(target);
+        Optional.ofNullable(wrapper.getSetting()).ifPresent(targetWrapper::settings);
+        Optional.ofNullable(wrapper.getMapping()).ifPresent(targetWrapper::mapping);
+        targetWrapper.getEsIndexParamList().addAll(wrapper.getEsIndexParamList());
+        if (!Boolean.TRUE.equals(createIndex(targetWrapper))) {
+            throw ExceptionUtils.epe("create reindex target failed, indexName: %s", target);
+        }
+        reindexer.created(source, target);
+
+        String deltaField = null;
+        if (Objects.nonNull(deltaColumn)) {
+            DocumentInfo documentInfo = DocumentInfoUtils.getDocumentInfo(entityClass);
+            deltaField = FieldUtils.getRealField(FieldUtils.getFieldName(deltaColumn), documentInfo.getFieldColumnMap(),
+                    GlobalConfigCache.getGlobalConfig().getDocumentConfig());
+        }
+        boolean swapped = false;
+        try {
+            // 复制期间放宽新索引的refresh、副本设置，切换别名前恢复并refresh
+            try (BulkLoadSession ignored = BulkLoadSession.open(restHighLevelClient, target)) {
+                reindexer.copy(source, target, deltaField);
+            }
+            reindexer.swap(source, target);
+            swapped = true;
+            // 别名已指向新索引，重新检查n-gram子字段
+            resetNgramCheck();
+        } finally {
+            // 最终追平前源索引已禁止写入：失败时恢复写入；切换后保留的源索引也恢复写入以便回滚，与别名同名的源索引已删除
+            if (!swapped || !Objects.equals(source, alias)) {
+                reindexer.unblockWrites(source);
+            }
         }
+        invalidateCache(alias);
+        return target;
+    }
+
+    @Override
+    public BulkLoadSession bulkLoad() {
+        return BulkLoadSession.open(restHighLevelClient, getBulkLoadTarget());
+    }
+
+    @Override
+    public Integer restoreBulkLoad() {
+        return BulkLoadSession.restore(restHighLevelClient, getBulkLoadTarget());
     }
 
     @Override
@@ -234,18 +587,24 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         indexRequest.setRefreshPolicy(getRefreshPolicy());
         try {
             IndexResponse indexResponse = restHighLevelClient.index(indexRequest, RequestOptions.DEFAULT);
+            int result;
             if (Objects.equals(indexResponse.status(), RestStatus.CREATED)) {
                 // 插入成功，设置文档实体的id
                 setId(entity, indexResponse.getId());
-                return EsConstants.ONE;
+                result = EsConstants.ONE;
             } else if (Objects.equals(indexResponse.status(), RestStatus.OK)) {
                 // id已存在，相当于更新
-                return EsConstants.ZERO;
+                result = EsConstants.ZERO;
             } else {
                 throw ExceptionUtils.epe("insert failed, result: %s, entity: %s", indexResponse.getResult(), JSONObject.toJSONString(entity));
             }
+            awaitRefresh(Collections.singleton(indexResponse.getIndex()));
+            return result;
         } catch (IOException e) {
             throw ExceptionUtils.epe("insert exception, entity: %s", e, JSONObject.toJSONString(entity));
+        } finally {
+            // 自动生成id时近端缓存中不会有该文档，但仍需失效查询结果缓存
+            invalidateCache(Objects.nonNull(indexRequest.id()) ? Collections.singletonList(indexRequest.id()) : Collections.emptyList());
         }
     }
 
@@ -268,34 +627,86 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         if (Objects.isNull(entity) && CollectionUtils.isEmpty(wrapper.getUpdateParamList())) {
             return EsConstants.ZERO;
         }
+        if (Objects.nonNull(entity) && wrapper.isScripted()) {
+            throw ExceptionUtils.epe("script update can not be used with entity, pass null entity to update by wrapper");
+        }
 
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
         BoolQueryBuilder boolQueryBuilder = buildBoolQueryBuilder(wrapper.getBaseParamList(), wrapper.getEnableMust2Filter(), entityClass);
-        searchSourceBuilder.query(boolQueryBuilder);
+        searchSourceBuilder.query(optimizeQuery(boolQueryBuilder, false, entityClass));
         searchRequest.source(searchSourceBuilder);
-        // 根据条件查询要更新的id集合
-        List<String> ids = this.selectIds(searchRequest);
+        // 根据条件查询要更新的id及所在索引、routing
+        Map<String, DocumentLocation> ids = this.selectIds(searchRequest);
         if (CollectionUtils.isEmpty(ids)) {
             return EsConstants.ZERO;
         }
 
-        // 更新文档内容
-        String jsonData = Optional.ofNullable(entity)
-                .map(this::buildJsonSource)
-                .orElseGet(() -> buildJsonDoc(wrapper));
+        // 更新文档内容，包含脚本更新时所有文档共用同一脚本
+        Script script = null;
+        String jsonData = null;
+        if (Objects.isNull(entity) && wrapper.isScripted()) {
+            script = buildScript(wrapper);
+        } else {
+            jsonData = Optional.ofNullable(entity)
+                    .map(this::buildJsonSource)
+                    .orElseGet(() -> buildJsonDoc(wrapper));
+        }
         BulkRequest bulkRequest = new BulkRequest();
         bulkRequest.setRefreshPolicy(getRefreshPolicy());
-        String indexName = getIndexName();
-        ids.forEach(id -> {
+        for (Map.Entry<String, DocumentLocation> entry : ids.entrySet()) {
             UpdateRequest updateRequest = new UpdateRequest();
-            updateRequest.id(id).index(indexName);
-            updateRequest.doc(jsonData, XContentType.JSON);
+            entry.getValue().applyTo(updateRequest.id(entry.getKey()));
+            if (Objects.nonNull(script)) {
+                updateRequest.script(script);
+            } else {
+                updateRequest.doc(jsonData, XContentType.JSON);
+            }
             bulkRequest.add(updateRequest);
-        });
+        }
         return doBulkRequest(bulkRequest, RequestOptions.DEFAULT);
     }
 
+    @Override
+    public Integer updateById(Serializable id, EsLambdaUpdateWrapper<T> wrapper) {
+        if (Objects.isNull(id) || StringUtils.isBlank(id.toString())) {
+            throw ExceptionUtils.epe("id can not be null or empty");
+        }
+        if (CollectionUtils.isEmpty(wrapper.getUpdateParamList())) {
+            return EsConstants.ZERO;
+        }
+        String idValue = id.toString();
+        DocumentLocation location = locateDocuments(Collections.singletonList(idValue), wrapper.getRouting()).get(idValue);
+        if (Objects.isNull(location)) {
+            return EsConstants.ZERO;
+        }
+        UpdateRequest updateRequest = new UpdateRequest();
+        location.applyTo(updateRequest.id(idValue));
+        if (wrapper.isScripted()) {
+            updateRequest.script(buildScript(wrapper));
+        } else {
+            updateRequest.doc(buildJsonDoc(wrapper), XContentType.JSON);
+        }
+        updateRequest.setRefreshPolicy(getRefreshPolicy());
+        try {
+            UpdateResponse updateResponse = restHighLevelClient.update(updateRequest, RequestOptions.DEFAULT);
+            // 脚本判断没有字段变化时结果为NOOP
+            int result = Objects.equals(updateResponse.getResult(), DocWriteResponse.Result.UPDATED) ? EsConstants.ONE : EsConstants.ZERO;
+            awaitRefresh(Collections.singleton(updateResponse.getIndex()));
+            return result;
+        } catch (ElasticsearchStatusException e) {
+            // 直接更新（未定位文档）或定位后文档已被删除时，文档不存在视为未更新
+            if (Objects.equals(e.status(), RestStatus.NOT_FOUND)) {
+                return EsConstants.ZERO;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("updateById exception, id: %s", e, idValue);
+        } finally {
+            invalidateCache(Collections.singletonList(idValue));
+        }
+    }
+
     @Override
     public Integer updateById(T entity) {
         String idValue = getIdValue(entityClass, entity);
@@ -303,13 +714,14 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         updateRequest.setRefreshPolicy(getRefreshPolicy());
         try {
             UpdateResponse updateResponse = restHighLevelClient.update(updateRequest, RequestOptions.DEFAULT);
-            if (Objects.equals(updateResponse.status(), RestStatus.OK)) {
-                return EsConstants.ONE;
-            }
+            int result = Objects.equals(updateResponse.status(), RestStatus.OK) ? EsConstants.ONE : EsConstants.ZERO;
+            awaitRefresh(Collections.singleton(updateResponse.getIndex()));
+            return result;
         } catch (IOException e) {
             throw ExceptionUtils.epe("updateById exception, entity: %s", e, JSONObject.toJSONString(entity));
+        } finally {
+            invalidateCache(Collections.singletonList(idValue));
         }
-        return EsConstants.ZERO;
     }
 
     @Override
@@ -322,13 +734,17 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         }
         try {
             UpdateResponse updateResponse = restHighLevelClient.update(updateRequest, RequestOptions.DEFAULT);
-            if (Objects.equals(updateResponse.status(), RestStatus.OK)) {
-                return EsConstants.ONE;
+            int result = Objects.equals(updateResponse.status(), RestStatus.OK) ? EsConstants.ONE : EsConstants.ZERO;
+            // 指定了刷新策略时按指定的策略
+            if (Objects.isNull(refreshPolicy)) {
+                awaitRefresh(Collections.singleton(updateResponse.getIndex()));
             }
+            return result;
         } catch (IOException e) {
             throw ExceptionUtils.epe("updateById exception, entity: %s", e, JSONObject.toJSONString(entity));
+        } finally {
+            invalidateCache(Collections.singletonList(idValue));
         }
-        return EsConstants.ZERO;
     }
 
     @Override
@@ -431,63 +847,82 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public Integer remove(EsLambdaQueryWrapper<T> wrapper) {
-        List<T> list = this.list(wrapper);
-        if (CollectionUtils.isEmpty(list)) {
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().fetchSource(false);
+        BoolQueryBuilder boolQueryBuilder = buildBoolQueryBuilder(wrapper.getBaseParamList(), wrapper.getEnableMust2Filter(), entityClass);
+        searchSourceBuilder.query(optimizeQuery(boolQueryBuilder, false, entityClass));
+        // 与list一致，按wrapper的from、size限定删除范围
+        Optional.ofNullable(wrapper.getFrom()).ifPresent(searchSourceBuilder::from);
+        Optional.ofNullable(wrapper.getSize()).ifPresent(searchSourceBuilder::size);
+        searchRequest.source(searchSourceBuilder);
+        // 不经过查询结果缓存，一次查询同时获取要删除的id及所在索引、routing
+        Map<String, DocumentLocation> locations = selectIds(searchRequest);
+        if (CollectionUtils.isEmpty(locations)) {
             return EsConstants.ZERO;
         }
         BulkRequest bulkRequest = new BulkRequest();
         bulkRequest.setRefreshPolicy(getRefreshPolicy());
-        Method getId = BaseCache.getEsEntityGetterMethod(entityClass, getRealIdFieldName());
-        list.forEach(entity -> {
-            try {
-                Object id = getId.invoke(entity);
-                if (Objects.nonNull(id)) {
-                    DeleteRequest deleteRequest = new DeleteRequest();
-                    deleteRequest.id(id.toString());
-                    deleteRequest.index(getIndexName());
-                    bulkRequest.add(deleteRequest);
-                }
-            } catch (Exception e) {
-                throw ExceptionUtils.epe("delete exception, indexName: %s", e, getIndexName());
-            }
+        locations.forEach((id, location) -> {
+            DeleteRequest deleteRequest = new DeleteRequest();
+            location.applyTo(deleteRequest.id(id));
+            bulkRequest.add(deleteRequest);
         });
         return doBulkRequest(bulkRequest, RequestOptions.DEFAULT);
     }
 
     @Override
     public Integer removeById(Serializable id) {
+        return removeById(id, null);
+    }
+
+    @Override
+    public Integer removeById(Serializable id, String routing) {
         if (Objects.isNull(id) || StringUtils.isBlank(id.toString())) {
             throw ExceptionUtils.epe("id can not be null or empty");
         }
+        DocumentLocation location = locateDocuments(Collections.singletonList(id.toString()), routing).get(id.toString());
+        if (Objects.isNull(location)) {
+            return EsConstants.ZERO;
+        }
         DeleteRequest deleteRequest = new DeleteRequest();
         deleteRequest.setRefreshPolicy(getRefreshPolicy());
-        deleteRequest.id(id.toString());
-        deleteRequest.index(getIndexName());
+        location.applyTo(deleteRequest.id(id.toString()));
         try {
             DeleteResponse deleteResponse = restHighLevelClient.delete(deleteRequest, RequestOptions.DEFAULT);
-            if (Objects.equals(deleteResponse.status(), RestStatus.OK)) {
-                return EsConstants.ONE;
-            }
+            int result = Objects.equals(deleteResponse.status(), RestStatus.OK) ? EsConstants.ONE : EsConstants.ZERO;
+            awaitRefresh(Collections.singleton(deleteResponse.getIndex()));
+            return result;
         } catch (IOException e) {
             throw ExceptionUtils.epe("deleteById exception, indexName: s%, id: %s", e, getIndexName(), id);
+        } finally {
+            invalidateCache(Collections.singletonList(id.toString()));
         }
-        return EsConstants.ZERO;
     }
 
     @Override
     public Integer removeByIds(Collection<? extends Serializable> idList) {
+        return removeByIds(idList, null);
+    }
+
+    @Override
+    public Integer removeByIds(Collection<? extends Serializable> idList, String routing) {
         if (CollectionUtils.isEmpty(idList)) {
             throw ExceptionUtils.epe("idList can not be null or empty");
         }
-        BulkRequest bulkRequest = new BulkRequest();
-        bulkRequest.setRefreshPolicy(getRefreshPolicy());
         idList.forEach(id -> {
             if (Objects.isNull(id) || StringUtils.isBlank(id.toString())) {
                 throw ExceptionUtils.epe("id can not be null or empty");
             }
+        });
+        Map<String, DocumentLocation> locations = locateDocuments(idList.stream().map(Object::toString).collect(Collectors.toList()), routing);
+        if (CollectionUtils.isEmpty(locations)) {
+            return EsConstants.ZERO;
+        }
+        BulkRequest bulkRequest = new BulkRequest();
+        bulkRequest.setRefreshPolicy(getRefreshPolicy());
+        locations.forEach((id, location) -> {
             DeleteRequest deleteRequest = new DeleteRequest();
-            deleteRequest.id(id.toString());
-            deleteRequest.index(getIndexName());
+            location.applyTo(deleteRequest.id(id));
             bulkRequest.add(deleteRequest);
         });
         return doBulkRequest(bulkRequest, RequestOptions.DEFAULT);
@@ -518,13 +953,16 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public SearchResponse search(EsLambdaQueryWrapper<T> wrapper) {
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
-        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        // 只有聚合时不返回文档
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass,
+                EsWrapperProcessor.isAggregationOnly(wrapper));
         searchRequest.source(searchSourceBuilder);
         try {
             // 记录日志
-            logQueryDSL(wrapper);
-            return restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+            logQueryDSL(searchSourceBuilder);
+            // 原始响应直接返回给调用方，不能共享缓存中或合并请求的响应
+            return doSearch(searchRequest, wrapper, false);
         } catch (IOException e) {
             throw ExceptionUtils.epe("search exception", e);
         }
@@ -532,19 +970,66 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public SearchResponse search(EsLambdaQueryWrapper<T> wrapper, boolean trackTotalHits) {
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
-        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        // 只有聚合时不返回文档
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass,
+                EsWrapperProcessor.isAggregationOnly(wrapper));
         searchSourceBuilder.trackTotalHits(trackTotalHits);
         searchRequest.source(searchSourceBuilder);
         try {
             // 记录日志
-            logQueryDSL(wrapper);
-            return restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+            logQueryDSL(searchSourceBuilder);
+            // 原始响应直接返回给调用方，不能共享缓存中或合并请求的响应
+            return doSearch(searchRequest, wrapper, false);
         } catch (IOException e) {
             throw ExceptionUtils.epe("search exception", e);
         }
     }
 
+    @Override
+    public EsAggregations<T> aggregate(EsLambdaQueryWrapper<T> wrapper) {
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass, Objects.isNull(wrapper.getSize()));
+        searchRequest.source(searchSourceBuilder);
+        try {
+            // 记录日志
+            logQueryDSL(searchSourceBuilder);
+            SearchResponse response = doSearch(searchRequest, wrapper);
+            return new EsAggregations<>(response.getAggregations(), this::parseOne);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("aggregate exception", e);
+        }
+    }
+
+    @Override
+    public EsCompositeIterator<T> compositeIterator(EsLambdaQueryWrapper<T> wrapper, Integer pageSize, SFunction<T, ?>... columns) {
+        if (CollectionUtils.isEmpty(columns)) {
+            throw ExceptionUtils.epe("composite aggregation requires at least one column");
+        }
+        pageSize = pageSize == null || pageSize <= EsConstants.ZERO ? EsConstants.COMPOSITE_SIZE : pageSize;
+        List<String> fields = Arrays.stream(columns).map(FieldUtils::getFieldName).collect(Collectors.toList());
+        CompositeAggregationBuilder compositeBuilder = EsWrapperProcessor.buildCompositeAggregationBuilder(wrapper, entityClass, fields, pageSize);
+        // 只保留查询条件，wrapper中的聚合已作为composite的子聚合
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(buildSearchSourceBuilder(wrapper, entityClass, true).query())
+                .size(EsConstants.ZERO)
+                .trackTotalHits(false)
+                .aggregation(compositeBuilder);
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        searchRequest.source(searchSourceBuilder);
+        setRequestParams(searchRequest, wrapper);
+        // 记录日志
+        logQueryDSL(searchSourceBuilder);
+        return new EsCompositeIterator<>(restHighLevelClient, searchRequest, compositeBuilder, this::parseOne);
+    }
+
+    @Override
+    public Stream<EsBucket<T>> compositeStream(EsLambdaQueryWrapper<T> wrapper, Integer pageSize, SFunction<T, ?>... columns) {
+        EsCompositeIterator<T> iterator = compositeIterator(wrapper, pageSize, columns);
+        Spliterator<EsBucket<T>> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
     @Override
     public SearchSourceBuilder getSearchSourceBuilder(EsLambdaQueryWrapper<T> wrapper) {
         return buildSearchSourceBuilder(wrapper, entityClass);
@@ -552,7 +1037,7 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public String getSource(EsLambdaQueryWrapper<T> wrapper) {
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
         SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
         searchRequest.source(searchSourceBuilder);
         return Optional.ofNullable(searchRequest.source())
@@ -567,32 +1052,61 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public Long count(EsLambdaQueryWrapper<T> wrapper) {
-        CountRequest countRequest = new CountRequest(getIndexName());
-        BoolQueryBuilder boolQueryBuilder = buildBoolQueryBuilder(wrapper, entityClass);
-        countRequest.query(boolQueryBuilder);
-        CountResponse count;
+        return countInfo(wrapper).getCount();
+    }
+
+    @Override
+    public CountInfo countInfo(EsLambdaQueryWrapper<T> wrapper) {
+        EsCountModeEnum countMode = Optional.ofNullable(wrapper.getCountMode())
+                .orElse(GlobalConfigCache.getGlobalConfig().getDocumentConfig().getCountMode());
+        BoolQueryBuilder boolQueryBuilder = optimizeQuery(buildBoolQueryBuilder(wrapper, entityClass), false, entityClass);
         try {
+            // 无查询条件时读取缓存的_cat/count，_cat/count统计整个索引，指定路由时只能统计路由到的分片，不适用
+            if (!EsCountModeEnum.EXACT.equals(countMode) && !boolQueryBuilder.hasClauses()
+                    && StringUtils.isBlank(wrapper.getRouting())) {
+                return new CountInfo(catCount(), true);
+            }
+            if (EsCountModeEnum.APPROXIMATE.equals(countMode)) {
+                return approximateCount(boolQueryBuilder, wrapper);
+            }
+            CountRequest countRequest = newCountRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+            countRequest.query(boolQueryBuilder);
             // 记录日志
             logQueryCountDSL(wrapper);
-            count = restHighLevelClient.count(countRequest, RequestOptions.DEFAULT);
+            return new CountInfo(doCount(countRequest, wrapper), true);
         } catch (IOException e) {
             throw ExceptionUtils.epe("select count exception", e);
         }
-        return Optional.ofNullable(count)
-                .map(CountResponse::getCount)
-                .orElseThrow(() -> ExceptionUtils.epe("select count exception"));
     }
 
     @Override
     public T getOne(EsLambdaQueryWrapper<T> wrapper) {
-        long count = this.count(wrapper);
-        if (count > EsConstants.ONE && (wrapper.getSize() == null || wrapper.getSize() > EsConstants.ONE)) {
-            throw ExceptionUtils.epe("Expected one result (or null) to be returned by selectOne(), but found: %d. please use limit function to limit 1", count);
+        // 用户已限制1条时直接取第一条，否则多查一条用于校验唯一性
+        boolean checkUnique = wrapper.getSize() == null || wrapper.getSize() > EsConstants.ONE;
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+        // 只修改本次请求的size，不修改调用方的wrapper
+        searchSourceBuilder.size(checkUnique ? EsConstants.TWO : EsConstants.ONE);
+        searchSourceBuilder.trackTotalHits(false);
+        // 校验唯一性时只关心是否存在第二条，每个分片命中两条即可提前终止（有聚合时不终止，避免影响聚合结果）
+        if (checkUnique && CollectionUtils.isEmpty(wrapper.getAggregationParamList())) {
+            searchSourceBuilder.terminateAfter(EsConstants.TWO);
         }
-        SearchHit[] searchHits = getSearchHitArray(wrapper);
+        searchRequest.source(searchSourceBuilder);
+        logQueryDSL(searchSourceBuilder);
+        SearchResponse response;
+        try {
+            response = doSearch(searchRequest, wrapper);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("getOne exception", e);
+        }
+        SearchHit[] searchHits = parseSearchHitArray(response);
         if (CollectionUtils.isEmpty(searchHits)) {
             return null;
         }
+        if (checkUnique && searchHits.length > EsConstants.ONE) {
+            throw ExceptionUtils.epe("Expected one result (or null) to be returned by selectOne(), but found at least: %d. please use limit function to limit 1", searchHits.length);
+        }
         return parseOne(searchHits[0], wrapper);
     }
 
@@ -601,44 +1115,176 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         if (Objects.isNull(id) || StringUtils.isEmpty(id.toString())) {
             throw ExceptionUtils.epe("id must not be null or empty");
         }
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        // 主键不是_id、分区索引或未知routing时只能通过查询获取
+        if (!isIdColumn() || requiresLookup()) {
+            SearchRequest searchRequest = newSearchRequest(null, null);
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+            searchSourceBuilder.query(isIdColumn() ? QueryBuilders.idsQuery().addIds(id.toString())
+                    : QueryBuilders.termQuery(getIdFieldName(), id));
+            searchRequest.source(searchSourceBuilder);
+            // 请求es获取数据
+            SearchHit[] searchHits = getSearchHitArray(searchRequest);
+            if (CollectionUtils.isEmpty(searchHits)) {
+                return null;
+            }
+            // 解析数据
+            return parseOne(searchHits[0]);
+        }
 
-        searchSourceBuilder.query(QueryBuilders.termQuery(getIdFieldName(), id));
-        searchRequest.source(searchSourceBuilder);
-        // 请求es获取数据
-        SearchHit[] searchHits = getSearchHitArray(searchRequest);
-        if (CollectionUtils.isEmpty(searchHits)) {
-            return null;
+        // 优先读取近端缓存
+        EsNearCache nearCache = getNearCache();
+        long generation = 0;
+        if (Objects.nonNull(nearCache)) {
+            String source = nearCache.get(nearCacheKey(id.toString()));
+            if (Objects.nonNull(source)) {
+                return parseOne(source, id.toString());
+            }
+            generation = nearCache.generation();
         }
-        // 解析数据
-        return parseOne(searchHits[0]);
-    }
 
-    @Override
-    public List<T> listByIds(Collection<? extends Serializable> idList) {
-        if (CollectionUtils.isEmpty(idList)) {
-            throw ExceptionUtils.epe("id collection must not be null or empty");
+        // 实时GET，无需经过查询阶段，且能获取到尚未refresh的文档
+        GetResponse getResponse;
+        if (GlobalConfigCache.getGlobalConfig().getDocumentConfig().isEnableGetByIdBatching()) {
+            // 与其它线程的getById合并为一次_mget
+            getResponse = batchGet(id.toString());
+        } else {
+            GetRequest getRequest = new GetRequest(getIndexName(), id.toString());
+            getRequest.fetchSourceContext(FetchSourceContext.FETCH_SOURCE);
+            try {
+                if (useSingleFlight()) {
+                    getResponse = singleFlight.execute(buildRequestKey(EsConstants.REQUEST_GET, id.toString(),
+                            getRequest.index(), String.valueOf(getRequest.routing())),
+                            () -> restHighLevelClient.get(getRequest, RequestOptions.DEFAULT));
+                } else {
+                    getResponse = restHighLevelClient.get(getRequest, RequestOptions.DEFAULT);
+                }
+            } catch (IOException e) {
+                throw ExceptionUtils.epe("getById exception, id:%s", e, id);
+            }
         }
-        List<String> stringIdList = idList.stream().map(Object::toString).collect(Collectors.toList());
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
-        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-        sourceBuilder.query(QueryBuilders.termsQuery(getIdFieldName(), stringIdList));
-        searchRequest.source(sourceBuilder);
-        // 请求es获取数据
-        SearchHit[] searchHitArray = getSearchHitArray(searchRequest);
-        if (CollectionUtils.isEmpty(searchHitArray)) {
-            return new ArrayList<>(0);
+        if (Objects.isNull(getResponse) || !getResponse.isExists()) {
+            return null;
         }
-
-        // 批量解析数据
-        return Arrays.stream(searchHitArray)
-                .map(this::parseOne)
-                .collect(Collectors.toList());
+        if (Objects.nonNull(nearCache)) {
+            nearCache.put(nearCacheKey(getResponse.getId()), getResponse.getSourceAsString(), generation);
+        }
+        return parseOne(getResponse.getSourceAsString(), getResponse.getId());
     }
 
     @Override
-    public List<T> list(EsLambdaQueryWrapper<T> wrapper) {
+    public T getById(Serializable id, String routing) {
+        if (StringUtils.isBlank(routing)) {
+            return getById(id);
+        }
+        if (Objects.isNull(id) || StringUtils.isEmpty(id.toString())) {
+            throw ExceptionUtils.epe("id must not be null or empty");
+        }
+        // 主键不是_id或分区索引时只能通过查询获取
+        if (!isIdColumn() || Objects.nonNull(getPartitioner())) {
+            SearchRequest searchRequest = newSearchRequest(null, routing);
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+            searchSourceBuilder.query(isIdColumn() ? QueryBuilders.idsQuery().addIds(id.toString())
+                    : QueryBuilders.termQuery(getIdFieldName(), id));
+            searchRequest.source(searchSourceBuilder);
+            SearchHit[] searchHits = getSearchHitArray(searchRequest);
+            return CollectionUtils.isEmpty(searchHits) ? null : parseOne(searchHits[0]);
+        }
+        GetRequest getRequest = new GetRequest(getIndexName(), id.toString()).routing(routing);
+        getRequest.fetchSourceContext(FetchSourceContext.FETCH_SOURCE);
+        try {
+            GetResponse getResponse = restHighLevelClient.get(getRequest, RequestOptions.DEFAULT);
+            return getResponse.isExists() ? parseOne(getResponse.getSourceAsString(), getResponse.getId()) : null;
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("getById exception, id:%s, routing:%s", e, id, routing);
+        }
+    }
+
+    @Override
+    public List<T> listByIds(Collection<? extends Serializable> idList) {
+        if (CollectionUtils.isEmpty(idList)) {
+            throw ExceptionUtils.epe("id collection must not be null or empty");
+        }
+        List<String> stringIdList = idList.stream().map(Object::toString).collect(Collectors.toList());
+        // 主键不是_id、分区索引或未知routing时只能通过查询获取
+        if (!isIdColumn() || requiresLookup()) {
+            SearchRequest searchRequest = newSearchRequest(null, null);
+            SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
+            sourceBuilder.query(isIdColumn() ? QueryBuilders.idsQuery().addIds(stringIdList.toArray(new String[0]))
+                    : QueryBuilders.termsQuery(getIdFieldName(), stringIdList));
+            sourceBuilder.size(stringIdList.size());
+            searchRequest.source(sourceBuilder);
+            // 请求es获取数据
+            SearchHit[] searchHitArray = getSearchHitArray(searchRequest);
+            if (CollectionUtils.isEmpty(searchHitArray)) {
+                return new ArrayList<>(0);
+            }
+
+            // 批量解析数据
+            return Arrays.stream(searchHitArray)
+                    .map(this::parseOne)
+                    .collect(Collectors.toList());
+        }
+
+        // 优先读取近端缓存，只请求未命中的id
+        Map<String, T> entityMap = new HashMap<>(stringIdList.size());
+        EsNearCache nearCache = getNearCache();
+        long generation = 0;
+        List<String> distinctIdList = stringIdList.stream().distinct().collect(Collectors.toList());
+        if (Objects.nonNull(nearCache)) {
+            List<String> missIdList = new ArrayList<>(distinctIdList.size());
+            distinctIdList.forEach(id -> {
+                String source = nearCache.get(nearCacheKey(id));
+                if (Objects.nonNull(source)) {
+                    entityMap.put(id, parseOne(source, id));
+                } else {
+                    missIdList.add(id);
+                }
+            });
+            distinctIdList = missIdList;
+            generation = nearCache.generation();
+        }
+
+        // 分批_mget，各批次并行请求
+        List<CompletableFuture<MultiGetResponse>> futures = new ArrayList<>();
+        for (int from = 0; from < distinctIdList.size(); from += EsConstants.MGET_BATCH_SIZE) {
+            List<String> batchIdList = distinctIdList.subList(from, Math.min(from + EsConstants.MGET_BATCH_SIZE, distinctIdList.size()));
+            futures.add(multiGetAsync(restHighLevelClient, batchIdList));
+        }
+
+        // 解析数据
+        for (CompletableFuture<MultiGetResponse> future : futures) {
+            MultiGetResponse multiGetResponse;
+            try {
+                multiGetResponse = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw ExceptionUtils.epe("listByIds interrupted", e);
+            } catch (ExecutionException e) {
+                throw ExceptionUtils.epe("listByIds exception", e.getCause());
+            }
+            for (MultiGetItemResponse item : multiGetResponse.getResponses()) {
+                if (item.isFailed()) {
+                    throw ExceptionUtils.epe("listByIds exception, id:%s", item.getFailure().getFailure(), item.getId());
+                }
+                GetResponse getResponse = item.getResponse();
+                if (getResponse.isExists()) {
+                    entityMap.put(getResponse.getId(), parseOne(getResponse.getSourceAsString(), getResponse.getId()));
+                    if (Objects.nonNull(nearCache)) {
+                        nearCache.put(nearCacheKey(getResponse.getId()), getResponse.getSourceAsString(), generation);
+                    }
+                }
+            }
+        }
+
+        // 按传入顺序返回，不存在的id忽略
+        return stringIdList.stream()
+                .map(entityMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<T> list(EsLambdaQueryWrapper<T> wrapper) {
         // 请求es获取数据
         SearchHit[] searchHits = getSearchHitArray(wrapper);
         //if (CollectionUtils.isEmpty(searchHits)) {
@@ -653,11 +1299,13 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public List<Map<String, Object>> listMaps(EsLambdaQueryWrapper<T> wrapper) {
-        List<T> list = this.list(wrapper);
-        String jsonString = JSONObject.toJSONString(list);
-        List<Map<String, Object>> maps = JSON.parseObject(jsonString, new TypeReference<List<Map<String, Object>>>() {
-        });
-        return maps;
+        // 请求es获取数据
+        SearchHit[] searchHits = getSearchHitArray(wrapper);
+
+        // 直接由source构建map，无需经过实体
+        return Arrays.stream(searchHits)
+                .map(searchHit -> parseOneMap(searchHit, wrapper))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -667,23 +1315,22 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public PageInfo<SearchHit> pageOriginal(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize) {
+        pageNum = pageNum == null || pageNum <= EsConstants.ZERO ? EsConstants.PAGE_NUM : pageNum;
+        pageSize = pageSize == null || pageSize <= EsConstants.ZERO ? EsConstants.PAGE_SIZE : pageSize;
+        // 一次请求同时获取当前页数据及总数
+        // 原始命中直接返回给调用方，不可共享，不使用查询结果缓存及请求合并
+        SearchHits hits = pageSearch(wrapper, pageNum, pageSize, false);
         PageInfo<SearchHit> pageInfo = new PageInfo<>();
-        long total = this.count(wrapper);
+        long total = getTotal(hits);
         if (total <= EsConstants.ZERO) {
             return pageInfo;
         }
 
-        // 查询数据
-        SearchHit[] searchHitArray = new SearchHit[0];
-        try {
-            searchHitArray = getSearchHitArray(wrapper, pageNum, pageSize);
-        } catch (IOException e) {
-            throw ExceptionUtils.epe("pageOriginal exception", e);
-        }
-        List<SearchHit> list = Arrays.stream(searchHitArray).collect(Collectors.toList());
+        List<SearchHit> list = Arrays.stream(hits.getHits()).collect(Collectors.toList());
         pageInfo.setList(list);
         pageInfo.setSize(list.size());
         pageInfo.setTotal(total);
+        pageInfo.setTotalAccurate(isTotalAccurate(hits));
         pageInfo.setPageNum(pageNum);
         pageInfo.setPageSize(pageSize);
         return pageInfo;
@@ -691,12 +1338,12 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public PageInfo<T> page(EsLambdaQueryWrapper<T> wrapper) {
-        return initPageInfo(wrapper, EsConstants.PAGE_NUM, EsConstants.PAGE_SIZE);
+        return this.page(wrapper, EsConstants.PAGE_NUM, EsConstants.PAGE_SIZE);
     }
 
     @Override
     public PageInfo<T> page(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize) {
-        return initPageInfo(wrapper, pageNum, pageSize);
+        return initPageInfo(wrapper, pageNum, pageSize, searchHit -> parseOne(searchHit, wrapper));
     }
 
     @Override
@@ -706,15 +1353,134 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
     @Override
     public PageInfo<Map<String, Object>> pageMaps(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize) {
-        PageInfo<T> pageInfo = initPageInfo(wrapper, pageNum, pageSize);
-        List<T> list = pageInfo.getList();
-        String jsonString = JSONObject.toJSONString(list);
-        List<Map<String, Object>> maps = JSON.parseObject(jsonString, new TypeReference<List<Map<String, Object>>>() {
+        return initPageInfo(wrapper, pageNum, pageSize, searchHit -> parseOneMap(searchHit, wrapper));
+    }
+
+    @Override
+    public CursorPage<T> pageAfter(EsLambdaQueryWrapper<T> wrapper, String cursor, Integer size) {
+        size = size == null || size <= EsConstants.ZERO ? EsConstants.PAGE_SIZE : size;
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+        // 只修改本次请求的from、size，不修改调用方的wrapper；多查一条用于判断是否有下一页
+        searchSourceBuilder.from(EsConstants.ZERO);
+        searchSourceBuilder.size(size + 1);
+        searchSourceBuilder.trackTotalHits(false);
+        // 追加主键排序，保证排序值唯一
+        String idFieldName = getIdFieldName();
+        boolean sortedById = Optional.ofNullable(searchSourceBuilder.sorts())
+                .map(sorts -> sorts.stream().anyMatch(sort -> sort instanceof FieldSortBuilder
+                        && idFieldName.equals(((FieldSortBuilder) sort).getFieldName())))
+                .orElse(false);
+        if (!sortedById) {
+            searchSourceBuilder.sort(SortBuilders.fieldSort(idFieldName).order(SortOrder.ASC));
+        }
+        if (StringUtils.isNotBlank(cursor)) {
+            searchSourceBuilder.searchAfter(CursorUtils.decode(cursor));
+        }
+        searchRequest.source(searchSourceBuilder);
+        SearchHit[] searchHits = getSearchHitArray(searchRequest);
+
+        // 解析请求结果
+        boolean hasNext = searchHits.length > size;
+        List<T> list = Arrays.stream(searchHits)
+                .limit(size)
+                .map(searchHit -> parseOne(searchHit, wrapper))
+                .collect(Collectors.toList());
+        String nextCursor = hasNext ? CursorUtils.encode(searchHits[size - 1].getSortValues()) : null;
+        return new CursorPage<>(list, nextCursor);
+    }
+
+    @Override
+    public EsScrollIterator<T> scrollIterator(EsLambdaQueryWrapper<T> wrapper, Integer batchSize, TimeValue keepAlive) {
+        batchSize = batchSize == null || batchSize <= EsConstants.ZERO ? EsConstants.SCROLL_SIZE : batchSize;
+        keepAlive = Optional.ofNullable(keepAlive)
+                .orElse(TimeValue.parseTimeValue(EsConstants.SCROLL_KEEP_ALIVE, "scroll"));
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+        // scroll不支持from；只修改本次请求的from、size，不修改调用方的wrapper
+        searchSourceBuilder.from(EsConstants.ZERO);
+        searchSourceBuilder.size(batchSize);
+        searchSourceBuilder.trackTotalHits(false);
+        // 未指定排序时按_doc排序，效率最高
+        if (CollectionUtils.isEmpty(searchSourceBuilder.sorts())) {
+            searchSourceBuilder.sort(SortBuilders.fieldSort(EsConstants.DOC_SORT));
+        }
+        searchRequest.source(searchSourceBuilder);
+        // 记录日志
+        logQueryDSL(searchSourceBuilder);
+        return new EsScrollIterator<>(restHighLevelClient, searchRequest, batchSize, keepAlive,
+                searchHit -> parseOne(searchHit, wrapper));
+    }
+
+    @Override
+    public Stream<T> scrollStream(EsLambdaQueryWrapper<T> wrapper, Integer batchSize, TimeValue keepAlive) {
+        EsScrollIterator<T> iterator = scrollIterator(wrapper, batchSize, keepAlive);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    @Override
+    public long parallelScan(EsLambdaQueryWrapper<T> wrapper, int slices, Consumer<List<T>> consumer) {
+        int threads = Math.max(slices, EsConstants.ONE);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "es-plus-slice-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
         });
-        PageInfo<Map<String, Object>> result = new PageInfo<>();
-        BeanUtils.copyProperties(pageInfo, result);
-        result.setList(maps);
-        return result;
+        try {
+            return parallelScan(wrapper, slices, null, executor, consumer);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public long parallelScan(EsLambdaQueryWrapper<T> wrapper, int slices, Integer batchSize, Executor executor,
+                             Consumer<List<T>> consumer) {
+        int realSlices = Math.max(slices, EsConstants.ONE);
+        int realBatchSize = batchSize == null || batchSize <= EsConstants.ZERO ? EsConstants.SCROLL_SIZE : batchSize;
+        TimeValue keepAlive = TimeValue.parseTimeValue(EsConstants.SCROLL_KEEP_ALIVE, "scroll");
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicLong total = new AtomicLong();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[realSlices];
+        for (int i = 0; i < realSlices; i++) {
+            SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+            SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+            // scroll不支持from；只修改本次请求的from、size，不修改调用方的wrapper
+            searchSourceBuilder.from(EsConstants.ZERO);
+            searchSourceBuilder.size(realBatchSize);
+            searchSourceBuilder.trackTotalHits(false);
+            if (CollectionUtils.isEmpty(searchSourceBuilder.sorts())) {
+                searchSourceBuilder.sort(SortBuilders.fieldSort(EsConstants.DOC_SORT));
+            }
+            // 分片数为1时无需slice
+            if (realSlices > EsConstants.ONE) {
+                searchSourceBuilder.slice(new SliceBuilder(i, realSlices));
+            }
+            searchRequest.source(searchSourceBuilder);
+            logQueryDSL(searchSourceBuilder);
+            // 线程池线程沿用调用线程的请求类型，以便按节点角色选择请求节点
+            futures[i] = CompletableFuture.runAsync(EsRequestTypeContextHolder.wrap(() -> total.addAndGet(scanSlice(
+                    searchRequest, realBatchSize, keepAlive, wrapper, consumer, cancelled))), executor)
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            // 任一分片失败时取消其余分片
+                            cancelled.set(true);
+                        }
+                    });
+        }
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw ExceptionUtils.epe("parallel scan interrupted", e);
+        } catch (ExecutionException e) {
+            cancelled.set(true);
+            throw ExceptionUtils.epe("parallel scan exception", e.getCause());
+        }
+        return total.get();
     }
 
     public Settings.Builder buildSettings() {
@@ -798,6 +1564,173 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         return DocumentInfoUtils.getDocumentInfo(entityClass).getIndexName();
     }
 
+    /**
+     * 获取时间分区路由
+     *
+     * @return 时间分区路由，未开启分区时为null
+     */
+    private EsIndexPartitioner getPartitioner() {
+        return DocumentInfoUtils.getDocumentInfo(entityClass).getPartitioner();
+    }
+
+    /**
+     * 获取路由字段
+     *
+     * @return 路由字段，未设置@EsRouting时为null
+     */
+    private Field getRoutingField() {
+        return DocumentInfoUtils.getDocumentInfo(entityClass).getRoutingField();
+    }
+
+    /**
+     * 按id操作时是否需要先查询文档所在的索引及routing：开启分区或设置了路由字段
+     *
+     * @return 是否需要查询
+     */
+    private boolean requiresLookup() {
+        return Objects.nonNull(getPartitioner()) || Objects.nonNull(getRoutingField());
+    }
+
+    /**
+     * 获取查询的routing，优先使用指定的routing，否则根据路由字段上的条件推导
+     *
+     * @param baseParamList 查询条件，可为null
+     * @param routing       指定的routing，可为null
+     * @return routing，无法确定时返回null
+     */
+    private String getSearchRouting(List<EsBaseParam> baseParamList, String routing) {
+        if (StringUtils.isNotBlank(routing)) {
+            return routing;
+        }
+        Field routingField = getRoutingField();
+        return Objects.isNull(routingField) ? null : RoutingUtils.deriveRouting(baseParamList, routingField.getName());
+    }
+
+    /**
+     * 创建查询请求，开启分区时只查询条件覆盖的分区，不存在的分区忽略；能确定routing时只查询routing所在的分片
+     *
+     * @param baseParamList 查询条件，为null时查询全部分区
+     * @param routing       指定的routing，可为null
+     * @return 查询请求
+     */
+    private SearchRequest newSearchRequest(List<EsBaseParam> baseParamList, String routing) {
+        EsIndexPartitioner partitioner = getPartitioner();
+        SearchRequest searchRequest;
+        if (Objects.isNull(partitioner)) {
+            searchRequest = new SearchRequest(getIndexName());
+        } else {
+            searchRequest = new SearchRequest(partitioner.getSearchIndices(baseParamList));
+            searchRequest.indicesOptions(IndicesOptions.lenientExpandOpen());
+        }
+        String searchRouting = getSearchRouting(baseParamList, routing);
+        if (Objects.nonNull(searchRouting)) {
+            searchRequest.routing(searchRouting);
+        }
+        return searchRequest;
+    }
+
+    /**
+     * 创建count请求，开启分区时只统计条件覆盖的分区，不存在的分区忽略；能确定routing时只统计routing所在的分片
+     *
+     * @param baseParamList 查询条件
+     * @param routing       指定的routing，可为null
+     * @return count请求
+     */
+    private CountRequest newCountRequest(List<EsBaseParam> baseParamList, String routing) {
+        EsIndexPartitioner partitioner = getPartitioner();
+        CountRequest countRequest;
+        if (Objects.isNull(partitioner)) {
+            countRequest = new CountRequest(getIndexName());
+        } else {
+            countRequest = new CountRequest(partitioner.getSearchIndices(baseParamList));
+            countRequest.indicesOptions(IndicesOptions.lenientExpandOpen());
+        }
+        String searchRouting = getSearchRouting(baseParamList, routing);
+        if (Objects.nonNull(searchRouting)) {
+            countRequest.routing(searchRouting);
+        }
+        return countRequest;
+    }
+
+    /**
+     * 获取文档所在的索引及routing，开启分区或设置了路由字段时通过ids查询定位（只能定位到已refresh的文档）
+     *
+     * @param ids id集合
+     * @return id -> 文档位置，未找到的id不包含在内
+     */
+    private Map<String, DocumentLocation> locateDocuments(Collection<String> ids) {
+        return locateDocuments(ids, null);
+    }
+
+    /**
+     * 获取文档所在的索引及routing：未分区时，不需要routing或指定了单个routing则直接定位，不再查询，可定位尚未refresh的文档；
+     * 否则通过ids查询定位（只能定位到已refresh的文档），指定了routing时只查询routing所在的分片
+     *
+     * @param ids     id集合
+     * @param routing routing，可为null
+     * @return id -> 文档位置，未找到的id不包含在内
+     */
+    private Map<String, DocumentLocation> locateDocuments(Collection<String> ids, String routing) {
+        boolean singleRouting = StringUtils.isNotBlank(routing) && !routing.contains(EsConstants.COMMA);
+        if (Objects.isNull(getPartitioner()) && (singleRouting || !requiresLookup())) {
+            Map<String, DocumentLocation> locations = new LinkedHashMap<>(ids.size());
+            ids.forEach(id -> locations.put(id, new DocumentLocation(getIndexName(), singleRouting ? routing : null)));
+            return locations;
+        }
+        if (CollectionUtils.isEmpty(ids)) {
+            return new LinkedHashMap<>(0);
+        }
+        SearchRequest searchRequest = newSearchRequest(null, StringUtils.isBlank(routing) ? null : routing);
+        searchRequest.source(new SearchSourceBuilder()
+                .query(QueryBuilders.idsQuery().addIds(ids.toArray(new String[0])))
+                .size(ids.size())
+                .fetchSource(false));
+        return selectIds(searchRequest);
+    }
+
+    /**
+     * 获取更新文档所在的索引及routing，优先根据实体的分区字段、路由字段计算，无法计算时查询定位
+     *
+     * @param entity  es索引对应的实体类
+     * @param idValue id值
+     * @return 文档位置
+     */
+    private DocumentLocation getUpdateLocation(T entity, String idValue) {
+        EsIndexPartitioner partitioner = getPartitioner();
+        Field routingField = getRoutingField();
+        String indexName = Objects.isNull(partitioner) ? getIndexName() : partitioner.getIndexNameOrNull(entity);
+        String routing = Objects.isNull(routingField) ? null : RoutingUtils.getRouting(entity, routingField);
+        if (Objects.nonNull(indexName) && (Objects.isNull(routingField) || Objects.nonNull(routing))) {
+            return new DocumentLocation(indexName, routing);
+        }
+        return Optional.ofNullable(locateDocuments(Collections.singletonList(idValue)).get(idValue))
+                .orElseThrow(() -> ExceptionUtils.epe("document not found, indexName: %s, id: %s", getIndexName(), idValue));
+    }
+
+    /**
+     * 创建匹配全部分区的索引模板，分区索引首次写入时按模板自动创建
+     *
+     * @param partitioner 时间分区路由
+     * @param mapping     索引mapping，可为null
+     * @param settings    索引settings
+     * @param alias       别名，可为null
+     * @return 是否创建成功
+     * @throws IOException 请求异常
+     */
+    private Boolean putPartitionTemplate(EsIndexPartitioner partitioner, Map<String, Object> mapping,
+                                         Settings.Builder settings, String alias) throws IOException {
+        PutIndexTemplateRequest request = new PutIndexTemplateRequest(partitioner.getIndexName());
+        request.patterns(Collections.singletonList(partitioner.getPattern()));
+        request.settings(settings);
+        Optional.ofNullable(mapping).ifPresent(request::mapping);
+        Optional.ofNullable(alias).ifPresent(aliasName -> request.alias(new Alias(aliasName)));
+        AcknowledgedResponse response = restHighLevelClient.indices().putTemplate(request, RequestOptions.DEFAULT);
+        boolean acknowledged = response.isAcknowledged();
+        log.info("put index template [{}] for partitions [{}] result: {}", partitioner.getIndexName(),
+                partitioner.getPattern(), acknowledged);
+        return acknowledged;
+    }
+
     /**
      * 构建IndexRequest
      *
@@ -818,7 +1751,13 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
 
         // 构建插入的json格式数据
         String jsonData = buildJsonSource(entity);
-        indexRequest.index(documentInfo.getIndexName()).source(jsonData, XContentType.JSON);
+        String indexName = Optional.ofNullable(documentInfo.getPartitioner())
+                .map(partitioner -> partitioner.getWriteIndexName(entity))
+                .orElse(documentInfo.getIndexName());
+        indexRequest.index(indexName).source(jsonData, XContentType.JSON);
+        Optional.ofNullable(documentInfo.getRoutingField())
+                .map(routingField -> RoutingUtils.getRouting(entity, routingField))
+                .ifPresent(indexRequest::routing);
         return indexRequest;
     }
 
@@ -967,20 +1906,25 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
     }
 
     /**
-     * 根据条件查询要更新的id集合
+     * 根据条件查询要更新的id及所在索引、routing
      *
      * @param searchRequest 查询参数
-     * @return id集合
+     * @return id -> 文档位置，按命中顺序
      */
-    private List<String> selectIds(SearchRequest searchRequest) {
+    private Map<String, DocumentLocation> selectIds(SearchRequest searchRequest) {
         try {
             // 记录日志
             logQueryDSL(searchRequest.source());
             SearchResponse searchResponse = restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
             SearchHit[] searchHits = parseSearchHitArray(searchResponse);
-            return Arrays.stream(searchHits)
-                    .map(SearchHit::getId)
-                    .collect(Collectors.toList());
+            Map<String, DocumentLocation> ids = new LinkedHashMap<>(searchHits.length);
+            Arrays.stream(searchHits).forEach(searchHit -> {
+                String routing = Optional.ofNullable(searchHit.field(EsConstants.ROUTING))
+                        .map(field -> String.valueOf((Object) field.getValue()))
+                        .orElse(null);
+                ids.put(searchHit.getId(), new DocumentLocation(searchHit.getIndex(), routing));
+            });
+            return ids;
         } catch (IOException e) {
             throw ExceptionUtils.epe("selectIdList exception", e);
         }
@@ -1012,6 +1956,17 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         return JSON.toJSONString(jsonObject, SerializerFeature.WriteMapNullValue);
     }
 
+    /**
+     * 构建更新脚本
+     *
+     * @param updateWrapper 条件
+     * @return 参数化的painless脚本
+     */
+    private Script buildScript(EsLambdaUpdateWrapper<T> updateWrapper) {
+        return ScriptUtils.buildScript(restHighLevelClient, updateWrapper.getUpdateParamList(),
+                DocumentInfoUtils.getDocumentInfo(entityClass).getFieldColumnMap(), GlobalConfigCache.getGlobalConfig().getDocumentConfig());
+    }
+
     /**
      * 执行批量操作
      *
@@ -1032,8 +1987,11 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
                     totalSuccess++;
                 }
             }
+            awaitRefresh(Arrays.stream(bulkResponse.getItems()).map(BulkItemResponse::getIndex).collect(Collectors.toSet()));
         } catch (IOException e) {
             throw ExceptionUtils.epe("doBulkRequest exception", e);
+        } finally {
+            invalidateCache(bulkRequest);
         }
         return totalSuccess;
     }
@@ -1061,8 +2019,11 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
                     totalSuccess++;
                 }
             }
+            awaitRefresh(Arrays.stream(bulkResponse.getItems()).map(BulkItemResponse::getIndex).collect(Collectors.toSet()));
         } catch (IOException e) {
             throw ExceptionUtils.epe("doBulkRequest exception", e);
+        } finally {
+            invalidateCache(bulkRequest);
         }
         return totalSuccess;
     }
@@ -1077,7 +2038,7 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
     private UpdateRequest buildUpdateRequest(T entity, String idValue) {
         UpdateRequest updateRequest = new UpdateRequest();
         updateRequest.id(idValue);
-        updateRequest.index(getIndexName());
+        getUpdateLocation(entity, idValue).applyTo(updateRequest);
         String jsonData = buildJsonSource(entity);
         updateRequest.doc(jsonData, XContentType.JSON);
         return updateRequest;
@@ -1171,24 +2132,108 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
     }
 
     /**
-     * 获取查询结果数组
+     * 分页查询，一次请求同时获取当前页数据及总数（track_total_hits），不再单独执行count
      *
      * @param wrapper  条件
      * @param pageNum  当前页
      * @param pageSize 每页条数
-     * @return es返回结果体
-     * @throws IOException IO异常
+     * @return 搜索命中
      */
-    private SearchHit[] getSearchHitArray(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize) throws IOException {
+    private SearchHits pageSearch(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize) {
+        return pageSearch(wrapper, pageNum, pageSize, true);
+    }
+
+    /**
+     * 分页查询，一次请求同时获取当前页数据及总数（track_total_hits），不再单独执行count
+     *
+     * @param wrapper   条件
+     * @param pageNum   当前页
+     * @param pageSize  每页条数
+     * @param shareable 响应是否可与其它调用方共享
+     * @return 搜索命中
+     */
+    private SearchHits pageSearch(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize, boolean shareable) {
         wrapper.from((pageNum - 1) * pageSize);
         wrapper.size(pageSize);
-        SearchResponse response = search(wrapper);
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
+        // 统计总数：不设置上限时精确统计，否则超过上限只返回"至少N条"
+        int trackTotalHitsUpTo = Optional.ofNullable(wrapper.getTrackTotalHitsUpTo())
+                .orElse(GlobalConfigCache.getGlobalConfig().getDocumentConfig().getPageTrackTotalHitsUpTo());
+        if (trackTotalHitsUpTo > EsConstants.ZERO) {
+            searchSourceBuilder.trackTotalHitsUpTo(trackTotalHitsUpTo);
+        } else {
+            searchSourceBuilder.trackTotalHits(true);
+        }
+        searchRequest.source(searchSourceBuilder);
+        SearchResponse response;
+        try {
+            // 记录日志
+            logQueryDSL(searchSourceBuilder);
+            response = doSearch(searchRequest, wrapper, shareable);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("page select exception", e);
+        }
         return Optional.ofNullable(response)
                 .map(SearchResponse::getHits)
-                .map(SearchHits::getHits)
                 .orElseThrow(() -> ExceptionUtils.epe("get searchHits exception,the response from es is null"));
     }
 
+    /**
+     * 从搜索命中中获取总数
+     *
+     * @param hits 搜索命中
+     * @return 总数
+     */
+    private long getTotal(SearchHits hits) {
+        return Optional.ofNullable(hits.getTotalHits()).map(totalHits -> totalHits.value).orElse(0L);
+    }
+
+    /**
+     * 总数是否精确
+     *
+     * @param hits 搜索命中
+     * @return 总数是否精确，false表示总数为"至少N条"
+     */
+    private boolean isTotalAccurate(SearchHits hits) {
+        return Optional.ofNullable(hits.getTotalHits())
+                .map(totalHits -> TotalHits.Relation.EQUAL_TO.equals(totalHits.relation))
+                .orElse(true);
+    }
+
+    /**
+     * 遍历一个scroll分片，按批回调consumer
+     *
+     * @param searchRequest 分片查询请求
+     * @param batchSize     每批条数
+     * @param keepAlive     scroll上下文保持时间
+     * @param wrapper       条件
+     * @param consumer      批次消费者
+     * @param cancelled     是否已取消
+     * @return 该分片遍历的文档数
+     */
+    private long scanSlice(SearchRequest searchRequest, int batchSize, TimeValue keepAlive, EsLambdaQueryWrapper<T> wrapper,
+                           Consumer<List<T>> consumer, AtomicBoolean cancelled) {
+        long count = 0;
+        try (EsScrollIterator<T> iterator = new EsScrollIterator<>(restHighLevelClient, searchRequest, batchSize,
+                keepAlive, searchHit -> parseOne(searchHit, wrapper))) {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (!cancelled.get() && iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= batchSize) {
+                    consumer.accept(batch);
+                    count += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!cancelled.get() && !batch.isEmpty()) {
+                consumer.accept(batch);
+                count += batch.size();
+            }
+        }
+        return count;
+    }
+
     /**
      * 从es获取到的数据中解析出对应的对象 id根据查询/不查询条件决定是否设置
      *
@@ -1235,35 +2280,402 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
     }
 
     /**
-     * 初始化分页数据
+     * 主键是否为es的_id，是则可以使用GET/_mget按id获取
      *
-     * @param wrapper  条件
-     * @param pageNum  当前页
-     * @param pageSize 每页条数
-     * @return 分页数据
+     * @return 主键是否为_id
      */
-    private PageInfo<T> initPageInfo(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize) {
-        PageInfo<T> pageInfo = new PageInfo<>();
-        long total = this.count(wrapper);
-        if (total <= EsConstants.ZERO) {
-            return pageInfo;
+    private boolean isIdColumn() {
+        return EsConstants.DEFAULT_ES_ID_NAME.equals(getIdFieldName());
+    }
+
+    /**
+     * 异步_mget
+     *
+     * @param client es客户端
+     * @param ids    文档id
+     * @return 异步结果
+     */
+    private CompletableFuture<MultiGetResponse> multiGetAsync(RestHighLevelClient client, List<String> ids) {
+        String indexName = getIndexName();
+        MultiGetRequest multiGetRequest = new MultiGetRequest();
+        ids.forEach(id -> multiGetRequest.add(new MultiGetRequest.Item(indexName, id)
+                .fetchSourceContext(FetchSourceContext.FETCH_SOURCE)));
+        CompletableFuture<MultiGetResponse> future = new CompletableFuture<>();
+        client.mgetAsync(multiGetRequest, RequestOptions.DEFAULT,
+                ActionListener.wrap(future::complete, future::completeExceptionally));
+        return future;
+    }
+
+    /**
+     * 通过批量加载器获取文档，阻塞等待所在批次的_mget完成
+     *
+     * @param id 文档id
+     * @return 文档，批次中没有该id时返回null
+     */
+    private GetResponse batchGet(String id) {
+        MultiGetItemResponse item;
+        try {
+            item = getByIdLoader().load(id).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionUtils.epe("getById interrupted, id:%s", e, id);
+        } catch (ExecutionException e) {
+            throw ExceptionUtils.epe("getById exception, id:%s", e.getCause(), id);
+        }
+        if (Objects.isNull(item)) {
+            return null;
+        }
+        if (item.isFailed()) {
+            throw ExceptionUtils.epe("getById exception, id:%s", item.getFailure().getFailure(), id);
+        }
+        return item.getResponse();
+    }
+
+    /**
+     * 获取当前客户端的getById批量加载器，不存在时按全局配置创建
+     *
+     * @return 批量加载器
+     */
+    private EsBatchLoader<MultiGetItemResponse> getByIdLoader() {
+        return getByIdLoaders.computeIfAbsent(restHighLevelClient, client -> {
+            GlobalConfig.DocumentConfig documentConfig = GlobalConfigCache.getGlobalConfig().getDocumentConfig();
+            int maxBatchSize = Math.max(EsConstants.ONE, Math.min(documentConfig.getGetByIdBatchMaxSize(), EsConstants.MGET_BATCH_SIZE));
+            return new EsBatchLoader<>(documentConfig.getGetByIdBatchWindowMillis(), maxBatchSize,
+                    ids -> multiGetAsync(client, ids).thenApply(response -> {
+                        Map<String, MultiGetItemResponse> items = new HashMap<>(ids.size());
+                        for (MultiGetItemResponse item : response.getResponses()) {
+                            items.put(item.getId(), item);
+                        }
+                        return items;
+                    }));
+        });
+    }
+
+    /**
+     * 获取近端缓存
+     *
+     * @return 近端缓存，未开启时返回null
+     */
+    private EsNearCache getNearCache() {
+        return DocumentInfoUtils.getDocumentInfo(entityClass).getNearCache();
+    }
+
+    /**
+     * 近端缓存的key：切换数据源时mapper会更换客户端，需按客户端区分同一id的文档
+     *
+     * @param id 文档id
+     * @return 缓存key
+     */
+    private String nearCacheKey(String id) {
+        return Integer.toHexString(System.identityHashCode(restHighLevelClient)) + EsConstants.COLON + id;
+    }
+
+    /**
+     * 写操作完成（包括失败）后按id失效近端缓存，并失效索引的查询结果缓存
+     *
+     * @param ids 文档id
+     */
+    private void invalidateCache(Collection<String> ids) {
+        EsNearCache nearCache = getNearCache();
+        if (Objects.nonNull(nearCache) && !ids.isEmpty()) {
+            nearCache.invalidate(ids.stream().map(this::nearCacheKey).collect(Collectors.toList()));
+        }
+        EsQueryCache.getInstance().invalidate(getIndexName(), getQueryCacheQuietMillis());
+    }
+
+    /**
+     * 写操作后不回填查询结果缓存的时长：写请求不等待refresh时，写入在下次refresh后才可见，
+     * 期间的查询结果若被缓存，写入在整个缓存存活时间内都不可见
+     *
+     * @return 时长（单位：ms），写入返回时已可见时为0
+     */
+    private long getQueryCacheQuietMillis() {
+        // 合并刷新时写操作已等待refresh完成
+        if (isRefreshCoalescing() || !Objects.equals(getRefreshPolicy(), WriteRequest.RefreshPolicy.NONE.getValue())) {
+            return 0L;
+        }
+        return GlobalConfigCache.getGlobalConfig().getDocumentConfig().getQueryCacheWriteQuietMillis();
+    }
+
+    /**
+     * 批量写操作完成（包括失败）后按请求中的id失效近端缓存，并失效索引的查询结果缓存
+     *
+     * @param bulkRequest 批量请求参数
+     */
+    private void invalidateCache(BulkRequest bulkRequest) {
+        invalidateCache(bulkRequest.requests().stream()
+                .map(DocWriteRequest::id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 删除索引后失效全部近端缓存及该索引的查询结果缓存
+     *
+     * @param indexName 索引名称
+     */
+    private void invalidateCache(String indexName) {
+        EsNearCache nearCache = getNearCache();
+        if (Objects.nonNull(nearCache)) {
+            nearCache.invalidateAll();
+        }
+        EsQueryCache.getInstance().invalidate(indexName);
+    }
+
+    /**
+     * 本次查询是否使用查询结果缓存，wrapper > 全局配置，批量导入期间不使用
+     *
+     * @param wrapper 条件
+     * @return 是否使用缓存
+     */
+    private boolean useQueryCache(EsLambdaQueryWrapper<T> wrapper) {
+        // 批量导入期间关闭了自动refresh，写入在会话结束前不可见，不缓存查询结果
+        if (BulkLoadSession.isLoading(getBulkLoadTarget())) {
+            return false;
+        }
+        return Optional.ofNullable(wrapper.getQueryCache())
+                .orElse(GlobalConfigCache.getGlobalConfig().getDocumentConfig().isEnableQueryCache());
+    }
+
+    /**
+     * 本次查询结果的缓存存活时间，wrapper > 全局配置
+     *
+     * @param wrapper 条件
+     * @return 存活时间（单位：ms）
+     */
+    private long getQueryCacheTtlMillis(EsLambdaQueryWrapper<T> wrapper) {
+        return Optional.ofNullable(wrapper.getQueryCacheTtl())
+                .orElse(GlobalConfigCache.getGlobalConfig().getDocumentConfig().getQueryCacheTtlSeconds()) * 1000L;
+    }
+
+    /**
+     * 是否开启请求合并，注解 > 全局配置
+     *
+     * @return 是否开启
+     */
+    private boolean useSingleFlight() {
+        return Objects.nonNull(singleFlight)
+                && (singleFlight.isEnabled() || GlobalConfigCache.getGlobalConfig().getDocumentConfig().isEnableSingleFlight());
+    }
+
+    /**
+     * 构建查询结果缓存及请求合并的key，区分客户端（动态数据源切换时客户端不同）
+     *
+     * @param type          请求类型
+     * @param dsl           查询DSL
+     * @param requestParams 影响结果的请求级参数，如preference、routing及实际请求的索引（分区索引）
+     * @return key
+     */
+    private String buildRequestKey(String type, String dsl, String... requestParams) {
+        StringBuilder content = new StringBuilder(dsl);
+        for (String requestParam : requestParams) {
+            content.append('|').append(requestParam);
+        }
+        return EsQueryCache.buildKey(Integer.toHexString(System.identityHashCode(restHighLevelClient)), getIndexName(), type, content.toString());
+    }
+
+    /**
+     * 设置wrapper中的请求级参数：preference及request_cache，未指定request_cache时size=0的查询按全局配置使用分片请求缓存
+     *
+     * @param searchRequest 搜索请求
+     * @param wrapper       条件
+     */
+    private void setRequestParams(SearchRequest searchRequest, EsLambdaQueryWrapper<T> wrapper) {
+        if (StringUtils.isNotBlank(wrapper.getPreference())) {
+            searchRequest.preference(wrapper.getPreference());
+        }
+        if (Objects.nonNull(wrapper.getRequestCache())) {
+            searchRequest.requestCache(wrapper.getRequestCache());
+        } else if (Objects.nonNull(searchRequest.source()) && searchRequest.source().size() == EsConstants.ZERO
+                && GlobalConfigCache.getGlobalConfig().getDocumentConfig().isEnableAggregationOnlyOptimization()) {
+            searchRequest.requestCache(true);
+        }
+    }
+
+    /**
+     * 执行查询，使用查询结果缓存时优先读取缓存，只缓存所有分片成功且未超时的结果；开启请求合并时相同的查询只发送一次
+     *
+     * @param searchRequest 搜索请求
+     * @param wrapper       条件
+     * @return 搜索响应，可能与其它调用方共享，只能读取
+     * @throws IOException 请求异常
+     */
+    private SearchResponse doSearch(SearchRequest searchRequest, EsLambdaQueryWrapper<T> wrapper) throws IOException {
+        return doSearch(searchRequest, wrapper, true);
+    }
+
+    /**
+     * 执行查询
+     *
+     * @param searchRequest 搜索请求
+     * @param wrapper       条件
+     * @param shareable     响应是否可与其它调用方共享，直接返回给调用方的原始响应不可共享，不使用查询结果缓存及请求合并
+     * @return 搜索响应
+     * @throws IOException 请求异常
+     */
+    private SearchResponse doSearch(SearchRequest searchRequest, EsLambdaQueryWrapper<T> wrapper, boolean shareable) throws IOException {
+        setRequestParams(searchRequest, wrapper);
+        if (!shareable) {
+            return restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
         }
+        boolean useQueryCache = useQueryCache(wrapper);
+        if (!useQueryCache && !useSingleFlight()) {
+            return restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+        }
+        String key = buildRequestKey(EsConstants.REQUEST_SEARCH, String.valueOf(searchRequest.source()),
+                String.valueOf(searchRequest.preference()), String.valueOf(searchRequest.routing()),
+                String.join(",", searchRequest.indices()));
+        if (!useQueryCache) {
+            return singleFlight.execute(key, () -> restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT));
+        }
+        EsQueryCache queryCache = EsQueryCache.getInstance();
+        String indexName = getIndexName();
+        Object cached = queryCache.get(key);
+        if (cached instanceof SearchResponse) {
+            return (SearchResponse) cached;
+        }
+        long generation = queryCache.generation(indexName);
+        SearchResponse response = useSingleFlight()
+                ? singleFlight.execute(key, () -> restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT))
+                : restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+        if (Objects.nonNull(response) && !response.isTimedOut() && response.getFailedShards() == EsConstants.ZERO) {
+            queryCache.put(indexName, key, response, EsQueryCache.estimateWeight(response), getQueryCacheTtlMillis(wrapper), generation);
+        }
+        return response;
+    }
 
+    /**
+     * 执行count，使用查询结果缓存时优先读取缓存；开启请求合并时相同的count只发送一次
+     *
+     * @param countRequest count请求
+     * @param wrapper      条件
+     * @return 总数
+     * @throws IOException 请求异常
+     */
+    private Long doCount(CountRequest countRequest, EsLambdaQueryWrapper<T> wrapper) throws IOException {
+        if (StringUtils.isNotBlank(wrapper.getPreference())) {
+            countRequest.preference(wrapper.getPreference());
+        }
+        boolean useQueryCache = useQueryCache(wrapper);
+        if (!useQueryCache && !useSingleFlight()) {
+            return getCount(restHighLevelClient.count(countRequest, RequestOptions.DEFAULT));
+        }
+        String key = buildRequestKey(EsConstants.REQUEST_COUNT, String.valueOf(countRequest.query()),
+                String.valueOf(countRequest.preference()), String.valueOf(countRequest.routing()),
+                String.join(",", countRequest.indices()));
+        if (!useQueryCache) {
+            return getCount(singleFlight.execute(key, () -> restHighLevelClient.count(countRequest, RequestOptions.DEFAULT)));
+        }
+        EsQueryCache queryCache = EsQueryCache.getInstance();
+        String indexName = getIndexName();
+        Object cached = queryCache.get(key);
+        if (cached instanceof Long) {
+            return (Long) cached;
+        }
+        long generation = queryCache.generation(indexName);
+        CountResponse response = useSingleFlight()
+                ? singleFlight.execute(key, () -> restHighLevelClient.count(countRequest, RequestOptions.DEFAULT))
+                : restHighLevelClient.count(countRequest, RequestOptions.DEFAULT);
+        Long count = getCount(response);
+        if (response.getFailedShards() == EsConstants.ZERO) {
+            queryCache.put(indexName, key, count, EsQueryCache.estimateCountWeight(), getQueryCacheTtlMillis(wrapper), generation);
+        }
+        return count;
+    }
+
+    /**
+     * 通过_cat/count获取索引文档总数，结果短时间缓存，索引有写操作时失效；统计的是整个索引，不能用于指定路由的count
+     *
+     * @return 总数
+     * @throws IOException 请求异常
+     */
+    private long catCount() throws IOException {
+        EsQueryCache queryCache = EsQueryCache.getInstance();
+        String indexName = getIndexName();
+        String key = buildRequestKey(EsConstants.REQUEST_CAT_COUNT, indexName);
+        Object cached = queryCache.get(key);
+        if (cached instanceof Long) {
+            return (Long) cached;
+        }
+        long generation = queryCache.generation(indexName);
+        String readIndexName = Optional.ofNullable(getPartitioner()).map(EsIndexPartitioner::getPattern).orElse(indexName);
+        Request request = new Request(HttpGet.METHOD_NAME, "/_cat/count/" + readIndexName);
+        request.addParameter("format", "json");
+        Response response = restHighLevelClient.getLowLevelClient().performRequest(request);
+        JSONArray rows = JSON.parseArray(EntityUtils.toString(response.getEntity()));
+        long count = CollectionUtils.isEmpty(rows) ? 0L : rows.getJSONObject(0).getLongValue("count");
+        queryCache.put(indexName, key, count, EsQueryCache.estimateCountWeight(),
+                GlobalConfigCache.getGlobalConfig().getDocumentConfig().getCountCacheTtlMillis(), generation);
+        return count;
+    }
+
+    /**
+     * 近似count：size=0并通过track_total_hits统计到上限为止，超过上限时返回下限
+     *
+     * @param boolQueryBuilder 查询条件
+     * @param wrapper          条件
+     * @return 总数
+     * @throws IOException 请求异常
+     */
+    private CountInfo approximateCount(BoolQueryBuilder boolQueryBuilder, EsLambdaQueryWrapper<T> wrapper) throws IOException {
+        int trackTotalHitsUpTo = Optional.ofNullable(wrapper.getTrackTotalHitsUpTo())
+                .orElse(GlobalConfigCache.getGlobalConfig().getDocumentConfig().getCountTrackTotalHitsUpTo());
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(boolQueryBuilder);
+        searchSourceBuilder.size(EsConstants.ZERO);
+        if (trackTotalHitsUpTo > EsConstants.ZERO) {
+            searchSourceBuilder.trackTotalHitsUpTo(trackTotalHitsUpTo);
+        } else {
+            searchSourceBuilder.trackTotalHits(true);
+        }
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
+        searchRequest.source(searchSourceBuilder);
+        // 记录日志
+        logQueryDSL(searchSourceBuilder);
+        SearchHits hits = doSearch(searchRequest, wrapper).getHits();
+        return new CountInfo(getTotal(hits), isTotalAccurate(hits));
+    }
+
+    /**
+     * 从count响应中获取总数
+     *
+     * @param countResponse count响应
+     * @return 总数
+     */
+    private Long getCount(CountResponse countResponse) {
+        return Optional.ofNullable(countResponse)
+                .map(CountResponse::getCount)
+                .orElseThrow(() -> ExceptionUtils.epe("select count exception"));
+    }
+
+    /**
+     * 初始化分页数据
+     *
+     * @param wrapper   条件
+     * @param pageNum   当前页
+     * @param pageSize  每页条数
+     * @param hitParser 搜索命中解析
+     * @param <R>       分页数据类型
+     * @return 分页数据
+     */
+    private <R> PageInfo<R> initPageInfo(EsLambdaQueryWrapper<T> wrapper, Integer pageNum, Integer pageSize,
+                                         Function<SearchHit, R> hitParser) {
         // 请求es获取数据
         pageNum = pageNum == null || pageNum <= EsConstants.ZERO ? EsConstants.PAGE_NUM : pageNum;
         pageSize = pageSize == null || pageSize <= EsConstants.ZERO ? EsConstants.PAGE_SIZE : pageSize;
-        SearchHit[] searchHitArray;
-        try {
-            searchHitArray = getSearchHitArray(wrapper, pageNum, pageSize);
-        } catch (IOException e) {
-            throw ExceptionUtils.epe("page select exception:%s", e);
+        SearchHits hits = pageSearch(wrapper, pageNum, pageSize);
+        long total = getTotal(hits);
+        if (total <= EsConstants.ZERO) {
+            return new PageInfo<>();
         }
 
         // 解析请求结果
-        List<T> list = Arrays.stream(searchHitArray)
-                .map(searchHit -> parseOne(searchHit, wrapper))
+        List<R> list = Arrays.stream(hits.getHits())
+                .map(hitParser)
                 .collect(Collectors.toList());
-        return PageUtils.getPageInfo(list, total, pageNum, pageSize);
+        PageInfo<R> pageInfo = PageUtils.getPageInfo(list, total, pageNum, pageSize);
+        pageInfo.setTotalAccurate(isTotalAccurate(hits));
+        return pageInfo;
     }
 
     /**
@@ -1289,9 +2701,20 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
      * @return 实际想要的数据
      */
     private T parseOne(SearchHit searchHit) {
-        T entity = JSON.parseObject(searchHit.getSourceAsString(), entityClass,
+        return parseOne(searchHit.getSourceAsString(), searchHit.getId());
+    }
+
+    /**
+     * 从文档source中解析一条数据
+     *
+     * @param source 文档source
+     * @param id     文档id
+     * @return 实际想要的数据
+     */
+    private T parseOne(String source, String id) {
+        T entity = JSON.parseObject(source, entityClass,
                 DocumentInfoUtils.getDocumentInfo(entityClass).getExtraProcessor());
-        setId(entity, searchHit.getId());
+        setId(entity, id);
         return entity;
     }
 
@@ -1324,6 +2747,89 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
         return entity;
     }
 
+    /**
+     * 将嵌套对象（或嵌套对象数组）中的es字段名转换为实体字段名，实体中不存在的字段忽略
+     *
+     * @param value                source中嵌套对象字段的值
+     * @param objectColumnFieldMap 嵌套对象内es字段->实体字段映射，非嵌套对象字段为null
+     * @return 转换后的值
+     */
+    @SuppressWarnings("unchecked")
+    private Object renameObjectColumns(Object value, Map<String, String> objectColumnFieldMap) {
+        if (Objects.isNull(objectColumnFieldMap)) {
+            return value;
+        }
+        if (value instanceof List) {
+            return ((List<Object>) value).stream()
+                    .map(item -> renameObjectColumns(item, objectColumnFieldMap))
+                    .collect(Collectors.toList());
+        }
+        if (!(value instanceof Map)) {
+            return value;
+        }
+        Map<String, Object> source = (Map<String, Object>) value;
+        Map<String, Object> result = new LinkedHashMap<>(source.size());
+        source.forEach((column, columnValue) -> {
+            String fieldName = objectColumnFieldMap.get(column);
+            if (Objects.nonNull(fieldName)) {
+                result.put(fieldName, columnValue);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 从搜索命中中直接构建map：source字段名转换为实体字段名（或保留es字段名），并覆盖高亮及id
+     *
+     * @param searchHit 搜索命中
+     * @param wrapper   查询参数
+     * @return map
+     */
+    private Map<String, Object> parseOneMap(SearchHit searchHit, EsLambdaQueryWrapper<T> wrapper) {
+        DocumentInfo documentInfo = DocumentInfoUtils.getDocumentInfo(entityClass);
+        boolean keepColumnName = GlobalConfigCache.getGlobalConfig().getDocumentConfig().isMapsKeepColumnName();
+        // 搜索命中可能来自查询结果缓存，重新解析_source，避免调用方修改嵌套的map、list影响缓存
+        Map<String, Object> sourceMap = Optional.ofNullable(searchHit.getSourceRef())
+                .map(source -> XContentHelper.convertToMap(source, false, XContentType.JSON).v2())
+                .orElse(Collections.emptyMap());
+        Map<String, Object> result;
+        if (keepColumnName) {
+            result = new LinkedHashMap<>(sourceMap);
+        } else {
+            // es字段名 -> 实体字段名，实体中不存在的字段忽略
+            Map<String, String> columnFieldMap = documentInfo.getColumnFieldMap();
+            result = new LinkedHashMap<>(sourceMap.size() + 1);
+            for (Map.Entry<String, Object> entry : sourceMap.entrySet()) {
+                String fieldName = columnFieldMap.get(entry.getKey());
+                if (Objects.nonNull(fieldName)) {
+                    Map<String, String> objectColumnFieldMap = documentInfo.getObjectColumnFieldMap().get(entry.getKey());
+                    result.put(fieldName, renameObjectColumns(entry.getValue(), objectColumnFieldMap));
+                }
+            }
+        }
+        // 高亮字段处理
+        if (CollectionUtils.isNotEmpty(wrapper.getHighLightParamList())) {
+            Map<String, String> highlightFieldMap = getHighlightFieldMap();
+            searchHit.getHighlightFields().forEach((key, value) -> {
+                String highLightValue = Arrays.stream(value.getFragments()).findFirst().map(Text::string).orElse(EMPTY_STR);
+                String targetKey = keepColumnName ? key : highlightFieldMap.get(key);
+                if (Objects.nonNull(targetKey)) {
+                    result.put(targetKey, highLightValue);
+                }
+            });
+        }
+        // id处理
+        boolean includeId = EsWrapperProcessor.includeId(getRealIdFieldName(), wrapper);
+        if (includeId) {
+            if (!keepColumnName) {
+                result.put(getRealIdFieldName(), ReflectionUtils.getValue(documentInfo.getKeyClass(), searchHit.getId()));
+            } else if (isIdColumn()) {
+                result.put(EsConstants.DEFAULT_ES_ID_NAME, searchHit.getId());
+            }
+        }
+        return result;
+    }
+
     /**
      * 获取搜索命中数组
      *
@@ -1348,13 +2854,13 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
      * @return 搜索命中数组
      */
     private SearchHit[] getSearchHitArray(EsLambdaQueryWrapper<T> wrapper) {
-        SearchRequest searchRequest = new SearchRequest(getIndexName());
+        SearchRequest searchRequest = newSearchRequest(wrapper.getBaseParamList(), wrapper.getRouting());
         SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(wrapper, entityClass);
         searchRequest.source(searchSourceBuilder);
         logQueryDSL(wrapper);
         SearchResponse response;
         try {
-            response = restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+            response = doSearch(searchRequest, wrapper);
         } catch (IOException e) {
             throw ExceptionUtils.epe("getSearchHitArray exception", e);
         }
@@ -1392,7 +2898,7 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
     private void logQueryCountDSL(EsLambdaQueryWrapper<T> wrapper) {
         if (GlobalConfigCache.getGlobalConfig().isEnableDsl()) {
             CountRequest countRequest = new CountRequest(getIndexName());
-            BoolQueryBuilder boolQueryBuilder = buildBoolQueryBuilder(wrapper, entityClass);
+            BoolQueryBuilder boolQueryBuilder = optimizeQuery(buildBoolQueryBuilder(wrapper, entityClass), false, entityClass);
             countRequest.query(boolQueryBuilder);
             SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().query(countRequest.query());
             logPrettyQueryDSL(searchSourceBuilder);
@@ -1416,6 +2922,91 @@ public class EsBaseMapperImpl<T> implements EsBaseMapper<T> {
      * @return 刷新策略
      */
     private String getRefreshPolicy() {
+        // 批量导入期间关闭了自动refresh，wait_for会一直等待，立即刷新则违背批量导入的目的
+        if (BulkLoadSession.isLoading(getBulkLoadTarget())) {
+            return WriteRequest.RefreshPolicy.NONE.getValue();
+        }
+        // 合并刷新时写请求不刷新，写入完成后由awaitRefresh等待合并的refresh
+        if (isRefreshCoalescing()) {
+            return WriteRequest.RefreshPolicy.NONE.getValue();
+        }
         return GlobalConfigCache.getGlobalConfig().getDocumentConfig().getRefreshPolicy().getValue();
     }
+
+    /**
+     * 是否合并刷新：刷新策略为IMMEDIATE且开启了合并刷新，批量导入期间不刷新
+     *
+     * @return 是否合并刷新
+     */
+    private boolean isRefreshCoalescing() {
+        GlobalConfig.DocumentConfig documentConfig = GlobalConfigCache.getGlobalConfig().getDocumentConfig();
+        return documentConfig.isEnableRefreshCoalescing()
+                && Objects.equals(documentConfig.getRefreshPolicy(), EsRefreshPolicy.IMMEDIATE)
+                && !BulkLoadSession.isLoading(getBulkLoadTarget());
+    }
+
+    /**
+     * 合并刷新时，阻塞等待覆盖本次写入的refresh完成，未开启合并刷新时直接返回
+     * <p>
+     * 调用时写入已成功，refresh失败或等待被中断只记录日志，不影响写入结果
+     *
+     * @param indices 写入的索引
+     */
+    private void awaitRefresh(Collection<String> indices) {
+        if (CollectionUtils.isEmpty(indices) || !isRefreshCoalescing()) {
+            return;
+        }
+        EsRefreshCoalescer coalescer = REFRESH_COALESCERS.computeIfAbsent(restHighLevelClient, client ->
+                new EsRefreshCoalescer(GlobalConfigCache.getGlobalConfig().getDocumentConfig().getRefreshCoalescingIntervalMillis(),
+                        index -> {
+                            CompletableFuture<Object> future = new CompletableFuture<>();
+                            client.indices().refreshAsync(new RefreshRequest(index), RequestOptions.DEFAULT,
+                                    ActionListener.wrap(future::complete, future::completeExceptionally));
+                            return future;
+                        }));
+        CompletableFuture<?>[] futures = indices.stream().map(coalescer::refresh).toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("await refresh interrupted, indices: {}", indices, e);
+        } catch (ExecutionException e) {
+            log.warn("refresh exception, written documents may not be visible yet, indices: {}", indices, e.getCause());
+        }
+    }
+
+    /**
+     * 批量导入会话作用的索引，开启时间分区时为全部分区
+     *
+     * @return 索引名称或通配符
+     */
+    private String getBulkLoadTarget() {
+        EsIndexPartitioner partitioner = getPartitioner();
+        return Objects.isNull(partitioner) ? getIndexName() : partitioner.getPattern();
+    }
+
+    /**
+     * 文档所在的索引及routing
+     */
+    private static final class DocumentLocation {
+        private final String index;
+        private final String routing;
+
+        private DocumentLocation(String index, String routing) {
+            this.index = index;
+            this.routing = routing;
+        }
+
+        /**
+         * 设置写请求的索引及routing
+         *
+         * @param request 写请求
+         */
+        private void applyTo(DocWriteRequest<?> request) {
+            request.index(index);
+            if (Objects.nonNull(routing)) {
+                request.routing(routing);
+            }
+        }
+    }
 }
@@ -2,13 +2,17 @@ package com.xwl.esplus.core.metadata;
 
 import com.alibaba.fastjson.parser.deserializer.ExtraProcessor;
 import com.alibaba.fastjson.serializer.SerializeFilter;
+import com.xwl.esplus.core.cache.EsNearCache;
 import com.xwl.esplus.core.enums.EsKeyTypeEnum;
+import com.xwl.esplus.core.partition.EsIndexPartitioner;
 
 import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -63,6 +67,18 @@ public class DocumentInfo {
      * fastjson实体中不存在的字段处理器（处理多余字段，即json中有字段，但是在实体中不存在）
      */
     private ExtraProcessor extraProcessor;
+    /**
+     * 文档近端缓存，未开启时为null
+     */
+    private EsNearCache nearCache;
+    /**
+     * 时间分区路由，未开启分区时为null
+     */
+    private EsIndexPartitioner partitioner;
+    /**
+     * 路由字段，见@EsRouting，未设置时为null
+     */
+    private Field routingField;
     /**
      * 实体字段->es字段映射
      * key: 实体字段名称 -> value: es字段名称
@@ -78,11 +94,24 @@ public class DocumentInfo {
      * key: es字段名称 -> value: 实体字段名称
      */
     private final Map<String, String> highlightFieldMap = new HashMap<>();
+    /**
+     * 单值字段（es字段名称），即实体中数值、布尔、日期、枚举类型的字段，查询优化时只合并单值字段上的范围查询
+     */
+    private final Set<String> singleValueColumnSet = new HashSet<>();
+    /**
+     * 启用n-gram模糊查询的字段（es字段名称），见@EsDocumentField(ngram = true)
+     */
+    private final Set<String> ngramColumnSet = new HashSet<>();
     /**
      * 嵌套对象实体字段->es字段映射
      * key: 嵌套对象字段名称 -> value: es字段名称
      */
     private final Map<Class<?>, Map<String, String>> objectClassMap = new HashMap<>();
+    /**
+     * 嵌套对象es字段->(嵌套对象内es字段->实体字段)映射，用于将source中嵌套对象的字段名转换为实体字段名
+     * key: 嵌套对象es字段名称 -> value: (嵌套对象内es字段名称 -> 实体字段名称)
+     */
+    private final Map<String, Map<String, String>> objectColumnFieldMap = new HashMap<>();
     /**
      * 嵌套类型 path和class对应关系
      */
@@ -223,6 +252,30 @@ public class DocumentInfo {
         this.extraProcessor = extraProcessor;
     }
 
+    public EsNearCache getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(EsNearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public EsIndexPartitioner getPartitioner() {
+        return partitioner;
+    }
+
+    public void setPartitioner(EsIndexPartitioner partitioner) {
+        this.partitioner = partitioner;
+    }
+
+    public Field getRoutingField() {
+        return routingField;
+    }
+
+    public void setRoutingField(Field routingField) {
+        this.routingField = routingField;
+    }
+
     public Map<String, String> getFieldColumnMap() {
         return fieldColumnMap;
     }
@@ -231,6 +284,14 @@ public class DocumentInfo {
         return columnFieldMap;
     }
 
+    public Set<String> getSingleValueColumnSet() {
+        return singleValueColumnSet;
+    }
+
+    public Set<String> getNgramColumnSet() {
+        return ngramColumnSet;
+    }
+
     public Map<String, String> getHighlightFieldMap() {
         return highlightFieldMap;
     }
@@ -239,6 +300,10 @@ public class DocumentInfo {
         return objectClassMap;
     }
 
+    public Map<String, Map<String, String>> getObjectColumnFieldMap() {
+        return objectColumnFieldMap;
+    }
+
     /**
      * 根据path获取嵌套类字段关系map
      *
@@ -0,0 +1,50 @@
+package com.xwl.esplus.core.optimizer;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 查询优化上下文
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class EsQueryOptimizeContext {
+    /**
+     * 当前bool查询是否需要算分，filter及must_not中的子查询不算分
+     */
+    private final boolean scoring;
+
+    /**
+     * 单值字段（es字段名称）
+     */
+    private final Set<String> singleValueColumns;
+
+    public EsQueryOptimizeContext(boolean scoring, Set<String> singleValueColumns) {
+        this.scoring = scoring;
+        this.singleValueColumns = singleValueColumns == null ? Collections.emptySet() : singleValueColumns;
+    }
+
+    public boolean isScoring() {
+        return scoring;
+    }
+
+    /**
+     * 字段是否为单值字段，多值字段上的多个范围条件可以分别由不同的值满足，不能合并
+     *
+     * @param column es字段名称
+     * @return true-单值字段
+     */
+    public boolean isSingleValue(String column) {
+        return singleValueColumns.contains(column);
+    }
+
+    /**
+     * 不算分的上下文，用于filter及must_not中的子查询
+     *
+     * @return 上下文
+     */
+    public EsQueryOptimizeContext nonScoring() {
+        return scoring ? new EsQueryOptimizeContext(false, singleValueColumns) : this;
+    }
+}
@@ -0,0 +1,159 @@
+package com.xwl.esplus.core.optimizer;
+
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 基于规则的查询优化器：在wrapper构建出BoolQueryBuilder之后、发送请求之前改写查询，
+ * 自底向上处理每一层bool查询，同一层反复应用规则直到不再变化
+ * <p>
+ * 内置规则：展开嵌套bool（FlattenBoolRule）、不算分时must转filter（MustToFilterRule）、
+ * 同字段term合并为terms（MergeTermsRule）、单值字段上的范围合并（MergeRangeRule）；
+ * 可通过addRule注册自定义规则，规则必须保证语义等价
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class EsQueryOptimizer {
+    /**
+     * 同一层级最多应用规则的轮数
+     */
+    private static final int MAX_PASSES = 5;
+
+    private static final EsQueryOptimizer INSTANCE = new EsQueryOptimizer(defaultRules());
+
+    /**
+     * 规则，按顺序应用
+     */
+    private final List<EsQueryRule> rules;
+
+    public EsQueryOptimizer(List<EsQueryRule> rules) {
+        this.rules = new CopyOnWriteArrayList<>(rules);
+    }
+
+    /**
+     * 全局查询优化器，查询时使用
+     *
+     * @return 查询优化器
+     */
+    public static EsQueryOptimizer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 内置规则
+     *
+     * @return 规则列表
+     */
+    public static List<EsQueryRule> defaultRules() {
+        List<EsQueryRule> rules = new ArrayList<>();
+        rules.add(new FlattenBoolRule());
+        rules.add(new MustToFilterRule());
+        rules.add(new MergeTermsRule());
+        rules.add(new MergeRangeRule());
+        return rules;
+    }
+
+    /**
+     * 注册规则，在已有规则之后应用
+     *
+     * @param rule 规则
+     * @return 查询优化器
+     */
+    public EsQueryOptimizer addRule(EsQueryRule rule) {
+        rules.add(rule);
+        return this;
+    }
+
+    /**
+     * 移除指定类型的规则
+     *
+     * @param ruleClass 规则类型
+     * @return 查询优化器
+     */
+    public EsQueryOptimizer removeRule(Class<? extends EsQueryRule> ruleClass) {
+        rules.removeIf(ruleClass::isInstance);
+        return this;
+    }
+
+    public List<EsQueryRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * 优化bool查询，不修改入参
+     *
+     * @param query   bool查询
+     * @param context 优化上下文
+     * @return 优化后的bool查询
+     */
+    public BoolQueryBuilder optimize(BoolQueryBuilder query, EsQueryOptimizeContext context) {
+        BoolQueryBuilder result = optimizeClauses(query, context);
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean changed = false;
+            for (EsQueryRule rule : rules) {
+                BoolQueryBuilder rewritten = rule.rewrite(result, context);
+                if (rewritten != result) {
+                    result = rewritten;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 先优化各子句中的bool查询，filter及must_not中的子查询不算分
+     *
+     * @param query   bool查询
+     * @param context 优化上下文
+     * @return 子句优化后的bool查询
+     */
+    private BoolQueryBuilder optimizeClauses(BoolQueryBuilder query, EsQueryOptimizeContext context) {
+        EsQueryOptimizeContext nonScoring = context.nonScoring();
+        BoolQueryBuilder result = copyOf(query);
+        query.must().forEach(clause -> result.must(optimizeClause(clause, context)));
+        query.filter().forEach(clause -> result.filter(optimizeClause(clause, nonScoring)));
+        query.should().forEach(clause -> result.should(optimizeClause(clause, context)));
+        query.mustNot().forEach(clause -> result.mustNot(optimizeClause(clause, nonScoring)));
+        return result;
+    }
+
+    private QueryBuilder optimizeClause(QueryBuilder clause, EsQueryOptimizeContext context) {
+        return clause instanceof BoolQueryBuilder ? optimize((BoolQueryBuilder) clause, context) : clause;
+    }
+
+    /**
+     * 复制bool查询的boost、queryName、minimumShouldMatch、adjustPureNegative，不包含子句
+     *
+     * @param query bool查询
+     * @return 不含子句的新bool查询
+     */
+    public static BoolQueryBuilder copyOf(BoolQueryBuilder query) {
+        return QueryBuilders.boolQuery()
+                .boost(query.boost())
+                .queryName(query.queryName())
+                .minimumShouldMatch(query.minimumShouldMatch())
+                .adjustPureNegative(query.adjustPureNegative());
+    }
+
+    /**
+     * 是否为默认boost且未命名的查询，只有这样的查询才能被展开或合并
+     *
+     * @param query 查询
+     * @return true-可改写
+     */
+    public static boolean isPlain(QueryBuilder query) {
+        return query.boost() == AbstractQueryBuilder.DEFAULT_BOOST && query.queryName() == null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.xwl.esplus.core.optimizer;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+
+/**
+ * 查询优化规则，改写结果必须与原查询语义等价（匹配的文档相同，需要算分时分数也相同）
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+@FunctionalInterface
+public interface EsQueryRule {
+    /**
+     * 改写一个bool查询，只需处理当前层级，子bool查询由优化器递归处理；不得修改入参
+     *
+     * @param query   bool查询
+     * @param context 优化上下文
+     * @return 改写后的bool查询，无需改写时返回入参本身
+     */
+    BoolQueryBuilder rewrite(BoolQueryBuilder query, EsQueryOptimizeContext context);
+}
@@ -0,0 +1,125 @@
+package com.xwl.esplus.core.optimizer;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import java.util.List;
+
+/**
+ * 展开嵌套bool：and()/or()括号会产生只有一个子句或与父级连接方式相同的嵌套bool，展开后查询树更浅
+ * <ul>
+ *     <li>must/filter中的bool，没有should且至少有一个must或filter时，子句并入父级（filter中的must并入filter）</li>
+ *     <li>任意位置只有一个should或只有一个must的bool，替换为该子句</li>
+ *     <li>should中只有should的bool（双方都未设置minimumShouldMatch），should并入父级should</li>
+ *     <li>must_not中只有should的bool，按德摩根定律拆为多个must_not</li>
+ * </ul>
+ * 以上改写匹配的文档相同，且bool的分数为各子句分数之和，展开前后分数也相同
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class FlattenBoolRule implements EsQueryRule {
+
+    @Override
+    public BoolQueryBuilder rewrite(BoolQueryBuilder query, EsQueryOptimizeContext context) {
+        BoolQueryBuilder result = EsQueryOptimizer.copyOf(query);
+        boolean changed = false;
+        for (QueryBuilder clause : query.must()) {
+            BoolQueryBuilder child = asPlainBool(clause);
+            if (isConjunction(child)) {
+                child.must().forEach(result::must);
+                child.filter().forEach(result::filter);
+                child.mustNot().forEach(result::mustNot);
+                changed = true;
+            } else if (isSingleClause(child)) {
+                result.must(singleClause(child));
+                changed = true;
+            } else {
+                result.must(clause);
+            }
+        }
+        for (QueryBuilder clause : query.filter()) {
+            BoolQueryBuilder child = asPlainBool(clause);
+            if (isConjunction(child)) {
+                child.must().forEach(result::filter);
+                child.filter().forEach(result::filter);
+                child.mustNot().forEach(result::mustNot);
+                changed = true;
+            } else if (isSingleClause(child)) {
+                result.filter(singleClause(child));
+                changed = true;
+            } else {
+                result.filter(clause);
+            }
+        }
+        for (QueryBuilder clause : query.should()) {
+            BoolQueryBuilder child = asPlainBool(clause);
+            if (query.minimumShouldMatch() == null && isDisjunction(child)) {
+                child.should().forEach(result::should);
+                changed = true;
+            } else if (isSingleClause(child)) {
+                result.should(singleClause(child));
+                changed = true;
+            } else {
+                result.should(clause);
+            }
+        }
+        for (QueryBuilder clause : query.mustNot()) {
+            BoolQueryBuilder child = asPlainBool(clause);
+            if (isDisjunction(child)) {
+                child.should().forEach(result::mustNot);
+                changed = true;
+            } else if (isSingleClause(child)) {
+                result.mustNot(singleClause(child));
+                changed = true;
+            } else {
+                result.mustNot(clause);
+            }
+        }
+        return changed ? result : query;
+    }
+
+    /**
+     * 可展开的bool子句
+     *
+     * @param clause 子句
+     * @return 默认boost、未命名且未设置minimumShouldMatch的bool，否则返回null
+     */
+    private static BoolQueryBuilder asPlainBool(QueryBuilder clause) {
+        if (!(clause instanceof BoolQueryBuilder) || !EsQueryOptimizer.isPlain(clause)) {
+            return null;
+        }
+        BoolQueryBuilder bool = (BoolQueryBuilder) clause;
+        return bool.minimumShouldMatch() == null ? bool : null;
+    }
+
+    /**
+     * 是否为纯"与"：没有should，且至少有一个must或filter（只有must_not的bool隐含match_all，分数不同，不展开）
+     */
+    private static boolean isConjunction(BoolQueryBuilder bool) {
+        return bool != null && bool.should().isEmpty() && (!bool.must().isEmpty() || !bool.filter().isEmpty());
+    }
+
+    /**
+     * 是否为纯"或"：只有should
+     */
+    private static boolean isDisjunction(BoolQueryBuilder bool) {
+        return bool != null && !bool.should().isEmpty()
+                && bool.must().isEmpty() && bool.filter().isEmpty() && bool.mustNot().isEmpty();
+    }
+
+    /**
+     * 是否只有一个must或一个should（filter不算分、must_not语义相反，均不视为单子句）
+     */
+    private static boolean isSingleClause(BoolQueryBuilder bool) {
+        if (bool == null || !bool.filter().isEmpty() || !bool.mustNot().isEmpty()) {
+            return false;
+        }
+        return bool.must().size() + bool.should().size() == 1;
+    }
+
+    private static QueryBuilder singleClause(BoolQueryBuilder bool) {
+        List<QueryBuilder> clauses = bool.must().isEmpty() ? bool.should() : bool.must();
+        return clauses.get(0);
+    }
+}
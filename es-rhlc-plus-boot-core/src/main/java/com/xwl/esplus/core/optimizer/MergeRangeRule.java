@@ -0,0 +1,130 @@
+package com.xwl.esplus.core.optimizer;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * filter中同一单值字段上的多个范围合并为一个（取交集），如：ge(age, 18)与lt(age, 60)合并为[18, 60)
+ * <p>
+ * 只合并数值、日期等可在客户端比较的边界，且未设置format、timeZone、relation；
+ * 多值字段上的多个范围可以分别由不同的值满足，合并后不等价，因此只处理单值字段；
+ * must中的范围每个都会贡献分数，合并后分数不同，不需要算分时由MustToFilterRule先转为filter
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class MergeRangeRule implements EsQueryRule {
+
+    @Override
+    public BoolQueryBuilder rewrite(BoolQueryBuilder query, EsQueryOptimizeContext context) {
+        List<QueryBuilder> filter = new ArrayList<>(query.filter().size());
+        // 字段名 -> 该字段第一个范围在filter中的位置
+        Map<String, Integer> positions = new HashMap<>();
+        boolean changed = false;
+        for (QueryBuilder clause : query.filter()) {
+            if (!isMergeable(clause, context)) {
+                filter.add(clause);
+                continue;
+            }
+            RangeQueryBuilder range = (RangeQueryBuilder) clause;
+            Integer position = positions.get(range.fieldName());
+            RangeQueryBuilder merged = position == null ? null : intersect((RangeQueryBuilder) filter.get(position), range);
+            if (merged != null) {
+                filter.set(position, merged);
+                changed = true;
+            } else {
+                positions.putIfAbsent(range.fieldName(), filter.size());
+                filter.add(clause);
+            }
+        }
+        if (!changed) {
+            return query;
+        }
+        BoolQueryBuilder result = EsQueryOptimizer.copyOf(query);
+        query.must().forEach(result::must);
+        filter.forEach(result::filter);
+        query.should().forEach(result::should);
+        query.mustNot().forEach(result::mustNot);
+        return result;
+    }
+
+    private static boolean isMergeable(QueryBuilder clause, EsQueryOptimizeContext context) {
+        if (!(clause instanceof RangeQueryBuilder) || !EsQueryOptimizer.isPlain(clause)) {
+            return false;
+        }
+        RangeQueryBuilder range = (RangeQueryBuilder) clause;
+        return context.isSingleValue(range.fieldName())
+                && range.format() == null && range.timeZone() == null && range.relation() == null;
+    }
+
+    /**
+     * 两个范围的交集
+     *
+     * @param first  范围
+     * @param second 范围
+     * @return 交集，边界无法比较时返回null
+     */
+    static RangeQueryBuilder intersect(RangeQueryBuilder first, RangeQueryBuilder second) {
+        Object lower;
+        boolean includeLower;
+        if (first.from() == null || second.from() == null) {
+            boolean useFirst = first.from() != null;
+            lower = useFirst ? first.from() : second.from();
+            includeLower = useFirst ? first.includeLower() : second.includeLower();
+        } else {
+            Integer cmp = compare(first.from(), second.from());
+            if (cmp == null) {
+                return null;
+            }
+            // 下界取较大者，相等时取更严格的开区间
+            lower = cmp >= 0 ? first.from() : second.from();
+            includeLower = cmp > 0 ? first.includeLower()
+                    : cmp < 0 ? second.includeLower() : first.includeLower() && second.includeLower();
+        }
+        Object upper;
+        boolean includeUpper;
+        if (first.to() == null || second.to() == null) {
+            boolean useFirst = first.to() != null;
+            upper = useFirst ? first.to() : second.to();
+            includeUpper = useFirst ? first.includeUpper() : second.includeUpper();
+        } else {
+            Integer cmp = compare(first.to(), second.to());
+            if (cmp == null) {
+                return null;
+            }
+            // 上界取较小者，相等时取更严格的开区间
+            upper = cmp <= 0 ? first.to() : second.to();
+            includeUpper = cmp < 0 ? first.includeUpper()
+                    : cmp > 0 ? second.includeUpper() : first.includeUpper() && second.includeUpper();
+        }
+        return QueryBuilders.rangeQuery(first.fieldName()).from(lower, includeLower).to(upper, includeUpper);
+    }
+
+    /**
+     * 比较两个边界值，只比较数值及同类型的非字符串Comparable（如Date、LocalDate），字符串可能是日期表达式，不比较
+     *
+     * @return 比较结果，无法比较时返回null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            try {
+                return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (left instanceof Comparable && !(left instanceof CharSequence) && left.getClass().equals(right.getClass())) {
+            return ((Comparable) left).compareTo(right);
+        }
+        return null;
+    }
+}
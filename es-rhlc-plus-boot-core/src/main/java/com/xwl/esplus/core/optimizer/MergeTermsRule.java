@@ -0,0 +1,113 @@
+package com.xwl.esplus.core.optimizer;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 同一字段上的多个term/terms合并为一个terms：
+ * <ul>
+ *     <li>must_not中：not a and not b 等价于 not (a or b)</li>
+ *     <li>should中：不需要算分且未设置minimumShouldMatch时，a or b 等价于 terms[a, b]（需要算分时term与terms的分数不同，不合并）</li>
+ * </ul>
+ * must/filter中同一字段的多个term是"与"的关系，不能合并为terms
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class MergeTermsRule implements EsQueryRule {
+
+    @Override
+    public BoolQueryBuilder rewrite(BoolQueryBuilder query, EsQueryOptimizeContext context) {
+        List<QueryBuilder> mustNot = merge(query.mustNot());
+        List<QueryBuilder> should = !context.isScoring() && query.minimumShouldMatch() == null
+                ? merge(query.should()) : query.should();
+        if (mustNot == query.mustNot() && should == query.should()) {
+            return query;
+        }
+        BoolQueryBuilder result = EsQueryOptimizer.copyOf(query);
+        query.must().forEach(result::must);
+        query.filter().forEach(result::filter);
+        should.forEach(result::should);
+        mustNot.forEach(result::mustNot);
+        return result;
+    }
+
+    /**
+     * 合并同一字段上的term/terms，合并后的terms放在该字段第一次出现的位置
+     *
+     * @param clauses 子句
+     * @return 合并后的子句，无需合并时返回入参本身
+     */
+    private static List<QueryBuilder> merge(List<QueryBuilder> clauses) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (QueryBuilder clause : clauses) {
+            String field = getField(clause);
+            if (field != null) {
+                counts.merge(field, 1, Integer::sum);
+            }
+        }
+        if (counts.values().stream().noneMatch(count -> count > 1)) {
+            return clauses;
+        }
+        Map<String, Set<Object>> valuesMap = new LinkedHashMap<>();
+        for (QueryBuilder clause : clauses) {
+            String field = getField(clause);
+            if (field != null && counts.get(field) > 1) {
+                valuesMap.computeIfAbsent(field, key -> new LinkedHashSet<>()).addAll(getValues(clause));
+            }
+        }
+        List<QueryBuilder> result = new ArrayList<>(clauses.size());
+        for (QueryBuilder clause : clauses) {
+            String field = getField(clause);
+            if (field == null || counts.get(field) == 1) {
+                result.add(clause);
+            } else {
+                Set<Object> values = valuesMap.remove(field);
+                if (values != null) {
+                    result.add(QueryBuilders.termsQuery(field, values));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 可合并的term/terms的字段名
+     *
+     * @param clause 子句
+     * @return 字段名，不可合并时返回null
+     */
+    private static String getField(QueryBuilder clause) {
+        if (!EsQueryOptimizer.isPlain(clause)) {
+            return null;
+        }
+        if (clause instanceof TermQueryBuilder) {
+            return ((TermQueryBuilder) clause).fieldName();
+        }
+        if (clause instanceof TermsQueryBuilder) {
+            TermsQueryBuilder terms = (TermsQueryBuilder) clause;
+            return terms.termsLookup() == null && terms.values() != null ? terms.fieldName() : null;
+        }
+        return null;
+    }
+
+    private static Collection<Object> getValues(QueryBuilder clause) {
+        if (clause instanceof TermQueryBuilder) {
+            return Collections.singletonList(((TermQueryBuilder) clause).value());
+        }
+        return ((TermsQueryBuilder) clause).values();
+    }
+}
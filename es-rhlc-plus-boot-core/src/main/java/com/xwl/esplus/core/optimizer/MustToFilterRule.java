@@ -0,0 +1,26 @@
+package com.xwl.esplus.core.optimizer;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+
+/**
+ * 不需要算分时（count、按非_score字段排序、只有聚合、filter及must_not中的子查询）must转filter，
+ * 匹配的文档相同，filter可被es缓存且跳过算分
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class MustToFilterRule implements EsQueryRule {
+
+    @Override
+    public BoolQueryBuilder rewrite(BoolQueryBuilder query, EsQueryOptimizeContext context) {
+        if (context.isScoring() || query.must().isEmpty()) {
+            return query;
+        }
+        BoolQueryBuilder result = EsQueryOptimizer.copyOf(query);
+        query.must().forEach(result::filter);
+        query.filter().forEach(result::filter);
+        query.should().forEach(result::should);
+        query.mustNot().forEach(result::mustNot);
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package com.xwl.esplus.core.page;
+
+import java.io.Serializable;
+
+/**
+ * count结果，近似统计超过上限时总数为下限（"至少N条"）
+ *
+ * @author xwl
+ * @since 2026/10/18 19:10
+ */
+public class CountInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 总数
+     */
+    private long count;
+
+    /**
+     * 总数是否精确，false表示实际总数大于等于count
+     */
+    private boolean accurate = true;
+
+    public CountInfo() {
+    }
+
+    public CountInfo(long count, boolean accurate) {
+        this.count = count;
+        this.accurate = accurate;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public boolean isAccurate() {
+        return accurate;
+    }
+
+    public void setAccurate(boolean accurate) {
+        this.accurate = accurate;
+    }
+
+    /**
+     * 用于展示的总数，不精确时追加"+"，如：10000+
+     *
+     * @return 总数
+     */
+    @Override
+    public String toString() {
+        return accurate ? String.valueOf(count) : count + "+";
+    }
+}
@@ -0,0 +1,86 @@
+package com.xwl.esplus.core.page;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页结果（search_after），适用于深度分页
+ *
+ * @author xwl
+ * @since 2026/10/18 14:20
+ */
+public class CursorPage<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 结果集
+     */
+    private List<T> list;
+
+    /**
+     * 当前页的数量
+     */
+    private int size;
+
+    /**
+     * 下一页游标，没有下一页时为null；调用方原样传回即可获取下一页
+     */
+    private String nextCursor;
+
+    /**
+     * 是否有下一页
+     */
+    private boolean hasNext;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> list, String nextCursor) {
+        this.list = list;
+        this.size = list.size();
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public void setList(List<T> list) {
+        this.list = list;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPage{" +
+                "size=" + size +
+                ", nextCursor=" + nextCursor +
+                ", hasNext=" + hasNext +
+                ", list=" + list +
+                '}';
+    }
+}
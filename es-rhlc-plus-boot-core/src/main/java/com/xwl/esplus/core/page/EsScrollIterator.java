@@ -0,0 +1,215 @@
+package com.xwl.esplus.core.page;
+
+import com.xwl.esplus.core.enums.EsRequestTypeEnum;
+import com.xwl.esplus.core.http.EsRequestTypeContextHolder;
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * 基于scroll的惰性迭代器：消费当前批次的同时异步预取下一批，遍历结束、关闭或出现异常时清除scroll上下文
+ * <p>
+ * 非线程安全，使用完毕（包括未遍历完）后必须调用close
+ *
+ * @author xwl
+ * @since 2026/10/18 15:02
+ */
+public class EsScrollIterator<T> implements Iterator<T>, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(EsScrollIterator.class);
+
+    private final RestHighLevelClient restHighLevelClient;
+
+    /**
+     * scroll上下文保持时间
+     */
+    private final TimeValue keepAlive;
+
+    /**
+     * 每批条数
+     */
+    private final int batchSize;
+
+    /**
+     * 搜索命中 -> 实体
+     */
+    private final Function<SearchHit, T> hitParser;
+
+    /**
+     * 出现过的scrollId，关闭时统一清除
+     */
+    private final Set<String> scrollIds = new LinkedHashSet<>();
+
+    /**
+     * 最新的scrollId
+     */
+    private String scrollId;
+
+    /**
+     * 当前批次
+     */
+    private SearchHit[] current = new SearchHit[0];
+
+    /**
+     * 当前批次的读取位置
+     */
+    private int index;
+
+    /**
+     * 预取中的下一批
+     */
+    private CompletableFuture<SearchResponse> prefetch;
+
+    /**
+     * 是否已取到最后一批
+     */
+    private boolean finished;
+
+    /**
+     * scroll上下文是否已清除
+     */
+    private boolean closed;
+
+    public EsScrollIterator(RestHighLevelClient restHighLevelClient, SearchRequest searchRequest, int batchSize,
+                            TimeValue keepAlive, Function<SearchHit, T> hitParser) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.keepAlive = keepAlive;
+        this.batchSize = batchSize;
+        this.hitParser = hitParser;
+        searchRequest.scroll(keepAlive);
+        SearchResponse response;
+        try {
+            response = restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw ExceptionUtils.epe("scroll search exception", e);
+        }
+        accept(response);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= current.length) {
+            if (finished || prefetch == null) {
+                return false;
+            }
+            SearchResponse response;
+            try {
+                response = prefetch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw ExceptionUtils.epe("scroll interrupted", e);
+            } catch (ExecutionException e) {
+                close();
+                throw ExceptionUtils.epe("scroll exception", e.getCause());
+            }
+            prefetch = null;
+            accept(response);
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return hitParser.apply(current[index++]);
+        } catch (RuntimeException e) {
+            // 解析失败时调用方通常不会再调用close，需在此清除scroll上下文
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 清除scroll上下文，已取到的当前批次仍可继续读取
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finished = true;
+        // 等待预取结束，避免遗漏新的scrollId
+        if (prefetch != null) {
+            try {
+                addScrollId(prefetch.get().getScrollId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // 预取失败时无需处理，只清除已知的scrollId
+            }
+            prefetch = null;
+        }
+        if (scrollIds.isEmpty()) {
+            return;
+        }
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.setScrollIds(new ArrayList<>(scrollIds));
+        try {
+            restHighLevelClient.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        } catch (IOException | RuntimeException e) {
+            log.warn("clear scroll exception, scrollIds:{}", scrollIds, e);
+        }
+        scrollIds.clear();
+    }
+
+    /**
+     * 处理一批数据，并预取下一批
+     *
+     * @param response scroll响应
+     */
+    private void accept(SearchResponse response) {
+        addScrollId(response.getScrollId());
+        current = response.getHits().getHits();
+        index = 0;
+        if (current.length < batchSize) {
+            // 最后一批，提前清除scroll上下文
+            close();
+            return;
+        }
+        prefetch();
+    }
+
+    /**
+     * 异步预取下一批
+     */
+    private void prefetch() {
+        SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
+        scrollRequest.scroll(keepAlive);
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        // 预取可能发生在mapper方法返回之后，需重新标记为读请求
+        EsRequestTypeContextHolder.wrap(EsRequestTypeEnum.READ, () -> restHighLevelClient.scrollAsync(scrollRequest,
+                RequestOptions.DEFAULT, ActionListener.wrap(future::complete, future::completeExceptionally))).run();
+        prefetch = future;
+    }
+
+    private void addScrollId(String scrollId) {
+        if (scrollId != null) {
+            this.scrollId = scrollId;
+            scrollIds.add(scrollId);
+        }
+    }
+}
@@ -246,6 +246,7 @@ public class PageInfo<T> extends PageSerializable<T> {
                 ", navigateFirstPage=" + navigateFirstPage +
                 ", navigateLastPage=" + navigateLastPage +
                 ", total=" + total +
+                ", totalAccurate=" + totalAccurate +
                 ", list=" + list +
                 '}';
     }
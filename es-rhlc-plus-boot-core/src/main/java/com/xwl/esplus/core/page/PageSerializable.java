@@ -15,6 +15,10 @@ public class PageSerializable<T> implements Serializable {
      * 总记录数
      */
     protected long total;
+    /**
+     * 总记录数是否精确，false表示总记录数为"至少total条"
+     */
+    protected boolean totalAccurate = true;
     /**
      * 结果集
      */
@@ -50,6 +54,14 @@ public class PageSerializable<T> implements Serializable {
         this.total = total;
     }
 
+    public boolean isTotalAccurate() {
+        return totalAccurate;
+    }
+
+    public void setTotalAccurate(boolean totalAccurate) {
+        this.totalAccurate = totalAccurate;
+    }
+
     public List<T> getList() {
         return list;
     }
@@ -1,5 +1,7 @@
 package com.xwl.esplus.core.param;
 
+import com.xwl.esplus.core.enums.EsUpdateTypeEnum;
+
 /**
  * 更新参数
  * @author xwl
@@ -14,6 +16,10 @@ public class EsUpdateParam {
      * 值
      */
     private Object value;
+    /**
+     * 更新方式，默认SET
+     */
+    private EsUpdateTypeEnum type = EsUpdateTypeEnum.SET;
 
     public String getField() {
         return field;
@@ -30,4 +36,12 @@ public class EsUpdateParam {
     public void setValue(Object value) {
         this.value = value;
     }
+
+    public EsUpdateTypeEnum getType() {
+        return type;
+    }
+
+    public void setType(EsUpdateTypeEnum type) {
+        this.type = type;
+    }
 }
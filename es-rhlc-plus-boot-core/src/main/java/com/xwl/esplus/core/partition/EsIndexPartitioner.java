@@ -0,0 +1,282 @@
+package com.xwl.esplus.core.partition;
+
+import com.xwl.esplus.core.enums.EsPartitionEnum;
+import com.xwl.esplus.core.enums.EsQueryTypeEnum;
+import com.xwl.esplus.core.param.EsBaseParam;
+import com.xwl.esplus.core.toolkit.ExceptionUtils;
+import com.xwl.esplus.core.toolkit.StringUtils;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * 按时间分区的索引路由：写入时根据实体的分区字段确定分区索引，查询时根据分区字段上的
+ * eq、between、ge、gt、le、lt条件计算需要查询的最少分区，无法确定上下界时查询全部分区（索引名-*）
+ * <p>
+ * 只分析顶层以and连接的条件，包含or()、and()括号时查询全部分区
+ *
+ * @author xwl
+ * @since 2026/10/18 23:09
+ */
+public class EsIndexPartitioner {
+    /**
+     * 一次查询最多列出的分区数，超过时查询全部分区，避免请求路径过长
+     */
+    public static final int MAX_INDICES = 100;
+    /**
+     * 索引名与分区后缀的连接符
+     */
+    public static final String SEPARATOR = "-";
+
+    private static final Pattern DATE_PREFIX = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}.*");
+
+    private static final Pattern EPOCH_MILLIS = Pattern.compile("^-?\\d+$");
+
+    private static final String DATE_MATH_SEPARATOR = "||";
+
+    /**
+     * 索引名（不含分区后缀）
+     */
+    private final String indexName;
+    /**
+     * 分区策略
+     */
+    private final EsPartitionEnum partition;
+    /**
+     * 分区字段
+     */
+    private final Field field;
+    /**
+     * Date、Instant、时间戳等转为日期时使用的时区
+     */
+    private final ZoneId zoneId;
+
+    public EsIndexPartitioner(String indexName, EsPartitionEnum partition, Field field, ZoneId zoneId) {
+        this.indexName = indexName;
+        this.partition = partition;
+        this.field = field;
+        this.zoneId = zoneId;
+        this.field.setAccessible(true);
+    }
+
+    /**
+     * 匹配全部分区的索引名
+     *
+     * @return 索引名-*
+     */
+    public String getPattern() {
+        return indexName + SEPARATOR + "*";
+    }
+
+    /**
+     * 日期所在的分区索引名
+     *
+     * @param date 日期
+     * @return 分区索引名
+     */
+    public String getIndexName(LocalDate date) {
+        return indexName + SEPARATOR + partition.suffix(date);
+    }
+
+    /**
+     * 实体所在的分区索引名
+     *
+     * @param entity 实体
+     * @return 分区索引名，分区字段为空时返回null
+     */
+    public String getIndexNameOrNull(Object entity) {
+        Object value;
+        try {
+            value = field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw ExceptionUtils.epe("get partition field exception, field: %s", e, field.getName());
+        }
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        LocalDate date = toLocalDate(value);
+        if (Objects.isNull(date)) {
+            throw ExceptionUtils.epe("can not resolve partition from field: %s, value: %s", field.getName(), value);
+        }
+        return getIndexName(date);
+    }
+
+    /**
+     * 写入时实体所在的分区索引名
+     *
+     * @param entity 实体
+     * @return 分区索引名
+     */
+    public String getWriteIndexName(Object entity) {
+        String name = getIndexNameOrNull(entity);
+        if (Objects.isNull(name)) {
+            throw ExceptionUtils.epe("partition field can not be null, field: %s", field.getName());
+        }
+        return name;
+    }
+
+    /**
+     * 根据查询条件计算需要查询的分区索引
+     *
+     * @param baseParamList 查询条件，可为null
+     * @return 分区索引名，无法确定范围时返回索引名-*
+     */
+    public String[] getSearchIndices(List<EsBaseParam> baseParamList) {
+        if (Objects.isNull(baseParamList)) {
+            return new String[]{getPattern()};
+        }
+        LocalDate lower = null;
+        LocalDate upper = null;
+        for (EsBaseParam baseParam : baseParamList) {
+            // 括号及or改变了条件的连接方式，无法裁剪
+            if (Objects.nonNull(baseParam.getType())) {
+                return new String[]{getPattern()};
+            }
+            List<EsBaseParam.FieldValueModel> eqList = new ArrayList<>(baseParam.getMustList());
+            eqList.addAll(baseParam.getFilterList());
+            for (EsBaseParam.FieldValueModel model : eqList) {
+                if (isPartitionField(model) && Objects.equals(model.getEsQueryType(), EsQueryTypeEnum.TERM_QUERY.getType())) {
+                    lower = max(lower, toLocalDate(model.getValue()));
+                    upper = min(upper, toLocalDate(model.getValue()));
+                }
+            }
+            for (EsBaseParam.FieldValueModel model : baseParam.getBetweenList()) {
+                if (isPartitionField(model)) {
+                    lower = max(lower, toLocalDate(model.getLeftValue()));
+                    upper = min(upper, toLocalDate(model.getRightValue()));
+                }
+            }
+            List<EsBaseParam.FieldValueModel> lowerList = new ArrayList<>(baseParam.getGeList());
+            lowerList.addAll(baseParam.getGtList());
+            for (EsBaseParam.FieldValueModel model : lowerList) {
+                if (isPartitionField(model)) {
+                    lower = max(lower, toLocalDate(model.getValue()));
+                }
+            }
+            List<EsBaseParam.FieldValueModel> upperList = new ArrayList<>(baseParam.getLeList());
+            upperList.addAll(baseParam.getLtList());
+            for (EsBaseParam.FieldValueModel model : upperList) {
+                if (isPartitionField(model)) {
+                    upper = min(upper, toLocalDate(model.getValue()));
+                }
+            }
+        }
+        if (Objects.isNull(lower) || Objects.isNull(upper)) {
+            return new String[]{getPattern()};
+        }
+        List<String> indices = getIndices(lower, upper);
+        return indices.size() > MAX_INDICES ? new String[]{getPattern()} : indices.toArray(new String[0]);
+    }
+
+    /**
+     * 日期范围内的所有分区索引名（包含两端），范围为空时返回下界所在的分区
+     *
+     * @param lower 下界
+     * @param upper 上界
+     * @return 分区索引名
+     */
+    public List<String> getIndices(LocalDate lower, LocalDate upper) {
+        List<String> indices = new ArrayList<>();
+        LocalDate last = partition.floor(upper);
+        for (LocalDate floor = partition.floor(lower); !floor.isAfter(last); floor = partition.next(floor)) {
+            indices.add(getIndexName(floor));
+            if (indices.size() > MAX_INDICES) {
+                break;
+            }
+        }
+        if (indices.isEmpty()) {
+            indices.add(getIndexName(lower));
+        }
+        return indices;
+    }
+
+    /**
+     * 转换为日期，支持LocalDate、LocalDateTime、ZonedDateTime、OffsetDateTime、Instant、Date、毫秒时间戳及以yyyy-MM-dd开头的字符串
+     *
+     * @param value 值
+     * @return 日期，无法转换时返回null
+     */
+    public LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).withZoneSameInstant(zoneId).toLocalDate();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).atZoneSameInstant(zoneId).toLocalDate();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).atZone(zoneId).toLocalDate();
+        } else if (value instanceof Date) {
+            // java.sql.Date不支持toInstant
+            return Instant.ofEpochMilli(((Date) value).getTime()).atZone(zoneId).toLocalDate();
+        } else if (value instanceof Long || value instanceof Integer) {
+            return Instant.ofEpochMilli(((Number) value).longValue()).atZone(zoneId).toLocalDate();
+        } else if (value instanceof CharSequence) {
+            String text = value.toString().trim();
+            // 日期表达式（如：2026-10-01||+1M）无法在客户端计算
+            if (text.contains(DATE_MATH_SEPARATOR)) {
+                return null;
+            }
+            if (DATE_PREFIX.matcher(text).matches()) {
+                try {
+                    // 带时区偏移的时间按分区时区转换
+                    return OffsetDateTime.parse(text).atZoneSameInstant(zoneId).toLocalDate();
+                } catch (DateTimeParseException e) {
+                    return LocalDate.parse(text.substring(0, 10));
+                }
+            }
+            if (StringUtils.isNotBlank(text) && EPOCH_MILLIS.matcher(text).matches()) {
+                return Instant.ofEpochMilli(Long.parseLong(text)).atZone(zoneId).toLocalDate();
+            }
+        }
+        return null;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public EsPartitionEnum getPartition() {
+        return partition;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    private boolean isPartitionField(EsBaseParam.FieldValueModel model) {
+        return field.getName().equals(model.getField()) && StringUtils.isBlank(model.getPath());
+    }
+
+    /**
+     * 较大的下界，任一方为null（无法确定）时保留另一方
+     */
+    private static LocalDate max(LocalDate current, LocalDate value) {
+        if (Objects.isNull(current)) {
+            return value;
+        }
+        return Objects.isNull(value) || current.isAfter(value) ? current : value;
+    }
+
+    /**
+     * 较小的上界，任一方为null（无法确定）时保留另一方
+     */
+    private static LocalDate min(LocalDate current, LocalDate value) {
+        if (Objects.isNull(current)) {
+            return value;
+        }
+        return Objects.isNull(value) || current.isBefore(value) ? current : value;
+    }
+}
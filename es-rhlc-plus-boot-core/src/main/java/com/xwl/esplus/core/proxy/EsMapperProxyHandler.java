@@ -1,6 +1,8 @@
 package com.xwl.esplus.core.proxy;
 
 import com.xwl.esplus.core.cache.BaseCache;
+import com.xwl.esplus.core.enums.EsRequestTypeEnum;
+import com.xwl.esplus.core.http.EsRequestTypeContextHolder;
 import com.xwl.esplus.core.mapper.EsBaseMapperImpl;
 
 import java.io.Serializable;
@@ -65,8 +67,22 @@ public class EsMapperProxyHandler<T> implements InvocationHandler, Serializable
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         // 从缓存中获取目标对象（被代理接口的具体实现类），最终创建的代理对象也是该对象
         EsBaseMapperImpl<?> esBaseMapperInstance = BaseCache.getEsBaseMapperInstance(mapperInterface);
-        // 方法反射调用：方法.invoke(目标对象, 参数);
-        Object invoke = method.invoke(esBaseMapperInstance, args);
-        return invoke;
+        // 标记请求类型，供按节点角色选择请求节点
+        EsRequestTypeEnum requestType = EsRequestTypeContextHolder.resolve(method.getName());
+        EsRequestTypeEnum previous = EsRequestTypeContextHolder.get();
+        if (requestType != null) {
+            EsRequestTypeContextHolder.set(requestType);
+        }
+        try {
+            // 方法反射调用：方法.invoke(目标对象, 参数);
+            Object invoke = method.invoke(esBaseMapperInstance, args);
+            return invoke;
+        } finally {
+            if (previous == null) {
+                EsRequestTypeContextHolder.clear();
+            } else {
+                EsRequestTypeContextHolder.set(previous);
+            }
+        }
     }
 }
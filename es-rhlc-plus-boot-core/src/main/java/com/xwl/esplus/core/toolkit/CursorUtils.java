@@ -0,0 +1,74 @@
+package com.xwl.esplus.core.toolkit;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * search_after游标编解码工具：游标为排序值JSON数组的URL安全Base64编码，对调用方不透明
+ *
+ * @author xwl
+ * @since 2026/10/18 14:20
+ */
+public class CursorUtils {
+    private CursorUtils() {
+    }
+
+    /**
+     * 将最后一条命中的排序值编码为游标
+     *
+     * @param sortValues 排序值
+     * @return 游标
+     */
+    public static String encode(Object[] sortValues) {
+        if (sortValues == null || sortValues.length == 0) {
+            return null;
+        }
+        String json = JSON.toJSONString(sortValues);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 将游标解码为search_after排序值
+     *
+     * @param cursor 游标
+     * @return 排序值
+     */
+    public static Object[] decode(String cursor) {
+        JSONArray array;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            array = JSON.parseArray(json);
+        } catch (RuntimeException e) {
+            throw ExceptionUtils.epe("invalid cursor: %s", e, cursor);
+        }
+        if (array == null || array.isEmpty()) {
+            throw ExceptionUtils.epe("invalid cursor: %s", cursor);
+        }
+        Object[] sortValues = new Object[array.size()];
+        for (int i = 0; i < array.size(); i++) {
+            sortValues[i] = normalize(array.get(i));
+        }
+        return sortValues;
+    }
+
+    /**
+     * search_after不支持BigDecimal、BigInteger，转换为Double、Long
+     *
+     * @param value 排序值
+     * @return search_after支持的排序值
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).doubleValue();
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).longValue();
+        }
+        return value;
+    }
+}
@@ -5,17 +5,23 @@ import com.alibaba.fastjson.serializer.NameFilter;
 import com.xwl.esplus.core.annotation.EsDocument;
 import com.xwl.esplus.core.annotation.EsDocumentField;
 import com.xwl.esplus.core.annotation.EsDocumentId;
+import com.xwl.esplus.core.annotation.EsRouting;
 import com.xwl.esplus.core.cache.BaseCache;
+import com.xwl.esplus.core.cache.EsNearCache;
 import com.xwl.esplus.core.cache.GlobalConfigCache;
 import com.xwl.esplus.core.config.GlobalConfig;
 import com.xwl.esplus.core.enums.EsKeyTypeEnum;
+import com.xwl.esplus.core.enums.EsPartitionEnum;
 import com.xwl.esplus.core.metadata.DocumentFieldInfo;
 import com.xwl.esplus.core.metadata.DocumentInfo;
+import com.xwl.esplus.core.partition.EsIndexPartitioner;
 import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.time.ZoneId;
+import java.time.temporal.Temporal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -101,6 +107,12 @@ public class DocumentInfoUtils {
         initIndexName(clazz, globalConfig, documentInfo);
         // 初始化文档字段
         initDocumentFields(clazz, globalConfig, documentInfo);
+        // 初始化近端缓存
+        initNearCache(clazz, globalConfig, documentInfo);
+        // 初始化时间分区
+        initPartition(clazz, documentInfo);
+        // 初始化路由字段
+        initRouting(clazz, documentInfo);
         // 放入缓存
         DOCUMENT_INFO_CACHE.put(clazz, documentInfo);
         return documentInfo;
@@ -136,6 +148,79 @@ public class DocumentInfoUtils {
         documentInfo.setIndexName(indexName);
     }
 
+    /**
+     * 初始化近端缓存，注解 > 全局配置
+     *
+     * @param entityClass  es索引对应的实体类
+     * @param globalConfig 全局配置
+     * @param documentInfo 文档信息
+     */
+    private static void initNearCache(Class<?> entityClass, GlobalConfig globalConfig, DocumentInfo documentInfo) {
+        GlobalConfig.DocumentConfig documentConfig = globalConfig.getDocumentConfig();
+        EsDocument esDocument = entityClass.getAnnotation(EsDocument.class);
+        boolean enable = documentConfig.isEnableNearCache() || (Objects.nonNull(esDocument) && esDocument.nearCache());
+        if (!enable) {
+            return;
+        }
+        int maxSize = documentConfig.getNearCacheMaxSize();
+        long ttlSeconds = documentConfig.getNearCacheTtlSeconds();
+        if (Objects.nonNull(esDocument)) {
+            if (esDocument.nearCacheMaxSize() > 0) {
+                maxSize = esDocument.nearCacheMaxSize();
+            }
+            if (esDocument.nearCacheTtlSeconds() > 0) {
+                ttlSeconds = esDocument.nearCacheTtlSeconds();
+            }
+        }
+        if (maxSize <= 0 || ttlSeconds <= 0) {
+            return;
+        }
+        documentInfo.setNearCache(EsNearCache.create(entityClass, maxSize, ttlSeconds));
+    }
+
+    /**
+     * 初始化时间分区
+     *
+     * @param entityClass  es索引对应的实体类
+     * @param documentInfo 文档信息
+     */
+    private static void initPartition(Class<?> entityClass, DocumentInfo documentInfo) {
+        EsDocument esDocument = entityClass.getAnnotation(EsDocument.class);
+        if (Objects.isNull(esDocument) || EsPartitionEnum.NONE.equals(esDocument.partition())) {
+            return;
+        }
+        String partitionField = esDocument.partitionField().trim();
+        Field field = getAllFields(entityClass).stream()
+                .filter(f -> f.getName().equals(partitionField))
+                .findFirst()
+                .orElseThrow(() -> ExceptionUtils.epe("partition field not found, class: %s, field: %s",
+                        entityClass.getName(), partitionField));
+        ZoneId zoneId = StringUtils.isBlank(esDocument.partitionTimeZone())
+                ? ZoneId.systemDefault() : ZoneId.of(esDocument.partitionTimeZone().trim());
+        documentInfo.setPartitioner(new EsIndexPartitioner(documentInfo.getIndexName(), esDocument.partition(), field, zoneId));
+    }
+
+    /**
+     * 初始化路由字段
+     *
+     * @param entityClass  es索引对应的实体类
+     * @param documentInfo 文档信息
+     */
+    private static void initRouting(Class<?> entityClass, DocumentInfo documentInfo) {
+        List<Field> routingFields = getAllFields(entityClass).stream()
+                .filter(field -> field.isAnnotationPresent(EsRouting.class))
+                .collect(toList());
+        if (routingFields.isEmpty()) {
+            return;
+        }
+        if (routingFields.size() > 1) {
+            throw ExceptionUtils.epe("only one @EsRouting field is allowed, class: %s", entityClass.getName());
+        }
+        Field routingField = routingFields.get(0);
+        routingField.setAccessible(true);
+        documentInfo.setRoutingField(routingField);
+    }
+
     /**
      * 初始化文档主键及文档字段
      *
@@ -176,6 +261,12 @@ public class DocumentInfoUtils {
 
         // 添加字段列表
         documentInfo.setFieldList(fieldList);
+        // 单值字段
+        list.stream()
+                .filter(field -> isSingleValueType(field.getType()))
+                .map(field -> documentInfo.getFieldColumnMap().get(field.getName()))
+                .filter(Objects::nonNull)
+                .forEach(documentInfo.getSingleValueColumnSet()::add);
         // 添加fastjson NameFilter
         addNameFilter(documentInfo);
         // 添加fastjson ExtraProcessor
@@ -357,6 +448,7 @@ public class DocumentInfoUtils {
                     declaredFields = type.getDeclaredFields();
                 }
                 Map<String, String> fieldMap = new HashMap<>(declaredFields.length);
+                Map<String, String> columnFieldMap = new HashMap<>(declaredFields.length);
                 for (Field declaredField : declaredFields) {
                     String columName = declaredField.getName();
                     if (documentConfig.isMapUnderscoreToCamelCase()) {
@@ -370,18 +462,37 @@ public class DocumentInfoUtils {
                         }
                     }
                     fieldMap.put(declaredField.getName(), columName);
+                    columnFieldMap.putIfAbsent(columName, declaredField.getName());
                 }
                 documentInfo.getObjectClassMap().put(type, fieldMap);
+                documentInfo.getObjectColumnFieldMap().put(columnName, columnFieldMap);
             }
 
             // 字段高亮处理
             if (esDocumentField.isHighLight()) {
                 documentInfo.getHighlightFieldMap().putIfAbsent(columnName, field.getName());
             }
+
+            // n-gram模糊查询字段
+            if (esDocumentField.ngram()) {
+                documentInfo.getNgramColumnSet().add(columnName);
+            }
         }
         return hasAnnotation;
     }
 
+    /**
+     * 是否为单值类型：数值、布尔、日期、枚举，字符串可能是分词后的text字段，不视为单值
+     *
+     * @param type 字段类型
+     * @return true-单值类型
+     */
+    private static boolean isSingleValueType(Class<?> type) {
+        return type.isPrimitive() || Number.class.isAssignableFrom(type) || Boolean.class.equals(type)
+                || Date.class.isAssignableFrom(type) || Temporal.class.isAssignableFrom(type)
+                || type.isEnum();
+    }
+
     /**
      * 文档字段属性初始化-无自定义注解@EsDocumentField
      *
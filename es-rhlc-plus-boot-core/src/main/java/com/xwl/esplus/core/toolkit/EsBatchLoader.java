@@ -0,0 +1,189 @@
+package com.xwl.esplus.core.toolkit;
+
+import com.xwl.esplus.core.http.EsRequestTypeContextHolder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 跨线程批量加载器（类似DataLoader）：收集时间窗口内（或达到批次上限前）各线程提交的key，合并为一次批量请求，
+ * 请求完成后将结果分发给各调用方的future；同一批次内重复的key共享同一个future
+ *
+ * @param <V> 单个key对应的结果类型
+ * @author xwl
+ * @since 2026/10/18 18:30
+ */
+public class EsBatchLoader<V> {
+    /**
+     * 定时提交批次，只负责发起异步请求，单线程即可
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-plus-batch-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 收集窗口（单位：ms）
+     */
+    private final long windowMillis;
+
+    /**
+     * 批次上限，达到上限时立即提交
+     */
+    private final int maxBatchSize;
+
+    /**
+     * 批量请求：key列表 -> 异步结果（key -> 结果，不存在的key可缺省）
+     */
+    private final Function<List<String>, CompletableFuture<Map<String, V>>> batchFunction;
+
+    private final Object lock = new Object();
+
+    /**
+     * 待提交的key -> 结果
+     */
+    private Map<String, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * 当前批次的定时提交任务
+     */
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * 调用方提交的key数
+     */
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * 实际请求的key数（去重后）
+     */
+    private final AtomicLong dispatchedKeyCount = new AtomicLong();
+
+    /**
+     * 批量请求数
+     */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public EsBatchLoader(long windowMillis, int maxBatchSize,
+                         Function<List<String>, CompletableFuture<Map<String, V>>> batchFunction) {
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.batchFunction = batchFunction;
+    }
+
+    /**
+     * 提交key，返回该key的结果
+     *
+     * @param key key
+     * @return 结果，key不存在时结果为null
+     */
+    public CompletableFuture<V> load(String key) {
+        loadCount.incrementAndGet();
+        Map<String, CompletableFuture<V>> batch = null;
+        CompletableFuture<V> future;
+        synchronized (lock) {
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (pending.size() == 1) {
+                // 定时线程沿用发起批次线程的请求类型，以便按节点角色选择请求节点
+                flushTask = SCHEDULER.schedule(EsRequestTypeContextHolder.wrap(this::flush), windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return future;
+    }
+
+    /**
+     * 立即提交当前批次
+     */
+    public void flush() {
+        Map<String, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        dispatch(batch);
+    }
+
+    private Map<String, CompletableFuture<V>> drain() {
+        Map<String, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<V>> batch) {
+        batchCount.incrementAndGet();
+        dispatchedKeyCount.addAndGet(batch.size());
+        CompletableFuture<Map<String, V>> result;
+        try {
+            result = batchFunction.apply(new ArrayList<>(batch.keySet()));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        result.whenComplete((values, e) -> batch.forEach((key, future) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(values == null ? null : values.get(key));
+            }
+        }));
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public long getDispatchedKeyCount() {
+        return dispatchedKeyCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 平均批次大小，无数据时返回0
+     *
+     * @return 平均批次大小
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0D : (double) dispatchedKeyCount.get() / batches;
+    }
+
+    @Override
+    public String toString() {
+        return "EsBatchLoader{" +
+                "windowMillis=" + windowMillis +
+                ", maxBatchSize=" + maxBatchSize +
+                ", loadCount=" + loadCount +
+                ", dispatchedKeyCount=" + dispatchedKeyCount +
+                ", batchCount=" + batchCount +
+                '}';
+    }
+}
@@ -237,16 +237,26 @@ public class EsQueryTypeUtils {
             ExistsQueryBuilder existsQueryBuilder = QueryBuilders.existsQuery(field).boost(boost);
             setQueryBuilder(boolQueryBuilder, attachType, originalAttachType, enableMust2Filter, existsQueryBuilder);
         } else if (Objects.equals(queryType, EsQueryTypeEnum.WILDCARD_QUERY.getType())) {
-            String query;
-            if (Objects.equals(attachType, EsAttachTypeEnum.LIKE_LEFT.getType())) {
-                query = EsConstants.WILDCARD_SIGN + value;
-            } else if (Objects.equals(attachType, EsAttachTypeEnum.LIKE_RIGHT.getType())) {
-                query = value + EsConstants.WILDCARD_SIGN;
+            // or()转入shouldList的likeLeft、likeRight需根据原始类型判断
+            Integer likeType = Objects.equals(originalAttachType, EsAttachTypeEnum.LIKE_LEFT.getType())
+                    || Objects.equals(originalAttachType, EsAttachTypeEnum.LIKE_RIGHT.getType()) ? originalAttachType : attachType;
+            // 启用n-gram的字段改写为对子字段的查询，避免前导通配符
+            QueryBuilder ngramQueryBuilder = StringUtils.isBlank(path) && NgramUtils.isReady(field)
+                    ? NgramUtils.buildLikeQuery(field, value, likeType) : null;
+            if (Objects.nonNull(ngramQueryBuilder)) {
+                setQueryBuilder(boolQueryBuilder, attachType, originalAttachType, enableMust2Filter, ngramQueryBuilder.boost(boost));
             } else {
-                query = EsConstants.WILDCARD_SIGN + value + EsConstants.WILDCARD_SIGN;
+                String query;
+                if (Objects.equals(likeType, EsAttachTypeEnum.LIKE_LEFT.getType())) {
+                    query = EsConstants.WILDCARD_SIGN + value;
+                } else if (Objects.equals(likeType, EsAttachTypeEnum.LIKE_RIGHT.getType())) {
+                    query = value + EsConstants.WILDCARD_SIGN;
+                } else {
+                    query = EsConstants.WILDCARD_SIGN + value + EsConstants.WILDCARD_SIGN;
+                }
+                WildcardQueryBuilder wildcardQueryBuilder = QueryBuilders.wildcardQuery(field, query).boost(boost);
+                setQueryBuilder(boolQueryBuilder, attachType, originalAttachType, enableMust2Filter, wildcardQueryBuilder);
             }
-            WildcardQueryBuilder wildcardQueryBuilder = QueryBuilders.wildcardQuery(field, query).boost(boost);
-            setQueryBuilder(boolQueryBuilder, attachType, originalAttachType, enableMust2Filter, wildcardQueryBuilder);
         } else if (Objects.equals(queryType, EsQueryTypeEnum.INTERVAL_QUERY.getType())) {
             // 封装between及notBetween
             RangeQueryBuilder rangeQueryBuilder = QueryBuilders.rangeQuery(field).boost(boost);
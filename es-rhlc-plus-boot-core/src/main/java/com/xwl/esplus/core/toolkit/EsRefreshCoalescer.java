@@ -0,0 +1,160 @@
+package com.xwl.esplus.core.toolkit;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 合并刷新调度器：写操作完成后申请refresh，同一索引同一时刻最多一个refresh在执行，且两次refresh的开始时间至少间隔intervalMillis；
+ * 申请时已有等待中的refresh则共享该refresh，否则等待下一次refresh，保证返回的future完成时本次写入已可见
+ *
+ * @author xwl
+ * @since 2026/10/18 23:18
+ */
+public class EsRefreshCoalescer {
+    /**
+     * 定时发起refresh，只负责发起异步请求，单线程即可
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-plus-refresh-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 两次refresh开始时间的最小间隔（单位：ms）
+     */
+    private final long intervalMillis;
+
+    /**
+     * 异步refresh：索引名称 -> 异步结果
+     */
+    private final Function<String, CompletableFuture<?>> refreshFunction;
+
+    /**
+     * 索引名称 -> 刷新状态
+     */
+    private final Map<String, IndexState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 申请refresh的次数
+     */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * 实际refresh的次数
+     */
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    public EsRefreshCoalescer(long intervalMillis, Function<String, CompletableFuture<?>> refreshFunction) {
+        this.intervalMillis = Math.max(0L, intervalMillis);
+        this.refreshFunction = refreshFunction;
+    }
+
+    /**
+     * 申请refresh，须在写操作完成后调用
+     *
+     * @param indexName 索引名称
+     * @return 覆盖本次申请的refresh完成时完成
+     */
+    public CompletableFuture<Void> refresh(String indexName) {
+        requestCount.incrementAndGet();
+        return states.computeIfAbsent(indexName, IndexState::new).request();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "EsRefreshCoalescer{" +
+                "intervalMillis=" + intervalMillis +
+                ", requestCount=" + requestCount +
+                ", refreshCount=" + refreshCount +
+                '}';
+    }
+
+    /**
+     * 单个索引的刷新状态
+     */
+    private final class IndexState {
+        private final String indexName;
+
+        /**
+         * 等待下一次refresh的申请共享的future，没有等待的申请时为null
+         */
+        private CompletableFuture<Void> pending;
+
+        /**
+         * 是否有refresh在执行，执行中的refresh可能在写入前已开始，不能覆盖新的申请
+         */
+        private boolean running;
+
+        /**
+         * 上一次refresh的开始时间
+         */
+        private long lastStartMillis;
+
+        private IndexState(String indexName) {
+            this.indexName = indexName;
+        }
+
+        private synchronized CompletableFuture<Void> request() {
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                // 有refresh在执行时，由其完成后调度
+                if (!running) {
+                    schedule();
+                }
+            }
+            return pending;
+        }
+
+        private void schedule() {
+            long delay = Math.max(0L, lastStartMillis + intervalMillis - System.currentTimeMillis());
+            SCHEDULER.schedule(this::fire, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void fire() {
+            CompletableFuture<Void> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = null;
+                running = true;
+                lastStartMillis = System.currentTimeMillis();
+            }
+            refreshCount.incrementAndGet();
+            CompletableFuture<?> result;
+            try {
+                result = refreshFunction.apply(indexName);
+            } catch (RuntimeException e) {
+                CompletableFuture<Object> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                result = failed;
+            }
+            result.whenComplete((value, e) -> {
+                synchronized (this) {
+                    running = false;
+                    if (pending != null) {
+                        schedule();
+                    }
+                }
+                if (e != null) {
+                    batch.completeExceptionally(e);
+                } else {
+                    batch.complete(null);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.xwl.esplus.core.toolkit;
+
+import com.xwl.esplus.core.constant.EsConstants;
+import com.xwl.esplus.core.enums.EsAnalyzerEnum;
+import com.xwl.esplus.core.enums.EsFieldTypeEnum;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.xwl.esplus.core.enums.EsAttachTypeEnum.LIKE_LEFT;
+import static com.xwl.esplus.core.enums.EsAttachTypeEnum.LIKE_RIGHT;
+
+/**
+ * n-gram模糊查询工具类，见@EsDocumentField(ngram = true)
+ * <p>
+ * 字段上添加三个子字段：
+ * <ul>
+ *     <li>ngram：固定长度的n-gram，like改写为对该子字段的match_phrase（相邻的n-gram即原值的子串）</li>
+ *     <li>prefix：edge-n-gram，即原值的所有前缀，likeRight改写为对该子字段的term</li>
+ *     <li>suffix：反转后的edge-n-gram，即原值的所有后缀，likeLeft改写为对该子字段的term</li>
+ * </ul>
+ * 值过短、过长或包含通配符时无法改写，仍使用wildcard查询；读索引mapping中不存在子字段（如未重建的旧索引）时也不改写，
+ * 是否存在由mapper按客户端检查，构建查询时通过withReadyColumns传入
+ *
+ * @author xwl
+ * @since 2026/10/18 23:04
+ */
+public class NgramUtils {
+    private static final String ANALYSIS = "analysis";
+    private static final String TOKENIZER = "tokenizer";
+    private static final String FILTER = "filter";
+    private static final String CUSTOM = "custom";
+    private static final String MIN_GRAM = "min_gram";
+    private static final String MAX_GRAM = "max_gram";
+    private static final String REVERSE = "reverse";
+    private static final List<String> SUB_FIELDS = Arrays.asList(EsConstants.NGRAM_SUB_FIELD, EsConstants.PREFIX_SUB_FIELD,
+            EsConstants.SUFFIX_SUB_FIELD);
+    private static final List<String> ANALYZERS = Arrays.asList(EsConstants.NGRAM_ANALYZER, EsConstants.PREFIX_ANALYZER,
+            EsConstants.SUFFIX_ANALYZER);
+
+    /**
+     * 当前线程正在构建的查询中，读索引mapping已有子字段的字段
+     */
+    private static final ThreadLocal<Set<String>> READY_COLUMNS = new ThreadLocal<>();
+
+    private NgramUtils() {
+    }
+
+    /**
+     * 在指定的已有子字段的字段下构建查询，构建完毕后恢复当前线程原有的字段
+     *
+     * @param readyColumns 读索引mapping中已有子字段的字段（es字段名称）
+     * @param supplier     构建查询
+     * @param <R>          构建结果类型
+     * @return 构建结果
+     */
+    public static <R> R withReadyColumns(Set<String> readyColumns, Supplier<R> supplier) {
+        Set<String> previous = READY_COLUMNS.get();
+        READY_COLUMNS.set(readyColumns);
+        try {
+            return supplier.get();
+        } finally {
+            if (Objects.isNull(previous)) {
+                READY_COLUMNS.remove();
+            } else {
+                READY_COLUMNS.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 字段的like查询是否可以改写，不在withReadyColumns中构建的查询不改写
+     *
+     * @param column es字段名称
+     * @return 是否可以改写
+     */
+    public static boolean isReady(String column) {
+        Set<String> readyColumns = READY_COLUMNS.get();
+        return Objects.nonNull(readyColumns) && readyColumns.contains(column);
+    }
+
+    /**
+     * 在用户自定义的analysis中添加n-gram相关的tokenizer、filter及analyzer，同名的用户配置优先，不修改入参
+     *
+     * @param analysis 用户自定义的analysis，格式同EsIndexSettingParam.analysis，可为null
+     * @return 合并后的analysis
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> buildAnalysis(Map<String, Object> analysis) {
+        Map<String, Object> result = Objects.isNull(analysis) ? new HashMap<>() : new HashMap<>(analysis);
+        Map<String, Object> inner = new HashMap<>((Map<String, Object>) result.getOrDefault(ANALYSIS, Collections.emptyMap()));
+        result.put(ANALYSIS, inner);
+
+        Map<String, Object> ngramTokenizer = new HashMap<>();
+        ngramTokenizer.put(EsConstants.TYPE, "ngram");
+        ngramTokenizer.put(MIN_GRAM, EsConstants.NGRAM_SIZE);
+        ngramTokenizer.put(MAX_GRAM, EsConstants.NGRAM_SIZE);
+        putIfAbsent(inner, TOKENIZER, EsConstants.NGRAM_TOKENIZER, ngramTokenizer);
+
+        Map<String, Object> edgeNgramFilter = new HashMap<>();
+        edgeNgramFilter.put(EsConstants.TYPE, "edge_ngram");
+        edgeNgramFilter.put(MIN_GRAM, 1);
+        edgeNgramFilter.put(MAX_GRAM, EsConstants.EDGE_NGRAM_MAX_SIZE);
+        putIfAbsent(inner, FILTER, EsConstants.EDGE_NGRAM_FILTER, edgeNgramFilter);
+
+        putIfAbsent(inner, EsConstants.ANALYZER, EsConstants.NGRAM_ANALYZER,
+                customAnalyzer(EsConstants.NGRAM_TOKENIZER));
+        putIfAbsent(inner, EsConstants.ANALYZER, EsConstants.PREFIX_ANALYZER,
+                customAnalyzer(EsAnalyzerEnum.KEYWORD.getType(), EsConstants.EDGE_NGRAM_FILTER));
+        putIfAbsent(inner, EsConstants.ANALYZER, EsConstants.SUFFIX_ANALYZER,
+                customAnalyzer(EsAnalyzerEnum.KEYWORD.getType(), REVERSE, EsConstants.EDGE_NGRAM_FILTER, REVERSE));
+        return result;
+    }
+
+    /**
+     * 为mapping中启用n-gram的字段添加ngram、prefix、suffix子字段，已存在的同名子字段不覆盖
+     *
+     * @param mapping 索引mapping，包含properties
+     * @param columns 启用n-gram的es字段名称
+     * @return 是否添加了子字段
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean addSubFields(Map<String, Object> mapping, Set<String> columns) {
+        Map<String, Object> properties = (Map<String, Object>) mapping.get(EsConstants.PROPERTIES);
+        if (CollectionUtils.isEmpty(columns) || Objects.isNull(properties)) {
+            return false;
+        }
+        boolean added = false;
+        for (String column : columns) {
+            Map<String, Object> fieldInfo = (Map<String, Object>) properties.get(column);
+            if (Objects.isNull(fieldInfo)) {
+                continue;
+            }
+            Map<String, Object> fields = (Map<String, Object>) fieldInfo.computeIfAbsent(EsConstants.FIELDS, key -> new HashMap<>());
+            fields.putIfAbsent(EsConstants.NGRAM_SUB_FIELD, subField(EsConstants.NGRAM_ANALYZER, null));
+            fields.putIfAbsent(EsConstants.PREFIX_SUB_FIELD, subField(EsConstants.PREFIX_ANALYZER, EsAnalyzerEnum.KEYWORD.getType()));
+            fields.putIfAbsent(EsConstants.SUFFIX_SUB_FIELD, subField(EsConstants.SUFFIX_ANALYZER, EsAnalyzerEnum.KEYWORD.getType()));
+            added = true;
+        }
+        return added;
+    }
+
+    /**
+     * 获取mapping中已有ngram、prefix、suffix子字段的字段，只有这些字段的like查询可以改写
+     *
+     * @param mapping 索引mapping，包含properties
+     * @param columns 启用n-gram的es字段名称
+     * @return 已有子字段的es字段名称
+     */
+    @SuppressWarnings("unchecked")
+    public static Set<String> getSubFieldColumns(Map<String, Object> mapping, Set<String> columns) {
+        Set<String> result = new HashSet<>();
+        Map<String, Object> properties = Objects.isNull(mapping) ? null : (Map<String, Object>) mapping.get(EsConstants.PROPERTIES);
+        if (CollectionUtils.isEmpty(columns) || Objects.isNull(properties)) {
+            return result;
+        }
+        for (String column : columns) {
+            Map<String, Object> fieldInfo = (Map<String, Object>) properties.get(column);
+            Map<String, Object> fields = Objects.isNull(fieldInfo) ? null : (Map<String, Object>) fieldInfo.get(EsConstants.FIELDS);
+            if (Objects.nonNull(fields) && fields.keySet().containsAll(SUB_FIELDS)) {
+                result.add(column);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 索引settings中是否已有n-gram相关的分词器，已有时才能为已存在的索引添加子字段（分词器只能在关闭索引后修改）
+     *
+     * @param analyzers 索引已有的分词器名称（index.analysis.analyzer下的名称）
+     * @return 是否已有
+     */
+    public static boolean containsAnalyzers(Set<String> analyzers) {
+        return Objects.nonNull(analyzers) && analyzers.containsAll(ANALYZERS);
+    }
+
+    /**
+     * 将like、likeLeft、likeRight改写为对n-gram子字段的查询
+     *
+     * @param field    es字段名称
+     * @param value    值
+     * @param likeType 连接类型：LIKE_LEFT、LIKE_RIGHT，其余按like处理
+     * @return 改写后的查询，无法改写时返回null
+     */
+    public static QueryBuilder buildLikeQuery(String field, Object value, Integer likeType) {
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        String text = value.toString();
+        if (text.contains(EsConstants.WILDCARD_SIGN) || text.contains(EsConstants.WILDCARD_SINGLE_SIGN)) {
+            return null;
+        }
+        int length = text.codePointCount(0, text.length());
+        if (Objects.equals(likeType, LIKE_LEFT.getType()) || Objects.equals(likeType, LIKE_RIGHT.getType())) {
+            if (length == 0 || length > EsConstants.EDGE_NGRAM_MAX_SIZE) {
+                return null;
+            }
+            String subField = Objects.equals(likeType, LIKE_LEFT.getType()) ? EsConstants.SUFFIX_SUB_FIELD : EsConstants.PREFIX_SUB_FIELD;
+            return QueryBuilders.termQuery(field + EsConstants.PATH_FIELD_JOIN + subField, text);
+        }
+        if (length < EsConstants.NGRAM_SIZE) {
+            return null;
+        }
+        return QueryBuilders.matchPhraseQuery(field + EsConstants.PATH_FIELD_JOIN + EsConstants.NGRAM_SUB_FIELD, text);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putIfAbsent(Map<String, Object> analysis, String type, String name, Map<String, Object> definition) {
+        Map<String, Object> definitions = new HashMap<>((Map<String, Object>) analysis.getOrDefault(type, Collections.emptyMap()));
+        definitions.putIfAbsent(name, definition);
+        analysis.put(type, definitions);
+    }
+
+    private static Map<String, Object> customAnalyzer(String tokenizer, String... filters) {
+        Map<String, Object> analyzer = new HashMap<>();
+        analyzer.put(EsConstants.TYPE, CUSTOM);
+        analyzer.put(TOKENIZER, tokenizer);
+        if (filters.length > 0) {
+            analyzer.put(FILTER, Arrays.asList(filters));
+        }
+        return analyzer;
+    }
+
+    private static Map<String, Object> subField(String analyzer, String searchAnalyzer) {
+        Map<String, Object> subField = new HashMap<>();
+        subField.put(EsConstants.TYPE, EsFieldTypeEnum.TEXT.getType());
+        subField.put(EsConstants.ANALYZER, analyzer);
+        if (Objects.nonNull(searchAnalyzer)) {
+            subField.put(EsConstants.SEARCH_ANALYZER, searchAnalyzer);
+        }
+        return subField;
+    }
+}
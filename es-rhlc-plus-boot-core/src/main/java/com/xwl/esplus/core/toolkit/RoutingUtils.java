@@ -0,0 +1,81 @@
+package com.xwl.esplus.core.toolkit;
+
+import com.xwl.esplus.core.constant.EsConstants;
+import com.xwl.esplus.core.enums.EsQueryTypeEnum;
+import com.xwl.esplus.core.param.EsBaseParam;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 路由工具类，见@EsRouting
+ *
+ * @author xwl
+ * @since 2026/10/18 23:12
+ */
+public class RoutingUtils {
+    private RoutingUtils() {
+    }
+
+    /**
+     * 获取实体的路由值
+     *
+     * @param entity       实体
+     * @param routingField 路由字段
+     * @return 路由值，字段为空时返回null
+     */
+    public static String getRouting(Object entity, Field routingField) {
+        try {
+            Object value = routingField.get(entity);
+            return Objects.isNull(value) || StringUtils.isBlank(value.toString()) ? null : value.toString();
+        } catch (IllegalAccessException e) {
+            throw ExceptionUtils.epe("get routing field exception, field: %s", e, routingField.getName());
+        }
+    }
+
+    /**
+     * 根据查询条件推导查询的routing：顶层以and连接的路由字段eq条件，或in条件（多个routing以逗号分隔）
+     * <p>
+     * 包含or()、and()括号时无法保证只命中这些routing，返回null
+     *
+     * @param baseParamList 查询条件，可为null
+     * @param fieldName     路由字段（实体字段名）
+     * @return routing，无法推导时返回null
+     */
+    public static String deriveRouting(List<EsBaseParam> baseParamList, String fieldName) {
+        if (CollectionUtils.isEmpty(baseParamList)) {
+            return null;
+        }
+        String inRouting = null;
+        for (EsBaseParam baseParam : baseParamList) {
+            if (Objects.nonNull(baseParam.getType())) {
+                return null;
+            }
+            List<EsBaseParam.FieldValueModel> eqList = new ArrayList<>(baseParam.getMustList());
+            eqList.addAll(baseParam.getFilterList());
+            for (EsBaseParam.FieldValueModel model : eqList) {
+                if (isRoutingField(model, fieldName) && Objects.equals(model.getEsQueryType(), EsQueryTypeEnum.TERM_QUERY.getType())
+                        && Objects.nonNull(model.getValue())) {
+                    return model.getValue().toString();
+                }
+            }
+            for (EsBaseParam.FieldValueModel model : baseParam.getInList()) {
+                if (Objects.isNull(inRouting) && isRoutingField(model, fieldName) && CollectionUtils.isNotEmpty(model.getValues())) {
+                    inRouting = model.getValues().stream()
+                            .filter(Objects::nonNull)
+                            .map(Object::toString)
+                            .distinct()
+                            .collect(Collectors.joining(EsConstants.COMMA));
+                }
+            }
+        }
+        return StringUtils.isBlank(inRouting) ? null : inRouting;
+    }
+
+    private static boolean isRoutingField(EsBaseParam.FieldValueModel model, String fieldName) {
+        return fieldName.equals(model.getField()) && StringUtils.isBlank(model.getPath());
+    }
+}
@@ -0,0 +1,177 @@
+package com.xwl.esplus.core.toolkit;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.Feature;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.xwl.esplus.core.config.GlobalConfig;
+import com.xwl.esplus.core.enums.EsUpdateTypeEnum;
+import com.xwl.esplus.core.param.EsUpdateParam;
+import org.elasticsearch.action.admin.cluster.storedscripts.PutStoredScriptRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 更新脚本工具类：将EsLambdaUpdateWrapper中的更新参数编译为参数化的painless脚本
+ * <p>
+ * 字段名和值均通过params传入，脚本内容只取决于更新方式的组合，相同组合复用同一脚本，服务端只需编译一次；
+ * 脚本优先保存为stored script并按id引用，保存失败（如无权限）时使用inline脚本
+ *
+ * @author xwl
+ * @since 2026/10/18 23:21
+ */
+public class ScriptUtils {
+    private static final Logger log = LoggerFactory.getLogger(ScriptUtils.class);
+
+    /**
+     * stored script的id前缀
+     */
+    public static final String SCRIPT_ID_PREFIX = "es_plus_update_";
+
+    /**
+     * 脚本id -> 脚本内容
+     */
+    private static final Map<String, String> SOURCES = new ConcurrentHashMap<>();
+
+    /**
+     * 客户端 -> (脚本id -> 是否已保存为stored script)
+     */
+    private static final Map<RestHighLevelClient, Map<String, Boolean>> STORED = new ConcurrentHashMap<>();
+
+    private ScriptUtils() {
+    }
+
+    /**
+     * 构建更新脚本
+     *
+     * @param client           es客户端，用于保存stored script
+     * @param updateParamList  更新参数
+     * @param mappingColumnMap 字段映射关系map
+     * @param documentConfig   配置
+     * @return 脚本
+     */
+    public static Script buildScript(RestHighLevelClient client, List<EsUpdateParam> updateParamList,
+                                     Map<String, String> mappingColumnMap, GlobalConfig.DocumentConfig documentConfig) {
+        String id = getScriptId(updateParamList);
+        String source = getSource(updateParamList);
+        Map<String, Object> params = buildParams(updateParamList, mappingColumnMap, documentConfig);
+        if (storeScript(client, id, source)) {
+            return new Script(ScriptType.STORED, null, id, params);
+        }
+        return new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG, source, params);
+    }
+
+    /**
+     * 脚本id，由更新方式的组合决定
+     *
+     * @param updateParamList 更新参数
+     * @return 脚本id
+     */
+    public static String getScriptId(List<EsUpdateParam> updateParamList) {
+        return SCRIPT_ID_PREFIX + updateParamList.stream()
+                .map(param -> param.getType().name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining("_"));
+    }
+
+    /**
+     * 脚本内容，第i个更新参数的字段名、值分别为params.fi、params.vi；没有任何字段变化时不写入（noop）
+     *
+     * @param updateParamList 更新参数
+     * @return painless脚本内容
+     */
+    public static String getSource(List<EsUpdateParam> updateParamList) {
+        return SOURCES.computeIfAbsent(getScriptId(updateParamList), id -> {
+            StringBuilder source = new StringBuilder("boolean changed = false;");
+            for (int i = 0; i < updateParamList.size(); i++) {
+                source.append(' ').append(buildStatement(updateParamList.get(i).getType(), i));
+            }
+            return source.append(" if (!changed) { ctx.op = 'noop'; }").toString();
+        });
+    }
+
+    /**
+     * 脚本参数，值按fastjson序列化后传入，与set()写入的格式一致
+     *
+     * @param updateParamList  更新参数
+     * @param mappingColumnMap 字段映射关系map
+     * @param documentConfig   配置
+     * @return 脚本参数
+     */
+    public static Map<String, Object> buildParams(List<EsUpdateParam> updateParamList, Map<String, String> mappingColumnMap,
+                                                  GlobalConfig.DocumentConfig documentConfig) {
+        JSONObject params = new JSONObject(true);
+        for (int i = 0; i < updateParamList.size(); i++) {
+            EsUpdateParam param = updateParamList.get(i);
+            params.put("f" + i, FieldUtils.getRealField(param.getField(), mappingColumnMap, documentConfig));
+            params.put("v" + i, param.getValue());
+        }
+        // 小数解析为Double而不是BigDecimal，脚本中可直接参与数值运算
+        int features = JSON.DEFAULT_PARSER_FEATURE & ~Feature.UseBigDecimal.getMask();
+        return (JSONObject) JSON.parse(JSON.toJSONString(params, SerializerFeature.WriteMapNullValue), features);
+    }
+
+    private static String buildStatement(EsUpdateTypeEnum type, int i) {
+        String field = "ctx._source[params.f" + i + "]";
+        String current = "c" + i;
+        String value = "params.v" + i;
+        switch (type) {
+            case INCR:
+            case DECR:
+                String operator = type == EsUpdateTypeEnum.INCR ? " + " : " - ";
+                return String.format("def %s = %s; %s = (%s == null ? 0 : %s)%s%s; changed = true;",
+                        current, field, field, current, current, operator, value);
+            case APPEND:
+                return String.format("def %s = %s; if (%s == null) { %s = new ArrayList(); } else if (!(%s instanceof List)) { %s = [%s]; } "
+                                + "%s.add(%s); %s = %s; changed = true;",
+                        current, field, current, current, current, current, current, current, value, field, current);
+            case REMOVE:
+                String removed = "r" + i;
+                return String.format("def %s = %s; def %s = %s; if (%s instanceof List) { changed = %s.removeIf(e -> e == %s) || changed; }",
+                        current, field, removed, value, current, current, removed);
+            case SET_IF_GREATER:
+                return String.format("def %s = %s; if (%s == null || %s > %s) { %s = %s; changed = true; }",
+                        current, field, current, value, current, field, value);
+            case SET:
+            default:
+                return String.format("%s = %s; changed = true;", field, value);
+        }
+    }
+
+    /**
+     * 保存stored script，每个客户端每个脚本只保存一次，保存失败时不再重试
+     *
+     * @return 是否可按id引用
+     */
+    private static boolean storeScript(RestHighLevelClient client, String id, String source) {
+        return STORED.computeIfAbsent(client, key -> new ConcurrentHashMap<>()).computeIfAbsent(id, key -> {
+            Map<String, Object> script = new JSONObject(true);
+            script.put("lang", Script.DEFAULT_SCRIPT_LANG);
+            script.put("source", source);
+            String content = JSON.toJSONString(Collections.singletonMap("script", script));
+            PutStoredScriptRequest request = new PutStoredScriptRequest()
+                    .id(id)
+                    .content(new BytesArray(content), XContentType.JSON);
+            try {
+                boolean acknowledged = client.putScript(request, RequestOptions.DEFAULT).isAcknowledged();
+                log.info("put stored script [{}] result: {}", id, acknowledged);
+                return acknowledged;
+            } catch (Exception e) {
+                log.warn("put stored script [{}] failed, fall back to inline script", id, e);
+                return false;
+            }
+        });
+    }
+}
@@ -5,6 +5,8 @@ import com.xwl.esplus.core.config.GlobalConfig;
 import com.xwl.esplus.core.constant.EsConstants;
 import com.xwl.esplus.core.enums.EsAttachTypeEnum;
 import com.xwl.esplus.core.metadata.DocumentInfo;
+import com.xwl.esplus.core.optimizer.EsQueryOptimizeContext;
+import com.xwl.esplus.core.optimizer.EsQueryOptimizer;
 import com.xwl.esplus.core.param.EsAggregationParam;
 import com.xwl.esplus.core.param.EsBaseParam;
 import com.xwl.esplus.core.param.EsGeoParam;
@@ -14,10 +16,15 @@ import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
 import org.elasticsearch.index.query.*;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
 import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.ScoreSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 
 import java.io.IOException;
@@ -46,16 +53,116 @@ public class EsWrapperProcessor {
      * @return SearchSourceBuilder
      */
     public static SearchSourceBuilder buildSearchSourceBuilder(EsLambdaQueryWrapper<?> wrapper, Class<?> entityClass) {
+        return buildSearchSourceBuilder(wrapper, entityClass, false);
+    }
+
+    /**
+     * 构建es查询参数
+     *
+     * @param wrapper     查询条件
+     * @param entityClass es索引对应的实体类
+     * @param withoutHits 是否不返回文档（size=0），不返回文档时查询无需算分
+     * @return SearchSourceBuilder
+     */
+    public static SearchSourceBuilder buildSearchSourceBuilder(EsLambdaQueryWrapper<?> wrapper, Class<?> entityClass, boolean withoutHits) {
         SearchSourceBuilder searchSourceBuilder = initSearchSourceBuilder(wrapper, entityClass);
+        if (withoutHits) {
+            searchSourceBuilder.size(EsConstants.ZERO);
+        }
         // 构建BoolQueryBuilder
         BoolQueryBuilder boolQueryBuilder = buildBoolQueryBuilder(wrapper.getBaseParamList(), wrapper.getEnableMust2Filter(), entityClass);
         // 初始化geo相关: BoundingBox,geoDistance,geoPolygon,geoShape
         Optional.ofNullable(wrapper.getGeoParam()).ifPresent(esGeoParam -> setGeoQuery(esGeoParam, boolQueryBuilder, entityClass));
         // 设置参数
-        searchSourceBuilder.query(boolQueryBuilder);
+        searchSourceBuilder.query(optimizeQuery(boolQueryBuilder, isScoring(searchSourceBuilder), entityClass));
         return searchSourceBuilder;
     }
 
+    /**
+     * 查询优化，全局配置关闭时返回入参本身
+     *
+     * @param boolQueryBuilder bool查询
+     * @param scoring          是否需要算分，count、按非_score字段排序等不需要算分的场景传false
+     * @param entityClass      es索引对应的实体类
+     * @return 优化后的bool查询
+     */
+    public static BoolQueryBuilder optimizeQuery(BoolQueryBuilder boolQueryBuilder, boolean scoring, Class<?> entityClass) {
+        if (!getGlobalConfig().getDocumentConfig().isEnableQueryOptimizer()) {
+            return boolQueryBuilder;
+        }
+        Set<String> singleValueColumns = DocumentInfoUtils.getDocumentInfo(entityClass).getSingleValueColumnSet();
+        return EsQueryOptimizer.getInstance().optimize(boolQueryBuilder, new EsQueryOptimizeContext(scoring, singleValueColumns));
+    }
+
+    /**
+     * 查询是否需要算分：不返回文档（size=0）、或按非_score字段排序时不需要；top_hits聚合可能按分数排序，视为需要算分
+     *
+     * @param searchSourceBuilder 查询参数
+     * @return 是否需要算分
+     */
+    private static boolean isScoring(SearchSourceBuilder searchSourceBuilder) {
+        if (searchSourceBuilder.aggregations() != null
+                && containsTopHits(searchSourceBuilder.aggregations().getAggregatorFactories())) {
+            return true;
+        }
+        if (searchSourceBuilder.size() == EsConstants.ZERO) {
+            return false;
+        }
+        List<SortBuilder<?>> sorts = searchSourceBuilder.sorts();
+        return CollectionUtils.isEmpty(sorts) || searchSourceBuilder.trackScores()
+                || sorts.stream().anyMatch(sort -> sort instanceof ScoreSortBuilder);
+    }
+
+    private static boolean containsTopHits(Collection<AggregationBuilder> aggregationBuilders) {
+        return aggregationBuilders.stream().anyMatch(aggregationBuilder -> aggregationBuilder instanceof TopHitsAggregationBuilder
+                || containsTopHits(aggregationBuilder.getSubAggregations()));
+    }
+
+    /**
+     * 是否为只有聚合的查询：包含聚合，且未指定size、from、查询字段、高亮及排序，即调用方不需要文档，全局配置关闭时返回false
+     *
+     * @param wrapper 查询条件
+     * @return 是否只有聚合
+     */
+    public static boolean isAggregationOnly(EsLambdaQueryWrapper<?> wrapper) {
+        return getGlobalConfig().getDocumentConfig().isEnableAggregationOnlyOptimization()
+                && CollectionUtils.isNotEmpty(wrapper.getAggregationParamList())
+                && Objects.isNull(wrapper.getSize())
+                && Objects.isNull(wrapper.getFrom())
+                && CollectionUtils.isEmpty(wrapper.getInclude())
+                && CollectionUtils.isEmpty(wrapper.getExclude())
+                && CollectionUtils.isEmpty(wrapper.getHighLightParamList())
+                && CollectionUtils.isEmpty(wrapper.getSortParamList())
+                && CollectionUtils.isEmpty(wrapper.getSortBuilders())
+                && CollectionUtils.isEmpty(wrapper.getOrderByParams());
+    }
+
+    /**
+     * 构建composite聚合，wrapper中的聚合作为每个桶的子聚合
+     *
+     * @param wrapper     查询条件
+     * @param entityClass es索引对应的实体类
+     * @param fields      分组字段（实体字段名），同时作为composite中各source的名称
+     * @param pageSize    每页桶数
+     * @return CompositeAggregationBuilder
+     */
+    public static CompositeAggregationBuilder buildCompositeAggregationBuilder(EsLambdaQueryWrapper<?> wrapper, Class<?> entityClass,
+                                                                               List<String> fields, int pageSize) {
+        Map<String, String> columnMappingMap = DocumentInfoUtils.getDocumentInfo(entityClass).getFieldColumnMap();
+        GlobalConfig.DocumentConfig documentConfig = getGlobalConfig().getDocumentConfig();
+        List<CompositeValuesSourceBuilder<?>> sources = fields.stream()
+                .<CompositeValuesSourceBuilder<?>>map(field -> new TermsValuesSourceBuilder(field).field(getRealField(field, columnMappingMap, documentConfig)))
+                .collect(Collectors.toList());
+        CompositeAggregationBuilder compositeBuilder = AggregationBuilders.composite(EsConstants.COMPOSITE_NAME, sources)
+                .size(pageSize);
+        List<? extends EsAggregationParam<?>> aggregationParamList = wrapper.getAggregationParamList();
+        if (CollectionUtils.isNotEmpty(aggregationParamList)) {
+            aggregationParamList.forEach(aggregationParam ->
+                    compositeBuilder.subAggregation(convertAggregationBuilder(aggregationParam, columnMappingMap, documentConfig)));
+        }
+        return compositeBuilder;
+    }
+
     /**
      * 设置Geo相关查询参数 geoBoundingBox, geoDistance, geoPolygon, geoShape
      *
@@ -1,5 +1,7 @@
 package com.xwl.esplus.core.wrapper.query;
 
+import com.xwl.esplus.core.constant.EsConstants;
+import com.xwl.esplus.core.enums.EsCountModeEnum;
 import com.xwl.esplus.core.metadata.DocumentFieldInfo;
 import com.xwl.esplus.core.wrapper.EsAbstractLambdaWrapper;
 import com.xwl.esplus.core.wrapper.condition.SFunction;
@@ -39,6 +41,34 @@ public class EsLambdaQueryWrapper<T> extends EsAbstractLambdaWrapper<T, EsLambda
      * 查询多少条记录
      */
     protected Integer size;
+    /**
+     * 分页查询时精确统计总数的上限
+     */
+    protected Integer trackTotalHitsUpTo;
+    /**
+     * 是否使用查询结果缓存
+     */
+    protected Boolean queryCache;
+    /**
+     * 查询结果缓存存活时间（单位：s）
+     */
+    protected Long queryCacheTtl;
+    /**
+     * count统计方式
+     */
+    protected EsCountModeEnum countMode;
+    /**
+     * 是否使用es分片请求缓存
+     */
+    protected Boolean requestCache;
+    /**
+     * 分片副本选择偏好
+     */
+    protected String preference;
+    /**
+     * 查询的routing，多个以逗号分隔
+     */
+    protected String routing;
 
     /**
      * must条件转filter
@@ -93,6 +123,34 @@ public class EsLambdaQueryWrapper<T> extends EsAbstractLambdaWrapper<T, EsLambda
         return size;
     }
 
+    public Integer getTrackTotalHitsUpTo() {
+        return trackTotalHitsUpTo;
+    }
+
+    public Boolean getQueryCache() {
+        return queryCache;
+    }
+
+    public Long getQueryCacheTtl() {
+        return queryCacheTtl;
+    }
+
+    public EsCountModeEnum getCountMode() {
+        return countMode;
+    }
+
+    public Boolean getRequestCache() {
+        return requestCache;
+    }
+
+    public String getPreference() {
+        return preference;
+    }
+
+    public String getRouting() {
+        return routing;
+    }
+
 //    public Boolean getEnableMust2Filter() {
 //        return enableMust2Filter;
 //    }
@@ -166,6 +224,48 @@ public class EsLambdaQueryWrapper<T> extends EsAbstractLambdaWrapper<T, EsLambda
         return typedThis;
     }
 
+    @Override
+    public EsLambdaQueryWrapper<T> trackTotalHitsUpTo(Integer upTo) {
+        this.trackTotalHitsUpTo = upTo;
+        return typedThis;
+    }
+
+    @Override
+    public EsLambdaQueryWrapper<T> queryCache(boolean enable) {
+        this.queryCache = enable;
+        return typedThis;
+    }
+
+    @Override
+    public EsLambdaQueryWrapper<T> queryCacheTtl(long ttlSeconds) {
+        this.queryCacheTtl = ttlSeconds;
+        return typedThis;
+    }
+
+    @Override
+    public EsLambdaQueryWrapper<T> countMode(EsCountModeEnum countMode) {
+        this.countMode = countMode;
+        return typedThis;
+    }
+
+    @Override
+    public EsLambdaQueryWrapper<T> requestCache(boolean enable) {
+        this.requestCache = enable;
+        return typedThis;
+    }
+
+    @Override
+    public EsLambdaQueryWrapper<T> preference(String preference) {
+        this.preference = preference;
+        return typedThis;
+    }
+
+    @Override
+    public EsLambdaQueryWrapper<T> routing(String... routing) {
+        this.routing = CollectionUtils.isEmpty(routing) ? null : String.join(EsConstants.COMMA, routing);
+        return typedThis;
+    }
+
     @Override
     protected SearchRequest getSearchRequest() {
         // TODO 待优化
@@ -1,5 +1,6 @@
 package com.xwl.esplus.core.wrapper.query;
 
+import com.xwl.esplus.core.enums.EsCountModeEnum;
 import com.xwl.esplus.core.metadata.DocumentFieldInfo;
 
 import java.io.Serializable;
@@ -78,6 +79,65 @@ public interface Query<Children, T, R> extends Serializable {
      */
     Children limit(Integer m, Integer n);
 
+    /**
+     * 分页查询时精确统计总数的上限，超过上限时总数为"至少N条"（PageInfo.isTotalAccurate()为false）
+     * 不设置时使用全局配置page-track-total-hits-up-to
+     *
+     * @param upTo 统计上限，小于等于0表示精确统计
+     * @return 泛型
+     */
+    Children trackTotalHitsUpTo(Integer upTo);
+
+    /**
+     * 本次查询是否使用查询结果缓存，不设置时使用全局配置enable-query-cache
+     *
+     * @param enable true使用缓存，false绕过缓存直接查询es
+     * @return 泛型
+     */
+    Children queryCache(boolean enable);
+
+    /**
+     * 本次查询结果的缓存存活时间，不设置时使用全局配置query-cache-ttl-seconds
+     *
+     * @param ttlSeconds 存活时间（单位：s）
+     * @return 泛型
+     */
+    Children queryCacheTtl(long ttlSeconds);
+
+    /**
+     * 本次count的统计方式，不设置时使用全局配置count-mode
+     *
+     * @param countMode 统计方式
+     * @return 泛型
+     */
+    Children countMode(EsCountModeEnum countMode);
+
+    /**
+     * 本次查询是否使用es分片请求缓存（request_cache），不设置时size=0的查询在全局配置enable-aggregation-only-optimization开启时使用
+     * <p>
+     * es只缓存size=0的请求，size大于0时设置无效
+     *
+     * @param enable true使用，false不使用
+     * @return 泛型
+     */
+    Children requestCache(boolean enable);
+
+    /**
+     * 本次查询的preference，相同preference的查询优先路由到相同的分片副本，以命中已预热的分片请求缓存，如：用户id、会话id
+     *
+     * @param preference preference
+     * @return 泛型
+     */
+    Children preference(String preference);
+
+    /**
+     * 本次查询的routing，只查询这些routing所在的分片；不设置时根据@EsRouting字段上的eq、in条件自动推导
+     *
+     * @param routing routing，多个时查询多个routing所在的分片
+     * @return 泛型
+     */
+    Children routing(String... routing);
+
     /**
      * must 条件转filter 默认不转换
      *
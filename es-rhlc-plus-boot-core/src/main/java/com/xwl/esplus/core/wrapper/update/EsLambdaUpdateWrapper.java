@@ -1,5 +1,8 @@
 package com.xwl.esplus.core.wrapper.update;
 
+import com.xwl.esplus.core.constant.EsConstants;
+import com.xwl.esplus.core.enums.EsUpdateTypeEnum;
+import com.xwl.esplus.core.toolkit.CollectionUtils;
 import com.xwl.esplus.core.wrapper.EsAbstractLambdaWrapper;
 import com.xwl.esplus.core.wrapper.condition.SFunction;
 import com.xwl.esplus.core.param.EsBaseParam;
@@ -9,6 +12,7 @@ import org.elasticsearch.action.search.SearchRequest;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author xwl
@@ -17,6 +21,10 @@ import java.util.List;
 public class EsLambdaUpdateWrapper<T> extends EsAbstractLambdaWrapper<T, EsLambdaUpdateWrapper<T>>
         implements Update<EsLambdaUpdateWrapper<T>, SFunction<T, ?>> {
     List<EsUpdateParam> updateParamList;
+    /**
+     * 查询待更新文档时使用的routing，多个以逗号分隔
+     */
+    protected String routing;
 
     /**
      * 不建议直接 new 该实例，使用 Wrappers.lambdaQuery(entity)
@@ -46,12 +54,61 @@ public class EsLambdaUpdateWrapper<T> extends EsAbstractLambdaWrapper<T, EsLambd
         return updateParamList;
     }
 
+    public String getRouting() {
+        return routing;
+    }
+
+    /**
+     * 是否包含需要通过脚本执行的更新（set以外的更新方式）
+     *
+     * @return 是否包含脚本更新
+     */
+    public boolean isScripted() {
+        return updateParamList.stream().anyMatch(param -> !Objects.equals(param.getType(), EsUpdateTypeEnum.SET));
+    }
+
     @Override
     public EsLambdaUpdateWrapper<T> set(boolean condition, SFunction<T, ?> column, Object val) {
+        return addUpdateParam(condition, column, val, EsUpdateTypeEnum.SET);
+    }
+
+    @Override
+    public EsLambdaUpdateWrapper<T> incr(boolean condition, SFunction<T, ?> column, Number delta) {
+        return addUpdateParam(condition, column, delta, EsUpdateTypeEnum.INCR);
+    }
+
+    @Override
+    public EsLambdaUpdateWrapper<T> decr(boolean condition, SFunction<T, ?> column, Number delta) {
+        return addUpdateParam(condition, column, delta, EsUpdateTypeEnum.DECR);
+    }
+
+    @Override
+    public EsLambdaUpdateWrapper<T> append(boolean condition, SFunction<T, ?> column, Object val) {
+        return addUpdateParam(condition, column, val, EsUpdateTypeEnum.APPEND);
+    }
+
+    @Override
+    public EsLambdaUpdateWrapper<T> remove(boolean condition, SFunction<T, ?> column, Object val) {
+        return addUpdateParam(condition, column, val, EsUpdateTypeEnum.REMOVE);
+    }
+
+    @Override
+    public EsLambdaUpdateWrapper<T> setIfGreater(boolean condition, SFunction<T, ?> column, Object val) {
+        return addUpdateParam(condition, column, val, EsUpdateTypeEnum.SET_IF_GREATER);
+    }
+
+    @Override
+    public EsLambdaUpdateWrapper<T> routing(String... routing) {
+        this.routing = CollectionUtils.isEmpty(routing) ? null : String.join(EsConstants.COMMA, routing);
+        return typedThis;
+    }
+
+    private EsLambdaUpdateWrapper<T> addUpdateParam(boolean condition, SFunction<T, ?> column, Object val, EsUpdateTypeEnum type) {
         if (condition) {
             EsUpdateParam esUpdateParam = new EsUpdateParam();
             esUpdateParam.setField(FieldUtils.getFieldName(column));
             esUpdateParam.setValue(val);
+            esUpdateParam.setType(type);
             updateParamList.add(esUpdateParam);
         }
         return typedThis;
@@ -22,4 +22,82 @@ public interface Update<Children, R> extends Serializable {
      * @return 泛型
      */
     Children set(boolean condition, R column, Object val);
+
+    default Children incr(R column, Number delta) {
+        return incr(true, column, delta);
+    }
+
+    /**
+     * 数值字段原子增加，字段为空时视为0
+     *
+     * @param condition 条件
+     * @param column    列
+     * @param delta     增量
+     * @return 泛型
+     */
+    Children incr(boolean condition, R column, Number delta);
+
+    default Children decr(R column, Number delta) {
+        return decr(true, column, delta);
+    }
+
+    /**
+     * 数值字段原子减少，字段为空时视为0
+     *
+     * @param condition 条件
+     * @param column    列
+     * @param delta     减量
+     * @return 泛型
+     */
+    Children decr(boolean condition, R column, Number delta);
+
+    default Children append(R column, Object val) {
+        return append(true, column, val);
+    }
+
+    /**
+     * 向数组字段追加元素，字段为空时创建数组
+     *
+     * @param condition 条件
+     * @param column    列
+     * @param val       元素
+     * @return 泛型
+     */
+    Children append(boolean condition, R column, Object val);
+
+    default Children remove(R column, Object val) {
+        return remove(true, column, val);
+    }
+
+    /**
+     * 从数组字段中删除等于指定值的所有元素
+     *
+     * @param condition 条件
+     * @param column    列
+     * @param val       元素
+     * @return 泛型
+     */
+    Children remove(boolean condition, R column, Object val);
+
+    default Children setIfGreater(R column, Object val) {
+        return setIfGreater(true, column, val);
+    }
+
+    /**
+     * 字段为空或指定值大于字段值时设置为指定值，用于数值字段（日期字段需存储为毫秒时间戳）
+     *
+     * @param condition 条件
+     * @param column    列
+     * @param val       值
+     * @return 泛型
+     */
+    Children setIfGreater(boolean condition, R column, Object val);
+
+    /**
+     * 查询待更新文档时使用的routing，不设置时根据@EsRouting字段上的eq、in条件自动推导
+     *
+     * @param routing routing，多个时查询多个routing所在的分片
+     * @return 泛型
+     */
+    Children routing(String... routing);
 }
@@ -1,5 +1,8 @@
 package com.xwl.esplus.test;
 
+import com.xwl.esplus.core.aggregation.EsAggregations;
+import com.xwl.esplus.core.aggregation.EsBucket;
+import com.xwl.esplus.core.aggregation.EsCompositeIterator;
 import com.xwl.esplus.core.toolkit.Wrappers;
 import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
 import com.xwl.esplus.core.wrapper.query.SubAggregation;
@@ -117,6 +120,44 @@ public class AggregationTest {
         System.out.println(response);
     }
 
+    @Test
+    public void testAggregate() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .stats(UserDocument::getAge)
+                .termsAggregation("nicknames", UserDocument::getNickname,
+                        SubAggregation.max(UserDocument::getAge),
+                        SubAggregation.topHist("top", 1, UserDocument::getNickname, UserDocument::getAge));
+        EsAggregations<UserDocument> aggregations = userDocumentMapper.aggregate(wrapper);
+        System.out.println(aggregations.getStats("age"));
+        for (EsBucket<UserDocument> bucket : aggregations.getBuckets("nicknames")) {
+            System.out.println(bucket.getKeyAsString() + " " + bucket.getDocCount()
+                    + " " + bucket.getLongValue("age") + " " + bucket.getTopHits("top"));
+        }
+    }
+
+    @Test
+    public void testComposite() {
+        // 每页2个桶，逐页获取所有nickname、gender组合
+        EsCompositeIterator<UserDocument> iterator = userDocumentMapper.compositeIterator(Wrappers.<UserDocument>lambdaQuery()
+                .avg(UserDocument::getAge), 2, UserDocument::getNickname, UserDocument::getGender);
+        while (iterator.hasNext()) {
+            EsBucket<UserDocument> bucket = iterator.next();
+            System.out.println(bucket.getKey("nickname") + " " + bucket.getKey("gender")
+                    + " " + bucket.getDocCount() + " " + bucket.getValue("age"));
+        }
+        System.out.println("pages: " + iterator.getPageCount());
+    }
+
+    @Test
+    public void testAggregationOnly() {
+        // 只有聚合：自动size=0并使用分片请求缓存，相同preference的查询路由到相同的分片副本
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .avg(UserDocument::getAge)
+                .preference("dashboard");
+        SearchResponse response = userDocumentMapper.search(wrapper);
+        System.out.println(response.getHits().getHits().length + " " + response);
+    }
+
     @Test
     public void testGroupByMulti() {
         EsLambdaQueryWrapper<WorkOrderDocument> wrapper = Wrappers.<WorkOrderDocument>lambdaQuery()
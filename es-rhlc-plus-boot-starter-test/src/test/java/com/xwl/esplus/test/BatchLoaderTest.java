@@ -0,0 +1,70 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.toolkit.EsBatchLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量加载器测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 18:30
+ */
+public class BatchLoaderTest {
+
+    @Test
+    public void testWindow() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        EsBatchLoader<String> loader = new EsBatchLoader<>(50, 100, ids -> {
+            batches.add(ids);
+            Map<String, String> values = new HashMap<>();
+            ids.stream().filter(id -> !"missing".equals(id)).forEach(id -> values.put(id, "doc-" + id));
+            return CompletableFuture.completedFuture(values);
+        });
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (String id : new String[]{"1", "2", "1", "missing"}) {
+            futures.add(CompletableFuture.supplyAsync(() -> loader.load(id).join()));
+        }
+        Assertions.assertEquals("doc-1", futures.get(0).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("doc-2", futures.get(1).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("doc-1", futures.get(2).get(5, TimeUnit.SECONDS));
+        Assertions.assertNull(futures.get(3).get(5, TimeUnit.SECONDS));
+        // 重复的id只请求一次
+        Assertions.assertEquals(3, batches.stream().mapToInt(List::size).sum());
+        System.out.println(batches + " " + loader);
+    }
+
+    @Test
+    public void testMaxBatchSize() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        EsBatchLoader<String> loader = new EsBatchLoader<>(60000, 2, ids -> {
+            batches.add(ids);
+            return CompletableFuture.completedFuture(new HashMap<>());
+        });
+        loader.load("1");
+        Assertions.assertTrue(batches.isEmpty());
+        // 达到批次上限时立即发送，无需等待窗口
+        loader.load("2");
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    public void testFailure() {
+        EsBatchLoader<String> loader = new EsBatchLoader<>(1, 10, ids -> {
+            CompletableFuture<Map<String, String>> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("mget failed"));
+            return future;
+        });
+        CompletableFuture<String> future = loader.load("1");
+        Assertions.assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,68 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.cache.EsNearCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+/**
+ * 近端缓存测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 16:40
+ */
+public class NearCacheTest {
+
+    @Test
+    public void testEviction() {
+        EsNearCache nearCache = EsNearCache.create(EvictionDocument.class, 2, 60);
+        nearCache.put("1", "{\"id\":1}", nearCache.generation());
+        nearCache.put("2", "{\"id\":2}", nearCache.generation());
+        // 访问1后，2成为最久未访问的文档
+        Assertions.assertNotNull(nearCache.get("1"));
+        nearCache.put("3", "{\"id\":3}", nearCache.generation());
+        Assertions.assertNull(nearCache.get("2"));
+        Assertions.assertNotNull(nearCache.get("1"));
+        Assertions.assertNotNull(nearCache.get("3"));
+        Assertions.assertEquals(1, nearCache.getEvictionCount());
+        System.out.println(nearCache);
+    }
+
+    @Test
+    public void testInvalidate() {
+        EsNearCache nearCache = EsNearCache.create(InvalidateDocument.class, 10, 60);
+        nearCache.put("1", "{\"id\":1}", nearCache.generation());
+        nearCache.invalidate(Collections.singletonList("1"));
+        Assertions.assertNull(nearCache.get("1"));
+
+        // 读取期间发生写操作，读到的旧数据不回填
+        long generation = nearCache.generation();
+        nearCache.invalidate(Collections.singletonList("2"));
+        nearCache.put("2", "{\"id\":2}", generation);
+        Assertions.assertNull(nearCache.get("2"));
+        Assertions.assertEquals(2, nearCache.getInvalidationCount());
+        System.out.println(nearCache);
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        EsNearCache nearCache = EsNearCache.create(ExpirationDocument.class, 10, 1);
+        nearCache.put("1", "{\"id\":1}", nearCache.generation());
+        Assertions.assertNotNull(nearCache.get("1"));
+        Thread.sleep(1100);
+        Assertions.assertNull(nearCache.get("1"));
+        Assertions.assertEquals(1, nearCache.getExpirationCount());
+        Assertions.assertEquals(0.5D, nearCache.getHitRatio());
+        System.out.println(nearCache);
+    }
+
+    private static class EvictionDocument {
+    }
+
+    private static class InvalidateDocument {
+    }
+
+    private static class ExpirationDocument {
+    }
+}
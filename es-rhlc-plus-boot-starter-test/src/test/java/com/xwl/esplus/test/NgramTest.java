@@ -0,0 +1,86 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.enums.EsAttachTypeEnum;
+import com.xwl.esplus.core.toolkit.NgramUtils;
+import org.elasticsearch.index.query.MatchPhraseQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * n-gram模糊查询改写及子字段测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 23:35
+ */
+public class NgramTest {
+
+    @Test
+    public void testBuildLikeQuery() {
+        QueryBuilder like = NgramUtils.buildLikeQuery("tel", "1380", EsAttachTypeEnum.LIKE.getType());
+        Assertions.assertTrue(like instanceof MatchPhraseQueryBuilder);
+        Assertions.assertEquals("tel.ngram", ((MatchPhraseQueryBuilder) like).fieldName());
+
+        QueryBuilder likeRight = NgramUtils.buildLikeQuery("tel", "138", EsAttachTypeEnum.LIKE_RIGHT.getType());
+        Assertions.assertEquals("tel.prefix", ((TermQueryBuilder) likeRight).fieldName());
+        QueryBuilder likeLeft = NgramUtils.buildLikeQuery("tel", "8", EsAttachTypeEnum.LIKE_LEFT.getType());
+        Assertions.assertEquals("tel.suffix", ((TermQueryBuilder) likeLeft).fieldName());
+
+        // 无法改写时返回null，仍使用wildcard查询
+        Assertions.assertNull(NgramUtils.buildLikeQuery("tel", "13", EsAttachTypeEnum.LIKE.getType()));
+        Assertions.assertNull(NgramUtils.buildLikeQuery("tel", "13*8", EsAttachTypeEnum.LIKE.getType()));
+        Assertions.assertNull(NgramUtils.buildLikeQuery("tel", "", EsAttachTypeEnum.LIKE_RIGHT.getType()));
+        Assertions.assertNull(NgramUtils.buildLikeQuery("tel", "123456789012345678901", EsAttachTypeEnum.LIKE_LEFT.getType()));
+        Assertions.assertNull(NgramUtils.buildLikeQuery("tel", null, EsAttachTypeEnum.LIKE.getType()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAddSubFields() {
+        Map<String, Object> tel = new HashMap<>();
+        tel.put("type", "keyword");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("tel", tel);
+        properties.put("remark", new HashMap<>(Collections.singletonMap("type", "keyword")));
+        Map<String, Object> mapping = new HashMap<>(Collections.singletonMap("properties", properties));
+        Set<String> columns = new HashSet<>(Arrays.asList("tel", "missing"));
+
+        Assertions.assertTrue(NgramUtils.getSubFieldColumns(mapping, columns).isEmpty());
+        Assertions.assertTrue(NgramUtils.addSubFields(mapping, columns));
+        Map<String, Object> fields = (Map<String, Object>) tel.get("fields");
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("ngram", "prefix", "suffix")), fields.keySet());
+        Assertions.assertFalse(((Map<String, Object>) properties.get("remark")).containsKey("fields"));
+        // 只有mapping中存在全部子字段的字段才能改写
+        Assertions.assertEquals(Collections.singleton("tel"), NgramUtils.getSubFieldColumns(mapping, columns));
+        fields.remove("suffix");
+        Assertions.assertTrue(NgramUtils.getSubFieldColumns(mapping, columns).isEmpty());
+        Assertions.assertTrue(NgramUtils.getSubFieldColumns(null, columns).isEmpty());
+    }
+
+    @Test
+    public void testReadyColumns() {
+        Assertions.assertFalse(NgramUtils.isReady("tel"));
+        Boolean ready = NgramUtils.withReadyColumns(Collections.singleton("tel"), () -> {
+            // 嵌套构建时恢复外层的字段
+            Assertions.assertFalse(NgramUtils.withReadyColumns(Collections.emptySet(), () -> NgramUtils.isReady("tel")));
+            return NgramUtils.isReady("tel");
+        });
+        Assertions.assertTrue(ready);
+        Assertions.assertFalse(NgramUtils.isReady("tel"));
+    }
+
+    @Test
+    public void testContainsAnalyzers() {
+        Assertions.assertFalse(NgramUtils.containsAnalyzers(Collections.singleton("es_plus_ngram")));
+        Assertions.assertTrue(NgramUtils.containsAnalyzers(new HashSet<>(Arrays.asList(
+                "es_plus_ngram", "es_plus_prefix", "es_plus_suffix", "ik_max_word"))));
+    }
+}
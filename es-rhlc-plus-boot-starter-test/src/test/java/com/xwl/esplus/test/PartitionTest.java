@@ -0,0 +1,89 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.enums.EsPartitionEnum;
+import com.xwl.esplus.core.partition.EsIndexPartitioner;
+import com.xwl.esplus.core.toolkit.Wrappers;
+import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
+import com.xwl.esplus.test.document.UserDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 时间分区路由测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 23:09
+ */
+public class PartitionTest {
+
+    private static EsIndexPartitioner partitioner(EsPartitionEnum partition) throws NoSuchFieldException {
+        return new EsIndexPartitioner("user_document", partition,
+                UserDocument.class.getDeclaredField("hireDate"), ZoneId.of("Asia/Shanghai"));
+    }
+
+    @Test
+    public void testSuffix() {
+        LocalDate date = LocalDate.of(2026, 1, 1);
+        Assertions.assertEquals("2026.01.01", EsPartitionEnum.DAY.suffix(date));
+        // 2026-01-01属于2026年第1周
+        Assertions.assertEquals("2026.w01", EsPartitionEnum.WEEK.suffix(date));
+        // 2027-01-01属于2026年第53周
+        Assertions.assertEquals("2026.w53", EsPartitionEnum.WEEK.suffix(LocalDate.of(2027, 1, 1)));
+        Assertions.assertEquals("2026.01", EsPartitionEnum.MONTH.suffix(date));
+    }
+
+    @Test
+    public void testWriteIndex() throws NoSuchFieldException {
+        UserDocument document = new UserDocument();
+        document.setHireDate(LocalDate.of(2026, 10, 19));
+        Assertions.assertEquals("user_document-2026.10", partitioner(EsPartitionEnum.MONTH).getWriteIndexName(document));
+        Assertions.assertThrows(RuntimeException.class,
+                () -> partitioner(EsPartitionEnum.MONTH).getWriteIndexName(new UserDocument()));
+    }
+
+    @Test
+    public void testBetween() throws NoSuchFieldException {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .between(UserDocument::getHireDate, "2026-08-15", LocalDate.of(2026, 10, 2));
+        Assertions.assertArrayEquals(new String[]{"user_document-2026.08", "user_document-2026.09", "user_document-2026.10"},
+                partitioner(EsPartitionEnum.MONTH).getSearchIndices(wrapper.getBaseParamList()));
+    }
+
+    @Test
+    public void testIntersect() throws NoSuchFieldException {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .ge(UserDocument::getHireDate, LocalDateTime.of(2026, 10, 17, 8, 0))
+                .le(UserDocument::getHireDate, "2026-10-20")
+                .ge(UserDocument::getHireDate, "2026-10-18")
+                .eq(UserDocument::getNickname, "张三疯");
+        Assertions.assertArrayEquals(new String[]{"user_document-2026.10.18", "user_document-2026.10.19", "user_document-2026.10.20"},
+                partitioner(EsPartitionEnum.DAY).getSearchIndices(wrapper.getBaseParamList()));
+    }
+
+    @Test
+    public void testFallback() throws NoSuchFieldException {
+        EsIndexPartitioner partitioner = partitioner(EsPartitionEnum.DAY);
+        // 只有下界
+        EsLambdaQueryWrapper<UserDocument> unbounded = Wrappers.<UserDocument>lambdaQuery()
+                .ge(UserDocument::getHireDate, "2026-10-18");
+        Assertions.assertArrayEquals(new String[]{"user_document-*"}, partitioner.getSearchIndices(unbounded.getBaseParamList()));
+        // 包含or
+        EsLambdaQueryWrapper<UserDocument> or = Wrappers.<UserDocument>lambdaQuery()
+                .between(UserDocument::getHireDate, "2026-10-18", "2026-10-19")
+                .or()
+                .eq(UserDocument::getNickname, "张三疯");
+        Assertions.assertArrayEquals(new String[]{"user_document-*"}, partitioner.getSearchIndices(or.getBaseParamList()));
+        // 日期表达式
+        EsLambdaQueryWrapper<UserDocument> dateMath = Wrappers.<UserDocument>lambdaQuery()
+                .between(UserDocument::getHireDate, "2026-10-18||-1d", "2026-10-19");
+        Assertions.assertArrayEquals(new String[]{"user_document-*"}, partitioner.getSearchIndices(dateMath.getBaseParamList()));
+        // 超过100个分区
+        EsLambdaQueryWrapper<UserDocument> wide = Wrappers.<UserDocument>lambdaQuery()
+                .between(UserDocument::getHireDate, "2025-01-01", "2026-10-19");
+        Assertions.assertArrayEquals(new String[]{"user_document-*"}, partitioner.getSearchIndices(wide.getBaseParamList()));
+    }
+}
@@ -0,0 +1,212 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.optimizer.EsQueryOptimizeContext;
+import com.xwl.esplus.core.optimizer.EsQueryOptimizer;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ExistsQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 查询优化器测试，无需真实集群：在内存中按bool语义匹配随机文档，校验优化前后匹配的文档相同
+ *
+ * @author xwl
+ * @since 2026/10/18 23:01
+ */
+public class QueryOptimizerTest {
+    private static final String[] FIELDS = {"a", "b", "c"};
+
+    private static final Set<String> SINGLE_VALUE_COLUMNS = new HashSet<>(Arrays.asList(FIELDS));
+
+    private final EsQueryOptimizer optimizer = EsQueryOptimizer.getInstance();
+
+    @Test
+    public void testEquivalence() {
+        Random random = new Random(42);
+        List<Map<String, Integer>> docs = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Map<String, Integer> doc = new HashMap<>();
+            for (String field : FIELDS) {
+                // 部分文档缺少字段
+                if (random.nextInt(6) > 0) {
+                    doc.put(field, random.nextInt(5));
+                }
+            }
+            docs.add(doc);
+        }
+        for (int i = 0; i < 3000; i++) {
+            BoolQueryBuilder query = randomBool(random, 3);
+            String original = query.toString();
+            boolean scoring = random.nextBoolean();
+            BoolQueryBuilder optimized = optimizer.optimize(query, new EsQueryOptimizeContext(scoring, SINGLE_VALUE_COLUMNS));
+            Assertions.assertEquals(original, query.toString(), "入参不应被修改");
+            for (Map<String, Integer> doc : docs) {
+                Assertions.assertEquals(matches(query, doc), matches(optimized, doc),
+                        () -> "scoring=" + scoring + ", doc=" + doc + "\n" + query + "\n" + optimized);
+            }
+        }
+    }
+
+    @Test
+    public void testFlatten() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .must(QueryBuilders.boolQuery().must(QueryBuilders.termQuery("a", 1)).must(QueryBuilders.termQuery("b", 2)))
+                .should(QueryBuilders.boolQuery().should(QueryBuilders.termQuery("c", 3)));
+        BoolQueryBuilder optimized = optimizer.optimize(query, new EsQueryOptimizeContext(true, SINGLE_VALUE_COLUMNS));
+        Assertions.assertEquals(2, optimized.must().size());
+        Assertions.assertTrue(optimized.should().get(0) instanceof TermQueryBuilder);
+    }
+
+    @Test
+    public void testMustToFilter() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery().must(QueryBuilders.termQuery("a", 1));
+        BoolQueryBuilder scoring = optimizer.optimize(query, new EsQueryOptimizeContext(true, SINGLE_VALUE_COLUMNS));
+        Assertions.assertEquals(1, scoring.must().size());
+        BoolQueryBuilder nonScoring = optimizer.optimize(query, new EsQueryOptimizeContext(false, SINGLE_VALUE_COLUMNS));
+        Assertions.assertTrue(nonScoring.must().isEmpty());
+        Assertions.assertEquals(1, nonScoring.filter().size());
+    }
+
+    @Test
+    public void testMergeTerms() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .mustNot(QueryBuilders.termQuery("a", 1))
+                .mustNot(QueryBuilders.termsQuery("a", 2, 3))
+                .mustNot(QueryBuilders.termQuery("b", 1));
+        BoolQueryBuilder optimized = optimizer.optimize(query, new EsQueryOptimizeContext(true, SINGLE_VALUE_COLUMNS));
+        Assertions.assertEquals(2, optimized.mustNot().size());
+        TermsQueryBuilder terms = (TermsQueryBuilder) optimized.mustNot().get(0);
+        Assertions.assertEquals(Arrays.asList(1, 2, 3), terms.values());
+    }
+
+    @Test
+    public void testMergeRange() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .filter(QueryBuilders.rangeQuery("a").gte(1))
+                .filter(QueryBuilders.rangeQuery("a").lt(3))
+                .filter(QueryBuilders.rangeQuery("a").gt(1))
+                .filter(QueryBuilders.rangeQuery("tags").gte(1))
+                .filter(QueryBuilders.rangeQuery("tags").lt(3));
+        BoolQueryBuilder optimized = optimizer.optimize(query, new EsQueryOptimizeContext(false, SINGLE_VALUE_COLUMNS));
+        // tags不是单值字段，不合并
+        Assertions.assertEquals(3, optimized.filter().size());
+        RangeQueryBuilder range = (RangeQueryBuilder) optimized.filter().get(0);
+        Assertions.assertEquals(1, range.from());
+        Assertions.assertFalse(range.includeLower());
+        Assertions.assertEquals(3, range.to());
+        Assertions.assertFalse(range.includeUpper());
+    }
+
+    private static BoolQueryBuilder randomBool(Random random, int depth) {
+        BoolQueryBuilder bool = QueryBuilders.boolQuery();
+        int clauses = random.nextInt(5);
+        for (int i = 0; i < clauses; i++) {
+            QueryBuilder clause = depth > 0 && random.nextInt(3) == 0 ? randomBool(random, depth - 1) : randomLeaf(random);
+            switch (random.nextInt(4)) {
+                case 0:
+                    bool.must(clause);
+                    break;
+                case 1:
+                    bool.filter(clause);
+                    break;
+                case 2:
+                    bool.should(clause);
+                    break;
+                default:
+                    bool.mustNot(clause);
+            }
+        }
+        if (random.nextInt(6) == 0) {
+            bool.minimumShouldMatch(String.valueOf(1 + random.nextInt(2)));
+        }
+        if (random.nextInt(10) == 0) {
+            bool.boost(2.0F);
+        }
+        return bool;
+    }
+
+    private static QueryBuilder randomLeaf(Random random) {
+        String field = FIELDS[random.nextInt(FIELDS.length)];
+        switch (random.nextInt(4)) {
+            case 0:
+                return QueryBuilders.termQuery(field, random.nextInt(5));
+            case 1:
+                return QueryBuilders.termsQuery(field, random.nextInt(5), random.nextInt(5));
+            case 2:
+                RangeQueryBuilder range = QueryBuilders.rangeQuery(field);
+                if (random.nextBoolean()) {
+                    range.from(random.nextInt(5), random.nextBoolean());
+                }
+                if (random.nextBoolean()) {
+                    range.to(random.nextInt(5), random.nextBoolean());
+                }
+                return range;
+            default:
+                return QueryBuilders.existsQuery(field);
+        }
+    }
+
+    /**
+     * 按es的bool语义匹配文档：未设置minimumShouldMatch时，有must或filter则should可选，否则至少匹配一个should；
+     * minimumShouldMatch大于should子句数时按should子句数处理
+     */
+    private static boolean matches(QueryBuilder query, Map<String, Integer> doc) {
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            if (!bool.must().stream().allMatch(clause -> matches(clause, doc))
+                    || !bool.filter().stream().allMatch(clause -> matches(clause, doc))
+                    || bool.mustNot().stream().anyMatch(clause -> matches(clause, doc))) {
+                return false;
+            }
+            long shouldCount = bool.should().stream().filter(clause -> matches(clause, doc)).count();
+            int minimumShouldMatch;
+            if (bool.minimumShouldMatch() != null) {
+                minimumShouldMatch = Math.min(Integer.parseInt(bool.minimumShouldMatch()), bool.should().size());
+            } else {
+                minimumShouldMatch = bool.must().isEmpty() && bool.filter().isEmpty() && !bool.should().isEmpty() ? 1 : 0;
+            }
+            return shouldCount >= minimumShouldMatch;
+        }
+        if (query instanceof TermQueryBuilder) {
+            TermQueryBuilder term = (TermQueryBuilder) query;
+            return term.value().equals(doc.get(term.fieldName()));
+        }
+        if (query instanceof TermsQueryBuilder) {
+            TermsQueryBuilder terms = (TermsQueryBuilder) query;
+            return terms.values().contains(doc.get(terms.fieldName()));
+        }
+        if (query instanceof ExistsQueryBuilder) {
+            return doc.containsKey(((ExistsQueryBuilder) query).fieldName());
+        }
+        RangeQueryBuilder range = (RangeQueryBuilder) query;
+        Integer value = doc.get(range.fieldName());
+        if (value == null) {
+            return false;
+        }
+        if (range.from() != null) {
+            int from = ((Number) range.from()).intValue();
+            if (value < from || (value == from && !range.includeLower())) {
+                return false;
+            }
+        }
+        if (range.to() != null) {
+            int to = ((Number) range.to()).intValue();
+            return value < to || (value == to && range.includeUpper());
+        }
+        return true;
+    }
+}
@@ -1,5 +1,9 @@
 package com.xwl.esplus.test;
 
+import com.xwl.esplus.core.cache.EsQueryCache;
+import com.xwl.esplus.core.enums.EsCountModeEnum;
+import com.xwl.esplus.core.page.CursorPage;
+import com.xwl.esplus.core.page.EsScrollIterator;
 import com.xwl.esplus.core.page.PageInfo;
 import com.xwl.esplus.core.toolkit.Wrappers;
 import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
@@ -8,6 +12,7 @@ import com.xwl.esplus.test.mapper.UserDocumentMapper;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
@@ -19,6 +24,7 @@ import javax.annotation.Resource;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * 查询文档测试
@@ -168,6 +174,41 @@ public class QueryTest {
         System.out.println(pageInfo);
     }
 
+    @Test
+    public void testSelectPageTrackTotalHitsUpTo() {
+        // 总数超过上限时只返回"至少N条"
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .trackTotalHitsUpTo(5);
+        PageInfo<UserDocument> pageInfo = userDocumentMapper.page(wrapper, 1, 2);
+        System.out.println(pageInfo.getTotal() + (pageInfo.isTotalAccurate() ? "" : "+"));
+    }
+
+    @Test
+    public void testQueryCache() {
+        // 第二次查询命中缓存，命中时仍返回新的实体对象
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .eq(UserDocument::getNickname, "张三")
+                .queryCache(true)
+                .queryCacheTtl(30);
+        List<UserDocument> first = userDocumentMapper.list(wrapper);
+        List<UserDocument> second = userDocumentMapper.list(wrapper);
+        System.out.println(first.size() + " " + second.size() + " " + (first.isEmpty() || first.get(0) != second.get(0)));
+        System.out.println(userDocumentMapper.count(wrapper));
+        System.out.println(EsQueryCache.getInstance());
+    }
+
+    @Test
+    public void testCountMode() {
+        // 无查询条件时读取缓存的_cat/count
+        System.out.println(userDocumentMapper.countInfo(Wrappers.<UserDocument>lambdaQuery()
+                .countMode(EsCountModeEnum.CACHED)));
+        // 有查询条件时统计到上限为止，超过上限输出"N+"
+        System.out.println(userDocumentMapper.countInfo(Wrappers.<UserDocument>lambdaQuery()
+                .gt(UserDocument::getAge, 1)
+                .countMode(EsCountModeEnum.APPROXIMATE)
+                .trackTotalHitsUpTo(5)));
+    }
+
     @Test
     public void testSelectMapsPage() {
         EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
@@ -183,4 +224,43 @@ public class QueryTest {
         PageInfo<Map<String, Object>> mapPageInfo = userDocumentMapper.pageMaps(wrapper, 1, 5);
         System.out.println(mapPageInfo);
     }
+
+    @Test
+    public void testSelectPageAfter() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .orderByDesc(UserDocument::getAge);
+        CursorPage<UserDocument> cursorPage = userDocumentMapper.pageAfter(wrapper, null, 2);
+        System.out.println(cursorPage);
+        while (cursorPage.isHasNext()) {
+            cursorPage = userDocumentMapper.pageAfter(wrapper, cursorPage.getNextCursor(), 2);
+            System.out.println(cursorPage);
+        }
+    }
+
+    @Test
+    public void testScrollStream() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery();
+        try (Stream<UserDocument> stream = userDocumentMapper.scrollStream(wrapper, 2, TimeValue.timeValueMinutes(1))) {
+            stream.forEach(System.out::println);
+        }
+    }
+
+    @Test
+    public void testScrollIterator() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery();
+        try (EsScrollIterator<UserDocument> iterator = userDocumentMapper.scrollIterator(wrapper, 2, null)) {
+            // 只取前3条，关闭时清除scroll上下文
+            for (int i = 0; i < 3 && iterator.hasNext(); i++) {
+                System.out.println(iterator.next());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelScan() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery();
+        long total = userDocumentMapper.parallelScan(wrapper, 2, batch ->
+                System.out.println(Thread.currentThread().getName() + " -> " + batch.size()));
+        System.out.println(total);
+    }
 }
@@ -0,0 +1,95 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.toolkit.EsRefreshCoalescer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 合并刷新调度测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 23:18
+ */
+public class RefreshCoalescerTest {
+    private static final long INTERVAL_MILLIS = 200;
+
+    private final List<CompletableFuture<Object>> refreshes = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Long> startMillis = Collections.synchronizedList(new ArrayList<>());
+
+    private final EsRefreshCoalescer coalescer = new EsRefreshCoalescer(INTERVAL_MILLIS, index -> {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        startMillis.add(System.currentTimeMillis());
+        refreshes.add(future);
+        return future;
+    });
+
+    @Test
+    public void testCoalesce() throws Exception {
+        // 首次申请立即refresh
+        CompletableFuture<Void> warmUp = coalescer.refresh("user_document");
+        waitUntil(() -> refreshes.size() == 1);
+        refreshes.get(0).complete(null);
+        warmUp.get(1, TimeUnit.SECONDS);
+
+        // 间隔内的申请等待下一次refresh，并共享同一次refresh
+        CompletableFuture<Void> first = coalescer.refresh("user_document");
+        CompletableFuture<Void> second = coalescer.refresh("user_document");
+        Assertions.assertSame(first, second);
+        waitUntil(() -> refreshes.size() == 2);
+        Assertions.assertTrue(startMillis.get(1) - startMillis.get(0) >= INTERVAL_MILLIS - 5);
+
+        // refresh执行中的申请不能由该refresh覆盖，需要等待下一次
+        CompletableFuture<Void> third = coalescer.refresh("user_document");
+        Assertions.assertNotSame(first, third);
+        refreshes.get(1).complete(null);
+        first.get(1, TimeUnit.SECONDS);
+        Assertions.assertFalse(third.isDone());
+
+        waitUntil(() -> refreshes.size() == 3);
+        refreshes.get(2).complete(null);
+        third.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(4, coalescer.getRequestCount());
+        Assertions.assertEquals(3, coalescer.getRefreshCount());
+    }
+
+    @Test
+    public void testIndicesAreIndependent() throws Exception {
+        CompletableFuture<Void> user = coalescer.refresh("user_document");
+        CompletableFuture<Void> order = coalescer.refresh("order_document");
+        Assertions.assertNotSame(user, order);
+        waitUntil(() -> refreshes.size() == 2);
+        refreshes.forEach(future -> future.complete(null));
+        CompletableFuture.allOf(user, order).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testFailure() {
+        CompletableFuture<Void> future = coalescer.refresh("user_document");
+        waitUntil(() -> refreshes.size() == 1);
+        refreshes.get(0).completeExceptionally(new IllegalStateException("refresh failed"));
+        Assertions.assertThrows(Exception.class, () -> future.get(1, TimeUnit.SECONDS));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assertions.fail("condition not met in time");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Assertions.fail("interrupted");
+            }
+        }
+    }
+}
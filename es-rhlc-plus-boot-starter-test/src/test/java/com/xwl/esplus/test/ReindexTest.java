@@ -0,0 +1,59 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.index.EsReindexer;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 重建索引的版本命名及别名切换测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 23:36
+ */
+public class ReindexTest {
+
+    @Test
+    public void testNextIndexName() {
+        Assertions.assertEquals("user_document_v1", EsReindexer.nextIndexName("user_document", Collections.emptyList()));
+        Assertions.assertEquals("user_document_v11", EsReindexer.nextIndexName("user_document",
+                Arrays.asList("user_document_v2", "user_document_v10", "user_document_v9")));
+        // 不符合别名_v版本号格式的索引忽略
+        Assertions.assertEquals("user_document_v3", EsReindexer.nextIndexName("user_document",
+                Arrays.asList("user_document_v2", "user_document_v2_bak", "user_document_vx", "user_document_history_v7")));
+    }
+
+    @Test
+    public void testSwapFromIndexWithAliasName() {
+        // 首次重建：别名不能与索引同名，删除原索引与添加别名在同一请求中完成
+        List<AliasActions> actions = EsReindexer.buildSwapRequest("user_document", "user_document", "user_document_v1")
+                .getAliasActions();
+        Assertions.assertEquals(2, actions.size());
+        Assertions.assertEquals(AliasActions.Type.REMOVE_INDEX, actions.get(0).actionType());
+        Assertions.assertArrayEquals(new String[]{"user_document"}, actions.get(0).indices());
+        assertAdd(actions.get(1), "user_document_v1", "user_document");
+    }
+
+    @Test
+    public void testSwapFromVersionedIndex() {
+        // 之后的重建：只移除旧版本索引上的别名，保留旧版本索引以便回滚
+        IndicesAliasesRequest request = EsReindexer.buildSwapRequest("user_document", "user_document_v1", "user_document_v2");
+        List<AliasActions> actions = request.getAliasActions();
+        Assertions.assertEquals(2, actions.size());
+        Assertions.assertEquals(AliasActions.Type.REMOVE, actions.get(0).actionType());
+        Assertions.assertArrayEquals(new String[]{"user_document_v1"}, actions.get(0).indices());
+        Assertions.assertArrayEquals(new String[]{"user_document"}, actions.get(0).aliases());
+        assertAdd(actions.get(1), "user_document_v2", "user_document");
+    }
+
+    private static void assertAdd(AliasActions action, String index, String alias) {
+        Assertions.assertEquals(AliasActions.Type.ADD, action.actionType());
+        Assertions.assertArrayEquals(new String[]{index}, action.indices());
+        Assertions.assertArrayEquals(new String[]{alias}, action.aliases());
+    }
+}
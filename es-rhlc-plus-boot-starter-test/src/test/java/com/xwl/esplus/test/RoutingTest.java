@@ -0,0 +1,51 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.toolkit.RoutingUtils;
+import com.xwl.esplus.core.toolkit.Wrappers;
+import com.xwl.esplus.core.wrapper.query.EsLambdaQueryWrapper;
+import com.xwl.esplus.test.document.UserDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 路由推导测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 23:12
+ */
+public class RoutingTest {
+    private static final String ROUTING_FIELD = "nickname";
+
+    @Test
+    public void testEq() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .ge(UserDocument::getAge, 18)
+                .eq(UserDocument::getNickname, "张三疯");
+        Assertions.assertEquals("张三疯", RoutingUtils.deriveRouting(wrapper.getBaseParamList(), ROUTING_FIELD));
+    }
+
+    @Test
+    public void testIn() {
+        EsLambdaQueryWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaQuery()
+                .in(UserDocument::getNickname, "张三疯", "李四", "张三疯");
+        Assertions.assertEquals("张三疯,李四", RoutingUtils.deriveRouting(wrapper.getBaseParamList(), ROUTING_FIELD));
+    }
+
+    @Test
+    public void testNotDerived() {
+        // 不是路由字段
+        EsLambdaQueryWrapper<UserDocument> other = Wrappers.<UserDocument>lambdaQuery()
+                .eq(UserDocument::getAge, 18);
+        Assertions.assertNull(RoutingUtils.deriveRouting(other.getBaseParamList(), ROUTING_FIELD));
+        // ne不能限定分片
+        EsLambdaQueryWrapper<UserDocument> ne = Wrappers.<UserDocument>lambdaQuery()
+                .ne(UserDocument::getNickname, "张三疯");
+        Assertions.assertNull(RoutingUtils.deriveRouting(ne.getBaseParamList(), ROUTING_FIELD));
+        // 包含or
+        EsLambdaQueryWrapper<UserDocument> or = Wrappers.<UserDocument>lambdaQuery()
+                .eq(UserDocument::getNickname, "张三疯")
+                .or()
+                .eq(UserDocument::getAge, 18);
+        Assertions.assertNull(RoutingUtils.deriveRouting(or.getBaseParamList(), ROUTING_FIELD));
+    }
+}
@@ -0,0 +1,88 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.cache.EsSingleFlight;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求合并测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 17:55
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testCollapse() throws Exception {
+        EsSingleFlight singleFlight = EsSingleFlight.create(CollapseMapper.class, true);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return singleFlight.execute("same", () -> {
+                            calls.incrementAndGet();
+                            await(release);
+                            return "response";
+                        });
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, executor));
+            }
+            // 等待其余请求进入等待状态
+            while (singleFlight.getCollapsedCount() < threads - 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (CompletableFuture<String> future : futures) {
+                Assertions.assertEquals("response", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1, singleFlight.getExecutedCount());
+        Assertions.assertEquals(threads - 1, singleFlight.getCollapsedCount());
+        Assertions.assertEquals(0, singleFlight.getInFlightCount());
+        System.out.println(singleFlight);
+    }
+
+    @Test
+    public void testFailure() {
+        EsSingleFlight singleFlight = EsSingleFlight.create(FailureMapper.class, true);
+        Assertions.assertThrows(IOException.class, () -> singleFlight.execute("fail", () -> {
+            throw new IOException("connection refused");
+        }));
+        // 失败后不残留进行中的请求，下一次重新发送
+        Assertions.assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface CollapseMapper {
+    }
+
+    private interface FailureMapper {
+    }
+}
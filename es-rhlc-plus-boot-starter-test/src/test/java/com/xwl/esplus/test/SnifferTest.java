@@ -0,0 +1,116 @@
+package com.xwl.esplus.test;
+
+import com.sun.net.httpserver.HttpServer;
+import com.xwl.esplus.core.enums.EsRequestTypeEnum;
+import com.xwl.esplus.core.http.EsRequestTypeContextHolder;
+import com.xwl.esplus.core.http.EsRoleAwareNodeSelector;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 节点嗅探及节点选择测试，使用本地桩服务返回_nodes/http，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 11:05
+ */
+public class SnifferTest {
+    private static final String NODES_HTTP = "{\"_nodes\":{\"total\":3,\"successful\":3,\"failed\":0},\"cluster_name\":\"stub\",\"nodes\":{" +
+            node("master-1", "9301", "\"master\"") + "," +
+            node("ingest-1", "9302", "\"ingest\",\"data\"") + "," +
+            node("coord-1", "9303", "") +
+            "}}";
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    private static String node(String name, String port, String roles) {
+        return "\"" + name + "\":{\"name\":\"" + name + "\",\"transport_address\":\"127.0.0.1:1" + port + "\"," +
+                "\"host\":\"127.0.0.1\",\"ip\":\"127.0.0.1\",\"version\":\"7.6.2\",\"roles\":[" + roles + "]," +
+                "\"attributes\":{},\"http\":{\"bound_address\":[\"127.0.0.1:" + port + "\"]," +
+                "\"publish_address\":\"127.0.0.1:" + port + "\",\"max_content_length_in_bytes\":104857600}}";
+    }
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/_nodes/http", exchange -> {
+            byte[] body = NODES_HTTP.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.getAddress().getPort(), "http")).build();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception {
+        EsRequestTypeContextHolder.clear();
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testSniff() throws Exception {
+        List<Node> nodes = sniff();
+        Assertions.assertEquals(3, nodes.size());
+        nodes.forEach(node -> System.out.println(node.getName() + " -> " + node.getHost() + " " + node.getRoles()));
+    }
+
+    @Test
+    public void testRoleAwareNodeSelector() throws Exception {
+        EsRoleAwareNodeSelector nodeSelector = new EsRoleAwareNodeSelector();
+
+        EsRequestTypeContextHolder.set(EsRequestTypeEnum.WRITE);
+        List<Node> writeNodes = sniff();
+        nodeSelector.select(writeNodes);
+        Assertions.assertEquals(1, writeNodes.size());
+        Assertions.assertEquals("ingest-1", writeNodes.get(0).getName());
+
+        EsRequestTypeContextHolder.set(EsRequestTypeEnum.READ);
+        List<Node> readNodes = sniff();
+        nodeSelector.select(readNodes);
+        Assertions.assertEquals(1, readNodes.size());
+        Assertions.assertEquals("coord-1", readNodes.get(0).getName());
+
+        // 未标记请求类型时只跳过专用主节点
+        EsRequestTypeContextHolder.clear();
+        List<Node> anyNodes = sniff();
+        nodeSelector.select(anyNodes);
+        Assertions.assertEquals(2, anyNodes.size());
+    }
+
+    @Test
+    public void testResolveRequestType() {
+        Assertions.assertEquals(EsRequestTypeEnum.WRITE, EsRequestTypeContextHolder.resolve("saveBatch"));
+        Assertions.assertEquals(EsRequestTypeEnum.READ, EsRequestTypeContextHolder.resolve("listByIds"));
+        Assertions.assertNull(EsRequestTypeContextHolder.resolve("createIndex"));
+        // 不符合前缀约定的方法显式归类
+        Assertions.assertEquals(EsRequestTypeEnum.READ, EsRequestTypeContextHolder.resolve("aggregate"));
+        Assertions.assertEquals(EsRequestTypeEnum.READ, EsRequestTypeContextHolder.resolve("scrollStream"));
+        Assertions.assertEquals(EsRequestTypeEnum.READ, EsRequestTypeContextHolder.resolve("parallelScan"));
+        Assertions.assertEquals(EsRequestTypeEnum.WRITE, EsRequestTypeContextHolder.resolve("bulkLoad"));
+        Assertions.assertEquals(EsRequestTypeEnum.WRITE, EsRequestTypeContextHolder.resolve("reindex"));
+    }
+
+    private List<Node> sniff() throws Exception {
+        ElasticsearchNodesSniffer nodesSniffer = new ElasticsearchNodesSniffer(restClient,
+                ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT, ElasticsearchNodesSniffer.Scheme.HTTP);
+        return new ArrayList<>(nodesSniffer.sniff());
+    }
+}
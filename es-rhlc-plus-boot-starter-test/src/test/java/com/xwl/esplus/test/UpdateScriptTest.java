@@ -0,0 +1,66 @@
+package com.xwl.esplus.test;
+
+import com.xwl.esplus.core.config.GlobalConfig;
+import com.xwl.esplus.core.toolkit.ScriptUtils;
+import com.xwl.esplus.core.toolkit.Wrappers;
+import com.xwl.esplus.core.wrapper.update.EsLambdaUpdateWrapper;
+import com.xwl.esplus.test.document.UserDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 更新脚本构建测试，无需真实集群
+ *
+ * @author xwl
+ * @since 2026/10/18 23:21
+ */
+public class UpdateScriptTest {
+
+    @Test
+    public void testScripted() {
+        EsLambdaUpdateWrapper<UserDocument> set = Wrappers.<UserDocument>lambdaUpdate()
+                .set(UserDocument::getRemark, "备注");
+        Assertions.assertFalse(set.isScripted());
+        EsLambdaUpdateWrapper<UserDocument> incr = Wrappers.<UserDocument>lambdaUpdate()
+                .set(UserDocument::getRemark, "备注")
+                .incr(UserDocument::getAge, 1);
+        Assertions.assertTrue(incr.isScripted());
+    }
+
+    @Test
+    public void testSourceReused() {
+        EsLambdaUpdateWrapper<UserDocument> first = Wrappers.<UserDocument>lambdaUpdate()
+                .incr(UserDocument::getAge, 1)
+                .append(UserDocument::getTel, "110");
+        EsLambdaUpdateWrapper<UserDocument> second = Wrappers.<UserDocument>lambdaUpdate()
+                .incr(UserDocument::getAge, 5)
+                .append(UserDocument::getRemark, "备注");
+        // 字段名和值通过params传入，相同的更新方式组合使用同一脚本
+        Assertions.assertEquals("es_plus_update_incr_append", ScriptUtils.getScriptId(first.getUpdateParamList()));
+        Assertions.assertEquals(ScriptUtils.getScriptId(first.getUpdateParamList()), ScriptUtils.getScriptId(second.getUpdateParamList()));
+        Assertions.assertSame(ScriptUtils.getSource(first.getUpdateParamList()), ScriptUtils.getSource(second.getUpdateParamList()));
+
+        String source = ScriptUtils.getSource(first.getUpdateParamList());
+        Assertions.assertTrue(source.contains("ctx._source[params.f0]"));
+        Assertions.assertTrue(source.contains(".add(params.v1)"));
+        Assertions.assertFalse(source.contains("age"));
+        Assertions.assertTrue(source.endsWith("if (!changed) { ctx.op = 'noop'; }"));
+    }
+
+    @Test
+    public void testParams() {
+        EsLambdaUpdateWrapper<UserDocument> wrapper = Wrappers.<UserDocument>lambdaUpdate()
+                .decr(UserDocument::getAge, 1.5)
+                .setIfGreater(UserDocument::getCompanyName, 10L);
+        Map<String, Object> params = ScriptUtils.buildParams(wrapper.getUpdateParamList(), Collections.emptyMap(),
+                new GlobalConfig.DocumentConfig());
+        Assertions.assertEquals("age", params.get("f0"));
+        Assertions.assertEquals(1.5, params.get("v0"));
+        // 默认开启下划线转驼峰，使用es字段名
+        Assertions.assertEquals("company_name", params.get("f1"));
+        Assertions.assertEquals(10, ((Number) params.get("v1")).intValue());
+    }
+}